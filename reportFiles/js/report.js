@@ -54,9 +54,22 @@ var FILELIST;
 //		}
 //	]
 //}
+//
+// For chunked reports, records with long series contain
+// a downsampled series and the path of the file that 
+// contains the full series:
+//		"seriesfile": "./series/1757680877041_12.js"
 //================================================
 var DATA = [];
 
+//================================================
+// SERIES_DATA
+// Full series of chunked reports, the series files 
+// add them with the file path as the key:
+// SERIES_DATA["./series/1757680877041_12.js"] = { "time": [...], "ok": {...}, "nok": {...} };
+//================================================
+var SERIES_DATA = {};
+
 // list of all records of all DATA entries
 var RECORDS_ALL = [];
 
@@ -901,41 +914,11 @@ function initialize(){
 		record.statsid = getStatsIDHash(record);
 		record.total_count = record.ok_count + record.nok_count;
 		
-		let arrayTime = record.series.time;
-		let arraysOK = record.series.ok;
-		let arraysNOK = record.series.nok;
-		
-		//--------------------------------------------------------
-		// clone everything except series
-		// do this here to not clone series every time
-		let clone = _.cloneDeep(record);
-		delete clone.series;
-		
-		for(let t in arrayTime){
-			
-			let timedClone  = _.cloneDeep(clone);
-			timedClone.time = arrayTime[t];
-			
-			//-----------------------------
-			// Add values
-			for(let name in RECORDMETRIC){
-				let metric 	= RECORDMETRIC[name];
-				
-				if(metric.isOkNok){
-					let valueOK 	= record.series.ok[name][t];
-					let valueNOK 	= record.series.nok[name][t];
-					timedClone["ok_"+name] = valueOK;
-					timedClone["nok_"+name] = valueNOK;
-				}else{
-					timedClone[name] = record.series.ok[name][t];
-				}
-		
-			}
-						
-			RECORDS_ALL_DATAPOINTS.push(timedClone);
-			
+		// push instead of concat, concat copies the whole array for every record
+		let datapoints = createDatapoints(record);
+		for(let k = 0; k < datapoints.length; k++){
+			RECORDS_ALL_DATAPOINTS.push(datapoints[k]);
 		}
-				
 	}
 		
 	//------------------------------------
@@ -959,6 +942,100 @@ function initialize(){
 	initialDraw({view: "tableAll"});
 }
 
+/**************************************************************************************
+ * Creates one datapoint per element in the series of the record.
+ *************************************************************************************/
+function createDatapoints(record){
+	
+	let datapoints = [];
+	
+	if(record.series == null){ return datapoints; }
+	
+	let arrayTime = record.series.time;
+	
+	//--------------------------------------------------------
+	// clone everything except series
+	// do this here to not clone series every time
+	let clone = _.cloneDeep(_.omit(record, 'series'));
+	
+	for(let t in arrayTime){
+		
+		let timedClone  = _.cloneDeep(clone);
+		timedClone.time = arrayTime[t];
+		
+		//-----------------------------
+		// Add values
+		for(let name in RECORDMETRIC){
+			let metric 	= RECORDMETRIC[name];
+			
+			if(metric.isOkNok){
+				let valueOK 	= record.series.ok[name][t];
+				let valueNOK 	= record.series.nok[name][t];
+				timedClone["ok_"+name] = valueOK;
+				timedClone["nok_"+name] = valueNOK;
+			}else{
+				timedClone[name] = record.series.ok[name][t];
+			}
+	
+		}
+					
+		datapoints.push(timedClone);
+		
+	}
+	
+	return datapoints;
+}
+
+/**************************************************************************************
+ * Loads the file containing the full series of a record of a chunked report and
+ * replaces the downsampled datapoints of the record. Executes the callback when done,
+ * also if the file could not be loaded.
+ *************************************************************************************/
+function loadSeriesFile(statsid, callback){
+	
+	let record = _.find(RECORDS_ALL, function(r) { return r.statsid == statsid; });
+	
+	if(record == null 
+	|| record.seriesfile == null
+	|| record.seriesloaded){
+		callback();
+		return;
+	}
+	
+	let seriesfile = record.seriesfile;
+	
+	let onloaded = function(){
+		CFW.ui.toggleLoader(false);
+		
+		let series = SERIES_DATA[seriesfile];
+		if(series != null){
+			record.series = series;
+			RECORDS_ALL_DATAPOINTS = _.reject(RECORDS_ALL_DATAPOINTS, function(r) { return r.statsid == statsid; })
+										.concat( createDatapoints(record) );
+			
+			// free memory, data is now in the datapoints
+			delete SERIES_DATA[seriesfile];
+		}
+		
+		record.seriesloaded = true;
+		callback();
+	}
+	
+	CFW.ui.toggleLoader(true);
+	console.log("Load series file >> "+seriesfile);
+	
+	let script = document.createElement('script');
+	script.src = seriesfile;
+	script.type = "text/javascript";
+	script.onload = onloaded;
+	script.onerror = function(){
+		console.log("Could not load file >> "+seriesfile);
+		onloaded();
+	}
+	
+	document.getElementsByTagName('head')[0].appendChild(script);
+}
+
 /**************************************************************************************
  * 
  *************************************************************************************/
@@ -2064,6 +2141,17 @@ function showRecordDetails(statsid){
 	//----------------------
 	// Check input
 	if(statsid == null){ return ''; }
+	
+	//---------------------
+	// Load full series
+	// for chunked reports
+	let original = _.find(RECORDS_ALL, function(r) { return r.statsid == statsid; });
+	if(original != null 
+	&& original.seriesfile != null
+	&& !original.seriesloaded){
+		loadSeriesFile(statsid, function(){ showRecordDetails(statsid); });
+		return;
+	}
 		
 	//---------------------
 	// Filter
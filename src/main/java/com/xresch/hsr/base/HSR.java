@@ -578,10 +578,6 @@ public class HSR {
 					logger.warn("Items are not closed in the correct order: Ended Item: '"+itemToEnd.name()+"' / Active Item'"+getActiveItem().name()+"'");
 				}
 				
-				//----------------------------
-				// Add To Stats
-				HSRStatsEngine.addRecord(itemToEnd);
-				
 				//----------------------------
 				// Set new Active Item
 				if(!items.isEmpty()) {
@@ -592,6 +588,12 @@ public class HSR {
 			
 			HSRConfig.hooks.afterEnd(status, itemToEnd );
 			
+			//----------------------------
+			// Add To Stats
+			// after the hook, pre-aggregation would not 
+			// include changes made by the hook
+			HSRStatsEngine.addRecord(itemToEnd);
+			
 			return itemToEnd;
 			
 		}else{
@@ -630,9 +632,7 @@ public class HSR {
 	 ***********************************************************************************/
 	public static HSRRecord addInfoMessage(String message){
 				
-		return addItem(HSRRecordType.MessageInfo, message)
-				.status(HSRRecordStatus.None)
-				;
+		return addItem( createItem(HSRRecordType.MessageInfo, message).status(HSRRecordStatus.None) );
 	}
 	
 	/***********************************************************************************
@@ -640,8 +640,7 @@ public class HSR {
 	 ***********************************************************************************/
 	public static HSRRecord addWarnMessage(String message){
 				
-		return addItem(HSRRecordType.MessageWarn, message)
-				.status(HSRRecordStatus.None);
+		return addItem( createItem(HSRRecordType.MessageWarn, message).status(HSRRecordStatus.None) );
 	}
 	
 	/***********************************************************************************
@@ -649,7 +648,7 @@ public class HSR {
 	 ***********************************************************************************/
 	public static void addWarnMessage(String message, Throwable t){
 				
-		addItem(HSRRecordType.MessageWarn, message).status(HSRRecordStatus.None);
+		addItem( createItem(HSRRecordType.MessageWarn, message).status(HSRRecordStatus.None) );
 		addException(t);
 	}
 	
@@ -658,7 +657,7 @@ public class HSR {
 	 ***********************************************************************************/
 	public static HSRRecord addErrorMessage(String message){
 				
-		return addItem(HSRRecordType.MessageError, message).status(HSRRecordStatus.None);
+		return addItem( createItem(HSRRecordType.MessageError, message).status(HSRRecordStatus.None) );
 	}
 	
 	/***********************************************************************************
@@ -666,7 +665,7 @@ public class HSR {
 	 ***********************************************************************************/
 	public static void addErrorMessage(String message, Throwable t){
 				
-		addItem(HSRRecordType.MessageError, message).status(HSRRecordStatus.None);
+		addItem( createItem(HSRRecordType.MessageError, message).status(HSRRecordStatus.None) );
 		addException(t);
 	}
 	
@@ -700,7 +699,7 @@ public class HSR {
 		if(e == null) { return null; }
 		
 		String message = customMessage + " / " +HSRConfig.hooks.createExceptionItemName(e);
-		return addItem(HSRRecordType.Exception, message).status(HSRRecordStatus.None);
+		return addItem( createItem(HSRRecordType.Exception, message).status(HSRRecordStatus.None) );
 	}
 	
 	/***********************************************************************************
@@ -710,7 +709,7 @@ public class HSR {
 		if(e == null) { return null; }
 		
 		String message = HSRConfig.hooks.createExceptionItemName(e);
-		return addItem(HSRRecordType.Exception, message).status(HSRRecordStatus.None);
+		return addItem( createItem(HSRRecordType.Exception, message).status(HSRRecordStatus.None) );
 	}
 	
 	/***********************************************************************************
@@ -719,9 +718,16 @@ public class HSR {
 	 * to have an average in the final report, use addGauge()-method.
 	 ***********************************************************************************/
 	public static HSRRecord addCount(String name, BigDecimal count){	
-		return addItem(HSRRecordType.Count, name)
-					.value(count)
-					;
+		return addItem( createItem(HSRRecordType.Count, name).value(count) );
+	}
+	
+	/***********************************************************************************
+	 * Add a count to the report.
+	 * In the final report, count values will be aggregated as a sum. If you want
+	 * to have an average in the final report, use addGauge()-method.
+	 ***********************************************************************************/
+	public static HSRRecord addCount(String name, long count){	
+		return addItem( createItem(HSRRecordType.Count, name).value(count) );
 	}
 	
 	/***********************************************************************************
@@ -730,9 +736,16 @@ public class HSR {
 	 * to have a sum in the final report, use addCount()-method.
 	 ***********************************************************************************/
 	public static HSRRecord addGauge(String name, BigDecimal gauge){	
-		return addItem(HSRRecordType.Gauge, name)
-				.value(gauge)
-				;
+		return addItem( createItem(HSRRecordType.Gauge, name).value(gauge) );
+	}
+	
+	/***********************************************************************************
+	 * Add a gauge to the report.
+	 * In the final report, gauge values will be aggregated as an average. If you want
+	 * to have a sum in the final report, use addCount()-method.
+	 ***********************************************************************************/
+	public static HSRRecord addGauge(String name, double gauge){	
+		return addItem( createItem(HSRRecordType.Gauge, name).value(gauge) );
 	}
 	
 	/***********************************************************************************
@@ -744,9 +757,19 @@ public class HSR {
 	 * @param value the value you want to report
 	 ***********************************************************************************/
 	public static HSRRecord addMetric(String name, BigDecimal value){	
-		return addItem(HSRRecordType.Metric, name)
-					.value(value)
-					;
+		return addItem( createItem(HSRRecordType.Metric, name).value(value) );
+	}
+	
+	/***********************************************************************************
+	 * Add a metric to the report. Useful to report duration and other values you want
+	 * to have statistical values for like min, avg, max.
+	 * For values use the addCount()-method.
+	 * 
+	 * @param name the name of the record
+	 * @param value the value you want to report, e.g. a duration in milliseconds
+	 ***********************************************************************************/
+	public static HSRRecord addMetric(String name, long value){	
+		return addItem( createItem(HSRRecordType.Metric, name).value(value) );
 	}
 
 	/***********************************************************************************
@@ -788,11 +811,10 @@ public class HSR {
 		
 		if(record == null) { return new HSRRecord(HSRRecordType.Exception, "Prevent Nullpointer"); }
 		
-		synchronized (HSRStatsEngine.SYNC_RECORD_MODIFICATION) {
-			HSRRecord ranged = addMetricRanged(record.name() + rangeSuffix, record.value(), rangeValue, initialRange);
-			ranged.sla(record.sla());
-			return ranged;
-		}
+		HSRRecord ranged = createMetricRanged(record.name() + rangeSuffix, record.value(), rangeValue, initialRange);
+		ranged.sla(record.sla());
+		
+		return addItem(ranged);
 		
 	}
 	/***********************************************************************************
@@ -872,12 +894,24 @@ public class HSR {
 	 ***********************************************************************************/
 	public static HSRRecord addMetricRanged(String name, BigDecimal value, int rangeValue, int initialRange){	
 		
+		return addItem( createMetricRanged(name, value, rangeValue, initialRange) );
+	}
+	
+	/***********************************************************************************
+	 * Creates a ranged metric without adding it to the statistics. 
+	 * See addMetricRanged() for details.
+	 * 
+	 * @param name the name of the ranged record
+	 * @param value the value you want to report
+	 * @param rangeValue a count that defines in which range 
+	 * @param initialRange the size of the initial range
+	 ***********************************************************************************/
+	private static HSRRecord createMetricRanged(String name, BigDecimal value, int rangeValue, int initialRange){	
+		
 		//------------------------------
 		// Report zero separately.
 		if(rangeValue == 0) {
-			return addItem(HSRRecordType.Metric, name + " 0000" )
-					.value(value)
-					;
+			return createItem(HSRRecordType.Metric, name + " 0000" ).value(value);
 		}
 		
 		//------------------------------
@@ -900,19 +934,29 @@ public class HSR {
 		if(rangeEnd < 1000) {   endString   = "0".repeat(4-endString.length()) + endString; }
 		
 		//------------------------------
-		// Add Metric 
-		return addItem(HSRRecordType.Metric, name + " " + startString +"-"+endString)
-					.value(value)
-					;
+		// Create Metric 
+		return createItem(HSRRecordType.Metric, name + " " + startString +"-"+endString).value(value);
 	}
 	
 	
 	/***********************************************************************************
 	 * Add a item to the report without the need of starting and ending it.
+	 * 
+	 * <b>IMPORTANT:</b> The record is added to the statistics right away. Changes made
+	 * to the returned record will not be reflected in the statistics when records are
+	 * pre-aggregated (see HSRConfig.aggregationPreAggregate()).
 	 ***********************************************************************************/
 	public static HSRRecord addItem(HSRRecordType type, String name){
+		return addItem( createItem(type, name) );
+	}
+	
+	/***********************************************************************************
+	 * Creates an item with the current test, usecase and active item as parent.
+	 * The item is not added to the statistics, use addItem(HSRRecord) to do so after
+	 * all the values have been set.
+	 ***********************************************************************************/
+	private static HSRRecord createItem(HSRRecordType type, String name){
 		
-
 		HSRRecord item = new HSRRecord(
 						  type
 						, getActiveItem()
@@ -921,9 +965,17 @@ public class HSR {
 		item.test(testname);
 		item.usecase(currentUsecase.get());
 		
+		return item;
+	}
+	
+	/***********************************************************************************
+	 * Adds an item to the statistics.
+	 ***********************************************************************************/
+	private static HSRRecord addItem(HSRRecord item){
+		
 		HSRStatsEngine.addRecord(item);
 		
-		logger.trace("ADD   "+getLogIndendation(item)+" "+name);	
+		logger.trace("ADD   "+getLogIndendation(item)+" "+item.name());	
 		return item;
 	}
 	
@@ -934,14 +986,14 @@ public class HSR {
 	 ***********************************************************************************/
 	public static HSRRecord addAssert(String title, boolean result){
 		
-		HSRRecord item = addItem(HSRRecordType.Assert, title);
+		HSRRecord item = createItem(HSRRecordType.Assert, title);
 		if(result) {
 	 		item.status(HSRRecordStatus.Success);
 	 	}else {
 	 		item.status(HSRRecordStatus.Failed);
 	 	}
 		
-		return item;
+		return addItem(item);
 	}
 	
 	/***********************************************************************************
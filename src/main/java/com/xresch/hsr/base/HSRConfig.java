@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.TreeMap;
 import java.util.UUID;
 
@@ -13,8 +14,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.xresch.hsr.database.HSRAgeOutConfig;
+import com.xresch.hsr.database.HSRDBInterface.HSRPartitionPeriod;
 import com.xresch.hsr.reporting.HSRReporter;
+import com.xresch.hsr.reporting.HSRReporterDispatcher.OverflowPolicy;
 import com.xresch.hsr.stats.HSRRecord;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+import com.xresch.hsr.stats.HSRSeriesDownsampler.HSRDownsampling;
 import com.xresch.hsr.stats.HSRStatsEngine;
 import com.xresch.hsr.utils.HSRLogInterceptorDefault;
 
@@ -59,11 +64,33 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 	private static boolean enableStatsDiskUsage = true;
 	private static boolean enableStatsDiskIO = true;
 	private static boolean enableStatsNetworkIO = true;
+	private static boolean enableStatsSelfMonitoring = false;
 
+	//----------------------
+	// Aggregation
+	private static boolean aggregationHistogram = false;
+	private static int aggregationHistogramPrecision = 2;
+	private static boolean aggregationPreAggregate = false;
+	private static boolean summarySketches = false;
+	private static HSRDownsampling summarySeriesDownsampling = HSRDownsampling.NONE;
+	private static int summarySeriesMaxPoints = 500;
+	private static int aggregationParallelism = 1;
+	private static HSRMetric[] aggregationPercentiles = { HSRMetric.p25, HSRMetric.p50, HSRMetric.p75, HSRMetric.p90, HSRMetric.p95, HSRMetric.p99 };
+	
+	//----------------------
+	// Reporting
+	private static int reporterQueueSize = 10;
+	private static OverflowPolicy reporterOverflowPolicy = OverflowPolicy.BLOCK;
+	
 	//----------------------
 	// Database
 	private static boolean databaseAgeOut = false;
 	private static HSRAgeOutConfig databaseAgeOutConfig = new HSRAgeOutConfig(); // use defaults
+	private static int databaseBatchSize = 500;
+	private static boolean databaseWriteBehind = false;
+	private static int databaseWriteBehindQueueSize = 50;
+	private static String databaseSpillFolder = System.getProperty("java.io.tmpdir");
+	private static HSRPartitionPeriod databasePartitioning = HSRPartitionPeriod.NONE;
 	
 	
 	//----------------------
@@ -165,7 +192,21 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 			HSRConfig.addProperty("[HSR] enableStatsHostMemory", "" + enableStatsHostMemory);
 			HSRConfig.addProperty("[HSR] enableStatsDiskUsage", "" + enableStatsDiskUsage);
 			HSRConfig.addProperty("[HSR] enableStatsDiskIO", "" + enableStatsDiskIO);
+			HSRConfig.addProperty("[HSR] aggregationHistogram", "" + aggregationHistogram);
+			HSRConfig.addProperty("[HSR] aggregationHistogramPrecision", "" + aggregationHistogramPrecision);
+			HSRConfig.addProperty("[HSR] aggregationPreAggregate", "" + aggregationPreAggregate);
+			HSRConfig.addProperty("[HSR] summarySketches", "" + summarySketches);
+			HSRConfig.addProperty("[HSR] summarySeriesDownsampling", summarySeriesDownsampling + " (" + summarySeriesMaxPoints + " points)");
+			HSRConfig.addProperty("[HSR] aggregationParallelism", "" + aggregationParallelism);
+			HSRConfig.addProperty("[HSR] aggregationPercentiles", "" + Arrays.toString(aggregationPercentiles));
+			HSRConfig.addProperty("[HSR] reporterQueueSize", "" + reporterQueueSize);
+			HSRConfig.addProperty("[HSR] reporterOverflowPolicy", "" + reporterOverflowPolicy);
 			HSRConfig.addProperty("[HSR] databaseAgeOut", "" + databaseAgeOut);
+			HSRConfig.addProperty("[HSR] databaseBatchSize", "" + databaseBatchSize);
+			HSRConfig.addProperty("[HSR] databaseWriteBehind", "" + databaseWriteBehind);
+			HSRConfig.addProperty("[HSR] databaseWriteBehindQueueSize", "" + databaseWriteBehindQueueSize);
+			HSRConfig.addProperty("[HSR] databaseSpillFolder", "" + databaseSpillFolder);
+			HSRConfig.addProperty("[HSR] databasePartitioning", "" + databasePartitioning);
 			HSRConfig.addProperty("[HSR] rawDataToSysout", "" + rawDataToSysout);
 			HSRConfig.addProperty("[HSR] rawdataLogPath", "" + rawdataLogPath);
 			HSRConfig.addProperty("[HSR] executionID", "" + EXECUTION_ID);
@@ -224,6 +265,289 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 		return HSRConfig.disableSummaryReports;
 	}
 	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Toggles if the statistics should be aggregated using histograms
+	 * instead of keeping and sorting all the values of an interval.
+	 * Histograms use a fixed amount of memory, but percentiles and
+	 * standard deviation will have a small relative error defined by 
+	 * the precision. Min, max and average stay exact.
+	 * Default is false.
+	 * 
+	 * @param useHistogram true to use histograms
+	 ******************************************************************/
+	public static void aggregationHistogram(boolean useHistogram) {
+		HSRConfig.aggregationHistogram = useHistogram;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns if statistics are aggregated using histograms.
+	 * @return boolean
+	 * 
+	 ******************************************************************/
+	public static boolean aggregationHistogram() {
+		return HSRConfig.aggregationHistogram;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the precision of the histograms used for aggregation in 
+	 * number of significant digits (1 - 5). 
+	 * The default of 2 results in a relative error of less than 1%.
+	 * 
+	 * @param precision number of significant digits
+	 ******************************************************************/
+	public static void aggregationHistogramPrecision(int precision) {
+		HSRConfig.aggregationHistogramPrecision = precision;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the precision of the histograms used for aggregation.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int aggregationHistogramPrecision() {
+		return HSRConfig.aggregationHistogramPrecision;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Toggles if records should be pre-aggregated on the thread that
+	 * adds them. The stats engine keeps one accumulator per metric
+	 * and records are folded into it right away instead of being kept 
+	 * until the end of the report interval. This keeps memory usage
+	 * independent of the amount of records.
+	 * Percentiles will be calculated with histograms, see
+	 * aggregationHistogramPrecision().
+	 * Records are only kept when the raw data log is enabled, changes
+	 * made to a record after it has been added to the statistics are
+	 * not reflected.
+	 * Default is false.
+	 * 
+	 * @param preAggregate true to pre-aggregate
+	 ******************************************************************/
+	public static void aggregationPreAggregate(boolean preAggregate) {
+		HSRConfig.aggregationPreAggregate = preAggregate;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns if records are pre-aggregated.
+	 * @return boolean
+	 * 
+	 ******************************************************************/
+	public static boolean aggregationPreAggregate() {
+		return HSRConfig.aggregationPreAggregate;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the number of threads used to calculate the statistics of
+	 * a report interval. With a value bigger than 1 the metrics are
+	 * split across a ForkJoinPool and calculated in parallel, useful
+	 * if you have thousands of metrics and short report intervals.
+	 * The order of the reported statistics is the same as with 
+	 * sequential calculation.
+	 * Default is 1, which calculates the statistics sequentially.
+	 * 
+	 * @param parallelism number of threads, minimum 1
+	 ******************************************************************/
+	public static void aggregationParallelism(int parallelism) {
+		HSRConfig.aggregationParallelism = Math.max(1, parallelism);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the number of threads used to calculate the statistics.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int aggregationParallelism() {
+		return HSRConfig.aggregationParallelism;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the percentiles that are calculated for every metric, e.g.
+	 * to add p999 and p9999 or to skip percentiles you do not need.
+	 * Percentiles that are not in the list will not have a value.
+	 * Exact percentiles are all selected in one pass over the values
+	 * of an interval, additional percentiles only add little effort.
+	 * Default is p25, p50, p75, p90, p95, p99.
+	 * 
+	 * @param percentiles the percentile metrics, others are ignored
+	 ******************************************************************/
+	public static void aggregationPercentiles(HSRMetric... percentiles) {
+		
+		ArrayList<HSRMetric> list = new ArrayList<>();
+		for(HSRMetric metric : percentiles) {
+			if(metric == null || !metric.isPercentile()) {
+				logger.warn("HSRConfig.aggregationPercentiles(): Ignoring metric that is not a percentile: "+metric);
+				continue;
+			}
+			
+			if( ! list.contains(metric) ) { list.add(metric); }
+		}
+		
+		HSRConfig.aggregationPercentiles = list.toArray(new HSRMetric[0]);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the percentiles that are calculated for every metric.
+	 * @return array of percentile metrics
+	 * 
+	 ******************************************************************/
+	public static HSRMetric[] aggregationPercentiles() {
+		return HSRConfig.aggregationPercentiles.clone();
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Toggles if the summary report should be created by merging the
+	 * histograms of every report interval into one histogram per metric.
+	 * The percentiles in the summary are then calculated over all values
+	 * of the whole test instead of over the percentiles of the intervals,
+	 * and the memory needed for the summary does not grow with the test 
+	 * duration. The series of the intervals are kept in a columnar 
+	 * store of primitive values.
+	 * Percentiles will have the precision defined by 
+	 * aggregationHistogramPrecision().
+	 * Default is false.
+	 * 
+	 * @param useSketches true to use sketches for the summary
+	 ******************************************************************/
+	public static void summarySketches(boolean useSketches) {
+		HSRConfig.summarySketches = useSketches;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns if the summary report is created from merged sketches.
+	 * @return boolean
+	 * 
+	 ******************************************************************/
+	public static boolean summarySketches() {
+		return HSRConfig.summarySketches;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets how the series of the summary records are downsampled 
+	 * before they are passed to the reporters. The size of the summary
+	 * reports then does not grow with the test duration anymore.
+	 * Reporters that return true for requiresRawSeries() still get a
+	 * point for every report interval.
+	 * <ul>
+	 * 	<li>MIN_AVG_MAX: merges consecutive intervals into buckets.</li>
+	 * 	<li>LTTB: keeps the visually most significant intervals.</li>
+	 * </ul>
+	 * Default is NONE.
+	 * 
+	 * @param method the downsampling method
+	 * @param maxPoints the maximum number of points per series
+	 ******************************************************************/
+	public static void summarySeriesDownsampling(HSRDownsampling method, int maxPoints) {
+		HSRConfig.summarySeriesDownsampling = (method != null) ? method : HSRDownsampling.NONE;
+		HSRConfig.summarySeriesMaxPoints = Math.max(3, maxPoints);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the downsampling method for the summary series.
+	 * @return method
+	 * 
+	 ******************************************************************/
+	public static HSRDownsampling summarySeriesDownsampling() {
+		return HSRConfig.summarySeriesDownsampling;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the maximum number of points per summary series.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int summarySeriesMaxPoints() {
+		return HSRConfig.summarySeriesMaxPoints;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the maximum number of report intervals that can be queued
+	 * for a single reporter. Each reporter has its own queue and thread,
+	 * see reporterOverflowPolicy() for what happens if a queue is full.
+	 * Default is 10.
+	 * Has to be set before HSRConfig.enable() is called.
+	 * 
+	 * @param queueSize number of intervals, minimum 1
+	 ******************************************************************/
+	public static void reporterQueueSize(int queueSize) {
+		HSRConfig.reporterQueueSize = Math.max(1, queueSize);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the maximum number of report intervals queued per reporter.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int reporterQueueSize() {
+		return HSRConfig.reporterQueueSize;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets what happens when the statistics of an interval are reported
+	 * while the queue of a reporter is full:
+	 * <ul>
+	 * 	<li><b>BLOCK:</b> The stats engine waits for the reporter (Default).</li>
+	 * 	<li><b>DROP_OLDEST:</b> The oldest interval in the queue is dropped.</li>
+	 * 	<li><b>COALESCE:</b> The statistics are added to the newest 
+	 * 		interval in the queue, the reporter receives multiple intervals 
+	 * 		in one call.</li>
+	 * </ul>
+	 * Has to be set before HSRConfig.enable() is called.
+	 * 
+	 * @param policy the overflow policy
+	 ******************************************************************/
+	public static void reporterOverflowPolicy(OverflowPolicy policy) {
+		if(policy != null) {
+			HSRConfig.reporterOverflowPolicy = policy;
+		}
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the policy used when the queue of a reporter is full.
+	 * @return OverflowPolicy
+	 * 
+	 ******************************************************************/
+	public static OverflowPolicy reporterOverflowPolicy() {
+		return HSRConfig.reporterOverflowPolicy;
+	}
+	
 	/******************************************************************
 	 * <b>Scope:</b> Global <br>
 	 * 
@@ -498,7 +822,8 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 	 * Default is false.
 	 * This must be called before constructors of DB Reporters are called
 	 * to have an effect, as the age out will be triggered in the
-	 * constructor.
+	 * constructor. The age out runs in a background thread and does not
+	 * delay the start of the test.
 	 * 
 	 * @param doAgeOut 
 	 ******************************************************************/
@@ -538,6 +863,141 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 		return HSRConfig.databaseAgeOutConfig;
 	}
 	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the number of rows that are sent to the database in one
+	 * JDBC batch. All rows of a report interval are inserted over one 
+	 * connection in one transaction, bigger batches reduce the number
+	 * of round trips to the database.
+	 * Default is 500.
+	 * 
+	 * @param batchSize number of rows per batch, minimum 1
+	 ******************************************************************/
+	public static void databaseBatchSize(int batchSize) {
+		HSRConfig.databaseBatchSize = Math.max(1, batchSize);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the number of rows sent to the database in one batch.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int databaseBatchSize() {
+		return HSRConfig.databaseBatchSize;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Toggles if database reporters should write in the background.
+	 * The statistics are queued in memory and written by a separate
+	 * thread. If the queue is full or the database cannot be reached,
+	 * the statistics are written to a spill file in the folder defined
+	 * with databaseSpillFolder() and written to the database as soon 
+	 * as it is reachable again.
+	 * Default is false.
+	 * Has to be set before the database reporters are initialized.
+	 * 
+	 * @param writeBehind true to write in the background
+	 ******************************************************************/
+	public static void databaseWriteBehind(boolean writeBehind) {
+		HSRConfig.databaseWriteBehind = writeBehind;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns if database reporters write in the background.
+	 * @return boolean
+	 * 
+	 ******************************************************************/
+	public static boolean databaseWriteBehind() {
+		return HSRConfig.databaseWriteBehind;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the maximum number of report intervals kept in memory by
+	 * the write-behind of database reporters, see databaseWriteBehind().
+	 * Default is 50.
+	 * 
+	 * @param queueSize number of intervals, minimum 1
+	 ******************************************************************/
+	public static void databaseWriteBehindQueueSize(int queueSize) {
+		HSRConfig.databaseWriteBehindQueueSize = Math.max(1, queueSize);
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the queue size of the write-behind.
+	 * @return int
+	 * 
+	 ******************************************************************/
+	public static int databaseWriteBehindQueueSize() {
+		return HSRConfig.databaseWriteBehindQueueSize;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the folder where the write-behind stores statistics that 
+	 * could not be written to the database, see databaseWriteBehind().
+	 * Statistics left over from a previous run are written with the
+	 * next run.
+	 * Default is the temp folder of the JVM.
+	 * 
+	 * @param folderPath path of the folder
+	 ******************************************************************/
+	public static void databaseSpillFolder(String folderPath) {
+		HSRConfig.databaseSpillFolder = folderPath;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the folder used for spill files.
+	 * @return String
+	 * 
+	 ******************************************************************/
+	public static String databaseSpillFolder() {
+		return HSRConfig.databaseSpillFolder;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Sets the period by which the statistics tables of the database
+	 * reporters are partitioned. Inserts only hit the partition of
+	 * the current period and the age out only accesses the partitions
+	 * of the aged timeframe.
+	 * Postgres uses native partitioning, other databases get a table
+	 * per period and a view over all periods with the name of the 
+	 * statistics table.
+	 * Only applies to statistics tables that do not exist yet.
+	 * Default is NONE.
+	 * 
+	 * @param period the partition period
+	 ******************************************************************/
+	public static void databasePartitioning(HSRPartitionPeriod period) {
+		HSRConfig.databasePartitioning = (period != null) ? period : HSRPartitionPeriod.NONE;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Returns the period by which the statistics tables are partitioned.
+	 * @return HSRPartitionPeriod
+	 * 
+	 ******************************************************************/
+	public static HSRPartitionPeriod databasePartitioning() {
+		return HSRConfig.databasePartitioning;
+	}
+	
 	/******************************************************************
 	 * <b>Scope:</b> Global <br>
 	 * 
@@ -688,6 +1148,28 @@ private static final Logger logger = LoggerFactory.getLogger(HSRConfig.class);
 		return enableStatsNetworkIO;
 	}
 	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Toggle if statistics about HSR itself should be collected, like
+	 * the queue sizes and durations of the reporters. The statistics are
+	 * reported as records of type System and add records to every 
+	 * interval, therefore this is opt in.
+	 * Default is false.
+	 ******************************************************************/
+	public static void statsSelfMonitoring(boolean isEnabled) {
+		enableStatsSelfMonitoring = isEnabled;
+	}
+	
+	/******************************************************************
+	 * <b>Scope:</b> Global <br>
+	 * 
+	 * Return if statistics about HSR itself should be collected.
+	 ******************************************************************/
+	public static boolean statsSelfMonitoring() {
+		return enableStatsSelfMonitoring;
+	}
+	
 	/******************************************************************
 	 * <b>Scope:</b> Global <br>
 	 * 
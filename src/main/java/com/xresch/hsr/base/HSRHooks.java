@@ -95,7 +95,8 @@ public class HSRHooks {
 	
 	/*****************************************************************************************
 	 * This method can be overridden to execute code whenever an item has been ended with a 
-	 * HSR.end()-method.
+	 * HSR.end()-method. The item is added to the statistics after this method returns, changes
+	 * made to the item are included in the statistics.
 	 * 
 	 * @param type
 	 * @param endedItem
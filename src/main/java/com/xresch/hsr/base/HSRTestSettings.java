@@ -1,6 +1,9 @@
 package com.xresch.hsr.base;
 
-import java.util.ArrayList;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +64,29 @@ public class HSRTestSettings {
 					;
 	}
 	
+	/***********************************************************************
+	 * Returns an insert statement for the given table, the values can be
+	 * set with bindInsertValues().
+	 ***********************************************************************/
+	public static String createSQL_InsertInto(String tableName) {
+		return sqlInsertIntoTemplate.replace("{tablename}", tableName);
+	}
+	
+	/***********************************************************************
+	 * Sets the values for the statement of createSQL_InsertInto() directly
+	 * on the prepared statement.
+	 ***********************************************************************/
+	public void bindInsertValues(PreparedStatement prepared, int testid) throws SQLException {
+		
+		prepared.setLong(1, HSRConfig.STARTTIME_MILLIS);
+		prepared.setNull(2, Types.BIGINT); //report nothing for endtime
+		prepared.setInt(3, testid);
+		prepared.setString(4, HSRConfig.EXECUTION_ID);
+		prepared.setString(5, HSR.getTest());
+		prepared.setString(6, usecase);
+		prepared.setString(7, HSR.JSON.toJSON(settings));
+	}
+	
 	/***********************************************************************
 	 * Insert into database.
 	 ***********************************************************************/
@@ -68,20 +94,14 @@ public class HSRTestSettings {
 		
 		if(db == null || tableName == null) { return false; }
 
+		int rows = db.preparedExecuteBatch(
+						  createSQL_InsertInto(tableName)
+						, List.of(this)
+						, 1
+						, (prepared, testsettings) -> testsettings.bindInsertValues(prepared, testid)
+					);
 		
-		String insertSQL = sqlInsertIntoTemplate.replace("{tablename}", tableName);
-	
-		ArrayList<Object> valueList = new ArrayList<>();
-		
-		valueList.add(HSRConfig.STARTTIME_MILLIS);
-		valueList.add(null); //report nothing for endtime
-		valueList.add(testid);
-		valueList.add(HSRConfig.EXECUTION_ID);
-		valueList.add(HSR.getTest());
-		valueList.add(usecase);
-		valueList.add(HSR.JSON.toJSON(settings));
-	
-		return db.preparedExecute(insertSQL, valueList.toArray());
+		return rows > 0;
 		
 	}
 	
@@ -8,10 +8,12 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
 import javax.sql.DataSource;
@@ -40,6 +42,15 @@ public class DBInterface {
 
 	private static HashMap<String, BasicDataSource> managedConnectionPools = new HashMap<>();
 	
+	/**************************************************************************************************************
+	 * Sets the values of an item on a prepared statement. Allows to bind the values directly from an object
+	 * without creating an intermediate array of values.
+	 **************************************************************************************************************/
+	@FunctionalInterface
+	public interface StatementBinder<T> {
+		public void bind(PreparedStatement prepared, T item) throws SQLException;
+	}
+	
 	public DBInterface(BasicDataSource pooledSource) {
 		this.pooledSource = pooledSource;
 	}
@@ -301,12 +312,25 @@ public class DBInterface {
 	 * @return true if update count is > 0, false otherwise
 	 ********************************************************************************************/
 	public boolean preparedExecute(String sql, Object... values){	
+		return preparedExecuteUpdate(sql, values) > 0;
+	}
+	
+	/********************************************************************************************
+	 * Executes the statement and returns the update count. Other than preparedExecute(), this 
+	 * allows to differentiate between statements that did not affect any rows and errors.
+	 * 
+	 * @param sql string with placeholders
+	 * @param values the values to be placed in the prepared statement
+	 * @return int number of updated rows, 0 for statements returning a result set or no 
+	 * update count, -1 in case of error
+	 ********************************************************************************************/
+	public int preparedExecuteUpdate(String sql, Object... values){	
         
 		//System.out.println("SQL: "+sql);
 		Connection conn = null;
 		PreparedStatement prepared = null;
 
-		boolean result = false;
+		int result = -1;
 		try {
 			//-----------------------------------------
 			// Initialize Variables
@@ -322,21 +346,19 @@ public class DBInterface {
 			// Execute
 			boolean isResultSet = prepared.execute();
 
-			if(!isResultSet && prepared.getUpdateCount() > 0) {
-				result = true;
-			}
-			
+			result = isResultSet ? 0 : Math.max(0, prepared.getUpdateCount());
 			
 		} catch (SQLException e) {
 			
 			logger.error("Database Error: "+e.getMessage(), e);
 		} finally {
 			try {
+				// close statement first to return it to the statement pool of the connection
+				if(prepared != null) { prepared.close(); }
 				if(conn != null && transactionConnection.get() == null) { 
 					removeOpenConnection(conn);
 					conn.close(); 
 				}
-				if(prepared != null) { prepared.close(); }
 			} catch (SQLException e) {
 				logger.error("Issue closing resources.", e);
 			}
@@ -387,11 +409,11 @@ public class DBInterface {
 			logger.error("Database Error: "+e.getMessage(), e);
 		} finally {
 			try {
+				if(prepared != null) { prepared.close(); }
 				if(conn != null && transactionConnection.get() == null) { 
 					removeOpenConnection(conn);
 					conn.close(); 
 				}
-				if(prepared != null) { prepared.close(); }
 			} catch (SQLException e) {
 				logger.error("Issue closing resources.", e);
 			}
@@ -402,6 +424,122 @@ public class DBInterface {
 		return -1;
 	}
 	
+	/********************************************************************************************
+	 * Executes the statement for every entry in the values list using JDBC batches. All batches
+	 * are executed over the same connection and prepared statement. If no transaction has been
+	 * started with transactionStart(), the batches are executed in their own transaction, which 
+	 * is rolled back if any of the batches fails.
+	 * 
+	 * @param sql string with placeholders
+	 * @param valuesList the values for each execution of the statement
+	 * @param batchSize the maximum number of executions sent to the database in one batch
+	 * @return int number of updated rows, -1 in case of error
+	 ********************************************************************************************/
+	public int preparedExecuteBatch(String sql, List<Object[]> valuesList, int batchSize){	
+		return preparedExecuteBatch(sql, valuesList, batchSize, DBInterface::prepareStatement);
+	}
+	
+	/********************************************************************************************
+	 * Executes the statement for every item using JDBC batches, the values are set by the binder.
+	 * All batches are executed over the same connection and prepared statement. If no transaction
+	 * has been started with transactionStart(), the batches are executed in their own transaction, 
+	 * which is rolled back if any of the batches fails.
+	 * 
+	 * @param sql string with placeholders
+	 * @param items the items to execute the statement for
+	 * @param batchSize the maximum number of executions sent to the database in one batch
+	 * @param binder sets the values of an item on the statement
+	 * @return int number of updated rows, -1 in case of error
+	 ********************************************************************************************/
+	public <T> int preparedExecuteBatch(String sql, List<T> items, int batchSize, StatementBinder<T> binder){	
+		
+		if(items == null || items.isEmpty()) { return 0; }
+		
+		batchSize = Math.max(1, batchSize);
+		
+		boolean isOwnTransaction = (transactionConnection.get() == null);
+		Connection conn = null;
+		PreparedStatement prepared = null;
+		
+		try {
+			//-----------------------------------------
+			// Initialize Variables
+			conn = this.getConnection();
+			if(isOwnTransaction) { conn.setAutoCommit(false); }
+			
+			prepared = conn.prepareStatement(sql);
+			
+			//-----------------------------------------
+			// Add and Execute Batches
+			int totalRows = 0;
+			int batchCount = 0;
+			
+			for(T item : items) {
+				binder.bind(prepared, item);
+				prepared.addBatch();
+				batchCount++;
+				
+				if(batchCount >= batchSize) {
+					totalRows += countRows( prepared.executeBatch() );
+					batchCount = 0;
+				}
+			}
+			
+			if(batchCount > 0) {
+				totalRows += countRows( prepared.executeBatch() );
+			}
+			
+			if(isOwnTransaction) { conn.commit(); }
+			
+			return totalRows;
+			
+		} catch (SQLException e) {
+			
+			logger.error("Database Error: "+e.getMessage(), e);
+			
+			if(isOwnTransaction && conn != null) {
+				try {
+					conn.rollback();
+				} catch (SQLException e2) {
+					logger.error("Error occured on rollback of batch.", e2);
+				}
+			}
+			
+		} finally {
+			try {
+				if(prepared != null) { prepared.close(); }
+				if(conn != null && isOwnTransaction) { 
+					conn.setAutoCommit(true);
+					removeOpenConnection(conn);
+					conn.close(); 
+				}
+			} catch (SQLException e) {
+				logger.error("Issue closing resources.", e);
+			}
+			
+			logger.trace("SQL Statement: "+sql);
+		}
+		
+		return -1;
+	}
+	
+	/********************************************************************************************
+	 * Returns the sum of the update counts of a batch, ignores unknown counts.
+	 ********************************************************************************************/
+	private static int countRows(int[] resultCounts) {
+		
+		int totalRows = 0;
+		for(int i : resultCounts) {
+			if(i >= 0) {
+				totalRows += i;
+			}else if(i == Statement.SUCCESS_NO_INFO) {
+				totalRows++;
+			}
+		}
+		
+		return totalRows;
+	}
+	
 	/********************************************************************************************
 	 * Executes the insert and returns the generated Key of the new record. (what is a
 	 * primary key in most cases)
@@ -442,11 +580,11 @@ public class DBInterface {
 			logger.error("Database Error: "+e.getMessage(), e);
 		} finally {
 			try {
+				if(prepared != null) { prepared.close(); }
 				if(conn != null && transactionConnection.get() == null) { 
 					removeOpenConnection(conn);
 					conn.close(); 
 				}
-				if(prepared != null) { prepared.close(); }
 			} catch (SQLException e) {
 				logger.error("Issue closing resources.", e);
 			}
@@ -478,6 +616,61 @@ public class DBInterface {
 		return preparedExecuteQuery(true, sql, values);
 	}
 	
+	/********************************************************************************************
+	 * Returns a forward only result that is fetched from the database in chunks of the given
+	 * fetch size, instead of loading all rows into memory. Use this for big results that are
+	 * processed row by row, e.g. with the write-methods of HSRResultSetConverter.
+	 * If no transaction has been started, auto commit is disabled on the connection, as 
+	 * Postgres only uses a cursor when auto commit is off. The connection is reset when it is 
+	 * returned to the pool with close(ResultSet).
+	 * 
+	 * @param fetchSize number of rows fetched from the database at once
+	 * @param sql string with placeholders
+	 * @param values the values to be placed in the prepared statement
+	 * @return result or null if there was any issue
+	 ********************************************************************************************/
+	public ResultSet preparedExecuteQueryStreaming(int fetchSize, String sql, Object... values){	
+		
+		Connection conn = null;
+		PreparedStatement prepared = null;
+		ResultSet result = null;
+		try {
+			//-----------------------------------------
+			// Initialize Variables
+			conn = this.getConnection();
+			if(transactionConnection.get() == null) { conn.setAutoCommit(false); }
+			
+			prepared = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			prepared.setFetchSize( Math.max(1, fetchSize) );
+			
+			//-----------------------------------------
+			// Prepare Statement
+			DBInterface.prepareStatement(prepared, values);
+			
+			//-----------------------------------------
+			// Execute
+			result = prepared.executeQuery();
+			
+		} catch (SQLException e) {
+			
+			logger.error("Issue executing prepared statement: "+e.getLocalizedMessage(), e);
+			try {
+				if(prepared != null) { prepared.close(); }
+				if(conn != null && transactionConnection.get() == null) { 
+					conn.setAutoCommit(true);
+					removeOpenConnection(conn);
+					conn.close(); 
+				}
+			} catch (SQLException e2) {
+				logger.error("Issue closing resources.", e2);
+			}
+		} 
+		
+		logger.trace("SQL Statement: "+sql);
+		
+		return result;
+	}
+	
 	/********************************************************************************************
 	 * Returns the result or null if there was any issue.
 	 * 
@@ -509,11 +702,11 @@ public class DBInterface {
 			
 			logger.error("Issue executing prepared statement: "+e.getLocalizedMessage(), e);
 			try {
+				if(prepared != null) { prepared.close(); }
 				if(conn != null && transactionConnection.get() == null) { 
 					removeOpenConnection(conn);
 					conn.close(); 
 				}
-				if(prepared != null) { prepared.close(); }
 			} catch (SQLException e2) {
 				logger.error("Issue closing resources.", e2);
 			}
@@ -599,10 +792,16 @@ public class DBInterface {
 			&& resultSet.getStatement() != null 
 			&& !resultSet.getStatement().isClosed()) {
 				
-				removeOpenConnection(resultSet.getStatement().getConnection());
+				Connection conn = resultSet.getStatement().getConnection();
+				removeOpenConnection(conn);
 				
-				if(!resultSet.getStatement().getConnection().isClosed()) {
-					resultSet.getStatement().getConnection().close();
+				if(!conn.isClosed()) {
+					// reset connections of preparedExecuteQueryStreaming()
+					if(!conn.getAutoCommit()) {
+						conn.rollback();
+						conn.setAutoCommit(true);
+					}
+					conn.close();
 					resultSet.close();
 				}
 			}
@@ -832,6 +1031,10 @@ public class DBInterface {
 		pooledSource.setMinIdle(10);
 		pooledSource.setMaxIdle(70);
 		pooledSource.setMaxTotal(90);
+		
+		// cache prepared statements per connection, statements are reused when the 
+		// same SQL is prepared again, least recently used statements are closed
+		pooledSource.setPoolPreparedStatements(true);
 		pooledSource.setMaxOpenPreparedStatements(100);
 	}
 	
@@ -15,6 +15,9 @@ public class HSRAgeOutConfig {
 	private Duration keep15MinFor = Duration.ofDays(365 * 3);	// Default 3 years
 	private Duration keep60MinFor = Duration.ofDays(365 * 20);	// Default 20 years
 	
+	private Duration maxDuration = Duration.ofMinutes(30);		// Default 30 minutes per run
+	private Duration pause = Duration.ofMillis(100);			// Default 100 ms between transactions
+	
 
 
 	/***************************************************************************
@@ -37,6 +40,14 @@ public class HSRAgeOutConfig {
 	 *  Returns the duration for the granularity mentioned in the method name. */
 	public Duration keep60MinFor() { return keep60MinFor; }
 	
+	/***************************************************************************
+	 *  Returns the maximum duration of one age out run. */
+	public Duration maxDuration() { return maxDuration; }
+	
+	/***************************************************************************
+	 *  Returns the pause between two age out transactions. */
+	public Duration pause() { return pause; }
+	
 	/*************************************************************
 	 * Sets the Metric the granularity mentioned in the method
 	 * name should be kept. All granularities lower than that
@@ -97,5 +108,31 @@ public class HSRAgeOutConfig {
 		return this;
 	}
 	
+	/*************************************************************
+	 * Sets the maximum duration of one age out run. When the 
+	 * duration is exceeded, the age out stops after the current
+	 * transaction and continues at the saved checkpoint with 
+	 * the next run.
+	 * Use Duration.ZERO for no limit.
+	 * 
+	 * @param duration maximum duration of a run
+	 *************************************************************/
+	public HSRAgeOutConfig maxDuration(Duration duration) {
+		maxDuration = duration;
+		return this;
+	}
+	
+	/*************************************************************
+	 * Sets the pause between two age out transactions, which 
+	 * throttles the age out to keep the load on the database low
+	 * while statistics are reported at the same time.
+	 * 
+	 * @param duration pause between two transactions
+	 *************************************************************/
+	public HSRAgeOutConfig pause(Duration duration) {
+		pause = duration;
+		return this;
+	}
+	
 
 }
@@ -0,0 +1,116 @@
+package com.xresch.hsr.database;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xresch.hsr.base.HSRConfig;
+import com.xresch.hsr.database.HSRDBInterface.HSRPartitionPeriod;
+
+/**************************************************************************************************************
+ * Standalone entry point to age out the statistics of a database outside of test runs, for example from
+ * a nightly scheduled job. Uses the same checkpoints as the age out started by the database reporters,
+ * runs can be interrupted at any time and continue where they stopped.
+ *
+ * Usage:
+ * <pre>
+ * java -cp hsr.jar:driver.jar com.xresch.hsr.database.HSRAgeOutJob
+ *      driverName jdbcURL username password tableNamePrefix [maxDurationMinutes] [partitioning]
+ * </pre>
+ * Set maxDurationMinutes to 0 for no limit. The partitioning (NONE, DAY, WEEK or MONTH) has to be the same 
+ * as used by the reporters that created the tables, default is NONE.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRAgeOutJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRAgeOutJob.class);
+
+	/************************************************************************
+	 * Runs the age out on the tables with the given prefix.
+	 * The age out durations are taken from HSRConfig.getAgeOutConfig(), 
+	 * set HSRConfig.databasePartitioning() to the same value as used by the
+	 * reporters if the tables are partitioned.
+	 *
+	 * @param db the database interface
+	 * @param tablenamePrefix the prefix for the table names
+	 *
+	 * @return true if all statistics have been aged out, false if the
+	 * max duration has been exceeded
+	 ************************************************************************/
+	public static boolean run(DBInterface db, String tablenamePrefix) {
+
+		HSRDBInterface hsrDB = new HSRDBInterface(db, tablenamePrefix);
+		hsrDB.initializeDB();
+
+		long startMillis = System.currentTimeMillis();
+		boolean isComplete = hsrDB.ageOutStatistics();
+
+		logger.info("Age Out Job finished, complete: "+isComplete+", duration: "+(System.currentTimeMillis() - startMillis)+" ms");
+
+		return isComplete;
+	}
+
+	/************************************************************************
+	 * Main method to run the age out as a standalone job.
+	 * Exits with 0 if complete, 1 if the max duration has been exceeded and
+	 * 2 on errors.
+	 ************************************************************************/
+	public static void main(String[] args) {
+
+		if(args.length < 5) {
+			System.err.println("Usage: HSRAgeOutJob driverName jdbcURL username password tableNamePrefix [maxDurationMinutes] [partitioning]");
+			System.exit(2);
+		}
+
+		String driverName = args[0];
+		String jdbcURL = args[1];
+		String username = args[2];
+		String password = args[3];
+		String tablenamePrefix = args[4];
+
+		//---------------------------
+		// Max Duration
+		if(args.length > 5) {
+			HSRAgeOutConfig config = HSRConfig.getAgeOutConfig();
+			config.maxDuration( Duration.ofMinutes(Long.parseLong(args[5])) );
+		}
+		
+		//---------------------------
+		// Partitioning
+		if(args.length > 6) {
+			try {
+				HSRConfig.databasePartitioning( HSRPartitionPeriod.valueOf(args[6].trim().toUpperCase()) );
+			}catch(IllegalArgumentException e) {
+				System.err.println("Unknown partitioning '"+args[6]+"', use one of: NONE, DAY, WEEK, MONTH");
+				System.exit(2);
+			}
+		}
+
+		//---------------------------
+		// Connect
+		DBInterface db = DBInterface.createDBInterface("hsr-ageout-job", driverName, jdbcURL, username, password);
+
+		if(db == null) {
+			logger.error("Age Out Job: could not connect to the database.");
+			System.exit(2);
+		}
+
+		//---------------------------
+		// Run
+		int exitCode;
+		try {
+			exitCode = run(db, tablenamePrefix) ? 0 : 1;
+		}catch(Throwable e) {
+			logger.error("Error during age out of statistics: "+e.getMessage(), e);
+			exitCode = 2;
+		}finally {
+			db.closeAll();
+		}
+
+		System.exit(exitCode);
+	}
+
+}
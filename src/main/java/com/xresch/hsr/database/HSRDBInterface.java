@@ -1,18 +1,38 @@
 package com.xresch.hsr.database;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.xresch.hsr.base.HSR;
 import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.base.HSRTestSettings;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
 import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+import com.xresch.hsr.stats.HSRStatsEngine;
 import com.xresch.xrutils.utils.XRTime;
 import com.xresch.xrutils.utils.XRTimeUnit;
 
@@ -25,7 +45,7 @@ public class HSRDBInterface {
 	
 	private static final Logger logger = LoggerFactory.getLogger(HSRDBInterface.class);
 	
-	private DBInterface db;
+	protected DBInterface db;
 	
 	public final String tablenamePrefix;
 	public final String tablenameTests;
@@ -33,6 +53,7 @@ public class HSRDBInterface {
 	public final String tablenameStatsSummary;
 	public final String tablenameTestsettings;
 	public final String tablenameTempAggregation;
+	public final String tablenameAgeOutCheckpoint;
 	
 	private String sqlCreateTableTests;
 	private String sqlCreateTableStats;
@@ -40,6 +61,68 @@ public class HSRDBInterface {
 	private String sqlCreateTableTestSettings;
 	private String sqlAggregateStats;
 	
+	// number of time buckets aggregated in one transaction by the age out
+	private static final int AGE_OUT_BUCKETS_PER_TRANSACTION = 1000;
+	
+	private Thread ageOutThread = null;
+	private volatile boolean isAgeOutStopped = false;
+	
+	//----------------------------------
+	// Partitioning
+	protected HSRPartitionPeriod partitionPeriod;
+	
+	// start of period and name of the partitions that have been created
+	private final TreeMap<Long, String> partitions = new TreeMap<>();
+	
+	private static final DateTimeFormatter PARTITION_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+	
+	/******************************************************************************
+	 * A physical table containing statistics and the time range it covers.
+	 ******************************************************************************/
+	private record StatsTable(String name, long startTime, long endTime) {}
+	
+	/**************************************************************************************************************
+	 * The time periods the statistics table can be partitioned by. Periods start at midnight UTC,
+	 * weeks start on monday.
+	 **************************************************************************************************************/
+	public enum HSRPartitionPeriod {
+		  NONE
+		, DAY
+		, WEEK
+		, MONTH
+		;
+		
+		/******************************************************************
+		 * Returns the start of the period containing the given time.
+		 ******************************************************************/
+		public long periodStart(long epochMillis) {
+			
+			ZonedDateTime day = Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+			
+			switch(this) {
+				case WEEK:	day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)); break;
+				case MONTH:	day = day.withDayOfMonth(1); break;
+				default:	break;
+			}
+			
+			return day.toInstant().toEpochMilli();
+		}
+		
+		/******************************************************************
+		 * Returns the start of the next period.
+		 ******************************************************************/
+		public long periodEnd(long periodStart) {
+			
+			ZonedDateTime start = Instant.ofEpochMilli(periodStart).atZone(ZoneOffset.UTC);
+			
+			switch(this) {
+				case WEEK:	return start.plusWeeks(1).toInstant().toEpochMilli();
+				case MONTH:	return start.plusMonths(1).toInstant().toEpochMilli();
+				default:	return start.plusDays(1).toInstant().toEpochMilli();
+			}
+		}
+	}
+	
 	public static final String PACKAGE_RESOURCES = "com.xresch.hsr.database.resources";
 	static { HSR.Files.addAllowedPackage(PACKAGE_RESOURCES); }
 	
@@ -58,6 +141,16 @@ public class HSRDBInterface {
 			)"""
 			;
 	
+	private static final String sqlCreateTableAgeOutCheckpoint = """
+			CREATE TABLE IF NOT EXISTS {tablename} (
+			    granularity INTEGER
+			  , testid INTEGER
+			  , time BIGINT
+			  , updated BIGINT
+			  , PRIMARY KEY (granularity, testid)
+			)"""
+			;
+	
 	private static String sqlInsertIntoTemplate = """
 			INSERT INTO {tablename}
 				(execid, time, endtime, name, properties)
@@ -79,7 +172,12 @@ public class HSRDBInterface {
 		this.tablenameStats = tablenamePrefix+"_stats";
 		this.tablenameStatsSummary = tablenamePrefix+"_stats_summary";
 		this.tablenameTestsettings = tablenamePrefix+"_testsettings";
-		this.tablenameTempAggregation = tablenamePrefix+"_temp_aggregation";
+		// unique per instance, multiple age outs must not share the same temp table
+		this.tablenameTempAggregation = tablenamePrefix+"_temp_aggregation_"
+											+ Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), 36);
+		this.tablenameAgeOutCheckpoint = tablenamePrefix+"_ageout_checkpoint";
+		
+		this.partitionPeriod = HSRConfig.databasePartitioning();
 		
 		//-----------------------------------
 		// Add defaults SQLs, can be overridden
@@ -109,14 +207,27 @@ public class HSRDBInterface {
 		//---------------------------
 		// CREATE TABLES
 		db.preparedExecute(sqlCreateTableTests);
-		db.preparedExecute(sqlCreateTableStats);
+		initializeStatsTable();
 		db.preparedExecute(sqlCreateTableStatsSummary);
 		db.preparedExecute(sqlCreateTableTestSettings);
+		db.preparedExecute(sqlCreateTableAgeOutCheckpoint.replace("{tablename}", tablenameAgeOutCheckpoint));
 		
 		//---------------------------
 		// ALLTER TABLES
 		alterTables();
 		
+		//---------------------------
+		// CREATE INDEXES
+		for(String tableName : getStatsTableNames()) {
+			createIndexes(tableName);
+		}
+		
+		//---------------------------
+		// CREATE PARTITION VIEW
+		if(isTablePerPeriod()) {
+			createPartitionView();
+		}
+		
 		//---------------------------
 		// CREATE PROCEDURE
 //		try {
@@ -160,13 +271,28 @@ public class HSRDBInterface {
 	private void alterTables() {
 		//----------------------------
 		// Add CPH Column
-		String addOkCPHColumn = "ALTER TABLE %s ADD IF NOT EXISTS ok_cph DECIMAL(32,3);";
-		db.preparedExecute(addOkCPHColumn.formatted(tablenameStats));
-		db.preparedExecute(addOkCPHColumn.formatted(tablenameStatsSummary));
+		ArrayList<String> tableNames = getStatsTableNames();
+		tableNames.add(tablenameStatsSummary);
 		
+		String addOkCPHColumn = "ALTER TABLE %s ADD IF NOT EXISTS ok_cph DECIMAL(32,3);";
 		String addNokCPHColumn = "ALTER TABLE %s ADD IF NOT EXISTS nok_cph DECIMAL(32,3);";
-		db.preparedExecute(addNokCPHColumn.formatted(tablenameStats));
-		db.preparedExecute(addNokCPHColumn.formatted(tablenameStatsSummary));
+		for(String tableName : tableNames) {
+			db.preparedExecute(addOkCPHColumn.formatted(tableName));
+			db.preparedExecute(addNokCPHColumn.formatted(tableName));
+		}
+		
+		//----------------------------
+		// Add Percentile Columns
+		for(HSRRecordState state : HSRRecordState.values()) {
+			for(HSRMetric metric : HSRMetric.values()) {
+				if( !metric.isPercentile() ) { continue; }
+				
+				String addPercentileColumn = "ALTER TABLE %s ADD IF NOT EXISTS "+state+"_"+metric+" DECIMAL(32,3);";
+				for(String tableName : tableNames) {
+					db.preparedExecute(addPercentileColumn.formatted(tableName));
+				}
+			}
+		}
 //		
 //		//----------------------------
 //		// Add endTime to testsettings
@@ -175,25 +301,348 @@ public class HSRDBInterface {
 	}
 	
 	/****************************************************************************
+	 * Creates the indexes needed to find the statistics to age out.
+	 ****************************************************************************/
+	private void createIndexes(String tableName) {
+		
+		String createIndexTestGranularityTime = "CREATE INDEX IF NOT EXISTS %s_idx_testid_gran_time ON %s (testid, granularity, time);";
+		db.preparedExecute(createIndexTestGranularityTime.formatted(tableName, tableName));
+		
+		String createIndexGranularityTime = "CREATE INDEX IF NOT EXISTS %s_idx_gran_time ON %s (granularity, time);";
+		db.preparedExecute(createIndexGranularityTime.formatted(tableName, tableName));
+	}
+	
+	/****************************************************************************
+	 * Creates the statistics table. If partitioning is enabled, a table is 
+	 * created per period and the statistics table is replaced by a view over
+	 * all the partitions. 
+	 * Override this method together with isNativePartitioning() and 
+	 * createPartitionTable() to use the partitioning of a specific database.
+	 ****************************************************************************/
+	protected void initializeStatsTable() {
+		
+		if(partitionPeriod == HSRPartitionPeriod.NONE) {
+			db.preparedExecute(sqlCreateTableStats);
+			return;
+		}
+		
+		//---------------------------
+		// Find Existing Tables
+		boolean isStatsTableExisting;
+		try {
+			isStatsTableExisting = readPartitions();
+		} catch (SQLException e) {
+			logger.error("Error while reading existing tables, partitioning is disabled: "+e.getMessage(), e);
+			partitionPeriod = HSRPartitionPeriod.NONE;
+			db.preparedExecute(sqlCreateTableStats);
+			return;
+		}
+		
+		//---------------------------
+		// Do not partition existing tables
+		if(isStatsTableExisting) {
+			logger.warn("Table "+tablenameStats+" already exists and is not partitioned, partitioning is disabled for this table.");
+			partitionPeriod = HSRPartitionPeriod.NONE;
+			partitions.clear();
+			return;
+		}
+		
+		//---------------------------
+		// Create Partition for now
+		ensurePartition( partitionPeriod.periodStart(System.currentTimeMillis()) );
+	}
+	
+	/****************************************************************************
+	 * Reads the partition tables that exist in the database and replaces the
+	 * known partitions with them. Partitions might have been created by other 
+	 * instances writing to the same database after this instance was started.
 	 * 
+	 * @return true if a statistics table exists that is not a view, means the
+	 * table is not partitioned
 	 ****************************************************************************/
-	public void reportRecords(int testID, ArrayList<HSRRecordStats> records) {
+	private synchronized boolean readPartitions() throws SQLException {
+		
+		Pattern partitionPattern = Pattern.compile(Pattern.quote(tablenameStats.toLowerCase()) + "_p(\\d{8})");
+		boolean isStatsTableExisting = false;
+		TreeMap<Long, String> existingPartitions = new TreeMap<>();
 		
-		for(HSRRecordStats record : records ) {
-			record.insertIntoDatabase(db, testID, tablenameStats);
+		Connection conn = null;
+		try {
+			conn = db.getConnection();
+			DatabaseMetaData metadata = conn.getMetaData();
+			
+			// types not filtered, H2 uses "BASE TABLE" instead of "TABLE"
+			try(ResultSet tables = metadata.getTables(null, null, "%", null)){
+				while(tables.next()) {
+					
+					String type = tables.getString("TABLE_TYPE");
+					if(type == null || !type.toUpperCase().contains("TABLE")) { continue; }
+					
+					String name = tables.getString("TABLE_NAME").toLowerCase();
+					
+					if(name.equals(tablenameStats.toLowerCase())) {
+						isStatsTableExisting = true;
+						continue;
+					}
+					
+					Matcher matcher = partitionPattern.matcher(name);
+					if(matcher.matches()) {
+						long periodStart = LocalDate.parse(matcher.group(1), PARTITION_SUFFIX_FORMAT)
+													.atStartOfDay(ZoneOffset.UTC)
+													.toInstant()
+													.toEpochMilli();
+						existingPartitions.put(periodStart, name);
+					}
+				}
+			}
+		} finally {
+			if(conn != null) { db.close(conn); }
 		}
-
+		
+		partitions.clear();
+		partitions.putAll(existingPartitions);
+		
+		return isStatsTableExisting;
 	}
 	
 	/****************************************************************************
+	 * Reads the partitions from the database, keeps the known partitions in
+	 * case of an error.
+	 ****************************************************************************/
+	private synchronized void refreshPartitions() {
+		try {
+			readPartitions();
+		} catch (SQLException e) {
+			logger.error("Error while reading partitions, using the known partitions: "+e.getMessage(), e);
+		}
+	}
+	
+	/****************************************************************************
+	 * Returns true if the database supports partitioning natively, in this
+	 * case inserts, updates and deletes are executed on the statistics table 
+	 * and the database routes them to the partitions.
+	 ****************************************************************************/
+	protected boolean isNativePartitioning() {
+		return false;
+	}
+	
+	/****************************************************************************
+	 * Returns true if the statistics are written to a table per period.
+	 ****************************************************************************/
+	private boolean isTablePerPeriod() {
+		return partitionPeriod != HSRPartitionPeriod.NONE && !isNativePartitioning();
+	}
+	
+	/****************************************************************************
+	 * Creates the table for a partition.
 	 * 
+	 * @param partitionName name of the partition
+	 * @param periodStart start of the period, inclusive
+	 * @param periodEnd end of the period, exclusive
 	 ****************************************************************************/
-	public void reportRecordsSummary(int testID, ArrayList<HSRRecordStats> records) {
+	protected void createPartitionTable(String partitionName, long periodStart, long periodEnd) {
+		db.preparedExecute( HSRRecordStats.createSQL_CreateTableStats(partitionName, tablenameTests) );
+	}
+	
+	/****************************************************************************
+	 * Creates the partition for the period if it does not exist yet.
+	 * 
+	 * @param periodStart start of the period
+	 * @return name of the partition
+	 ****************************************************************************/
+	private synchronized String ensurePartition(long periodStart) {
+		
+		String partitionName = partitions.get(periodStart);
+		if(partitionName != null) { return partitionName; }
+		
+		partitionName = tablenameStats + "_p" + PARTITION_SUFFIX_FORMAT.format(Instant.ofEpochMilli(periodStart));
 		
-		for(HSRRecordStats record : records ) {
-			record.insertIntoDatabase(db, testID, tablenameStatsSummary);
+		logger.info("DB: Create partition "+partitionName);
+		createPartitionTable(partitionName, periodStart, partitionPeriod.periodEnd(periodStart));
+		partitions.put(periodStart, partitionName);
+		
+		if(isTablePerPeriod()) {
+			createIndexes(partitionName);
+			
+			// include partitions created by other instances
+			refreshPartitions();
+			createPartitionView();
 		}
-
+		
+		return partitionName;
+	}
+	
+	/****************************************************************************
+	 * Creates or replaces the view that unites all partitions, the view
+	 * has the name of the statistics table.
+	 ****************************************************************************/
+	private synchronized void createPartitionView() {
+		
+		String columnNames = HSRRecordStats.getSQLTableColumnNames();
+		columnNames = columnNames.substring(1, columnNames.length() - 1); // remove braces
+		
+		StringBuilder sql = new StringBuilder("CREATE OR REPLACE VIEW " + tablenameStats + " AS ");
+		
+		String unionAll = "";
+		for(String partitionName : partitions.values()) {
+			sql.append(unionAll)
+			   .append("SELECT ").append(columnNames)
+			   .append(" FROM ").append(partitionName);
+			
+			unionAll = " UNION ALL ";
+		}
+		
+		db.preparedExecute(sql.toString());
+	}
+	
+	/****************************************************************************
+	 * Returns the names of the physical tables containing the statistics.
+	 ****************************************************************************/
+	private synchronized ArrayList<String> getStatsTableNames() {
+		
+		if( ! isTablePerPeriod() ) {
+			ArrayList<String> tableNames = new ArrayList<>();
+			tableNames.add(tablenameStats);
+			return tableNames;
+		}
+		
+		return new ArrayList<>(partitions.values());
+	}
+	
+	/****************************************************************************
+	 * Returns the physical tables containing the statistics in the time range,
+	 * together with the part of the range they cover.
+	 ****************************************************************************/
+	private synchronized ArrayList<StatsTable> getStatsTables(long startTime, long endTime) {
+		
+		ArrayList<StatsTable> tables = new ArrayList<>();
+		
+		if( ! isTablePerPeriod() ) {
+			tables.add(new StatsTable(tablenameStats, startTime, endTime));
+			return tables;
+		}
+		
+		// include partitions created by other instances
+		refreshPartitions();
+		
+		for(Entry<Long, String> entry : partitions.entrySet()) {
+			long periodStart = entry.getKey();
+			long periodEnd = partitionPeriod.periodEnd(periodStart);
+			
+			if(periodEnd <= startTime || periodStart >= endTime) { continue; }
+			
+			tables.add(new StatsTable(entry.getValue(), Math.max(startTime, periodStart), Math.min(endTime, periodEnd)));
+		}
+		
+		return tables;
+	}
+	
+	/****************************************************************************
+	 * Writes the records to the statistics table. If partitioning is enabled,
+	 * the partitions for the records are created if needed.
+	 ****************************************************************************/
+	public boolean reportRecords(int testID, ArrayList<HSRRecordStats> records) {
+		
+		if(partitionPeriod == HSRPartitionPeriod.NONE) {
+			return insertRecords(testID, tablenameStats, tablenameStats, records);
+		}
+		
+		//---------------------------
+		// Group by Period
+		TreeMap<Long, ArrayList<HSRRecordStats>> recordsByPeriod = new TreeMap<>();
+		for(HSRRecordStats record : records) {
+			long periodStart = partitionPeriod.periodStart(record.time());
+			recordsByPeriod.computeIfAbsent(periodStart, k -> new ArrayList<>()).add(record);
+		}
+		
+		//---------------------------
+		// Write Partitions
+		boolean success = true;
+		for(Entry<Long, ArrayList<HSRRecordStats>> entry : recordsByPeriod.entrySet()) {
+			
+			String partitionName = ensurePartition(entry.getKey());
+			String tableName = (isNativePartitioning()) ? tablenameStats : partitionName;
+			
+			success &= insertRecords(testID, tableName, tablenameStats, entry.getValue());
+		}
+		
+		return success;
+	}
+	
+	/****************************************************************************
+	 * 
+	 ****************************************************************************/
+	public boolean reportRecordsSummary(int testID, ArrayList<HSRRecordStats> records) {
+		return insertRecords(testID, tablenameStatsSummary, tablenameStatsSummary, records);
+	}
+	
+	/****************************************************************************
+	 * Writes the records to the table and reports the throughput as 
+	 * self-monitoring statistics.
+	 * 
+	 * @param monitoringName the table name used for self-monitoring, stays 
+	 * the same for all partitions of a table
+	 * @return true if successful or nothing to write, false in case of error
+	 ****************************************************************************/
+	private boolean insertRecords(int testID, String tableName, String monitoringName, ArrayList<HSRRecordStats> records) {
+		
+		if(db == null || tableName == null) { return false; }
+		if(records.isEmpty()) { return true; }
+		
+		long startNanos = System.nanoTime();
+		int rows = writeRecords(testID, tableName, monitoringName, records);
+		long durationNanos = System.nanoTime() - startNanos;
+		
+		if(rows < 0) {
+			logger.error("Error while inserting "+records.size()+" records into table "+tableName+".");
+			return false;
+		}
+		
+		double rowsPerSecond = (durationNanos == 0) ? 0 : rows / (durationNanos / 1_000_000_000d);
+		HSRStatsEngine.addSelfMonitoringRecord("Database Insert Rows/s: " + monitoringName, rowsPerSecond);
+		
+		return true;
+	}
+	
+	/****************************************************************************
+	 * Writes the records into the table. Uses batched statements over a single
+	 * connection, override this method to use a faster bulk load mechanism of a
+	 * specific database.
+	 * 
+	 * @param testID the id of the test
+	 * @param tableName the name of the table
+	 * @param monitoringName the table name used for self-monitoring, stays 
+	 * the same for all partitions of a table
+	 * @param records the records to write
+	 * @return number of rows written, -1 in case of error
+	 ****************************************************************************/
+	protected int writeRecords(int testID, String tableName, String monitoringName, ArrayList<HSRRecordStats> records) {
+		
+		//---------------------------
+		// Insert, values are bound
+		// directly from the records
+		int batchSize = HSRConfig.databaseBatchSize();
+		
+		long startNanos = System.nanoTime();
+		int rows = db.preparedExecuteBatch(
+							  HSRRecordStats.createSQL_InsertInto(tableName)
+							, records
+							, batchSize
+							, (prepared, record) -> record.bindInsertValues(prepared, testID)
+						);
+		long durationNanos = System.nanoTime() - startNanos;
+		
+		if(rows < 0) { return rows; }
+		
+		//---------------------------
+		// Statistics
+		double durationMillis = durationNanos / 1_000_000d;
+		int batches = (records.size() + batchSize - 1) / batchSize;
+		
+		logger.debug("Inserted "+rows+" rows into "+tableName+" in "+batches+" batches, duration: "+durationMillis+" ms");
+		HSRStatsEngine.addSelfMonitoringRecord("Database Batch Duration Avg [ms]: " + monitoringName, durationMillis / batches);
+		
+		return rows;
 	}
 	
 	/****************************************************************************
@@ -203,9 +652,12 @@ public class HSRDBInterface {
 		
 		ArrayList<HSRTestSettings> testSettingsList = HSRConfig.getTestSettings();
 		
-		for(HSRTestSettings usecase : testSettingsList ) {
-			usecase.insertIntoDatabase(db, testid, tablenameTestsettings);
-		}
+		db.preparedExecuteBatch(
+				  HSRTestSettings.createSQL_InsertInto(tablenameTestsettings)
+				, testSettingsList
+				, HSRConfig.databaseBatchSize()
+				, (prepared, usecase) -> usecase.bindInsertValues(prepared, testid)
+			);
 	}
 	
 	/****************************************************************************
@@ -249,132 +701,113 @@ public class HSRDBInterface {
 	}
 	
 	/***************************************************************
-	 * Get the timestamp of the oldest record that has a ganularity lower
-	 * than the one specified by the parameter.
-	 * @param granularity
-	 * @return timestamp
-	 ****************************************************************/
-	private Long getOldestAgedRecord(int granularity, long ageOutTime  ) {
-
-		String sql = 
-				  " SELECT time FROM " + tablenameStats
-				+ " WHERE granularity < ?"
-				+ " AND time <= ?"
-				+ " ORDER BY time"
-				+ " LIMIT 1";
-		
-		ResultSet result = db.preparedExecuteQuery(sql, granularity, ageOutTime);
-		
-		return new HSRResultSetConverter(db, result).getFirstAsLong();
-		
-	}
-	
-	/***************************************************************
-	 * Get the timestamp of the oldest record that has a ganularity lower
-	 * than the one specified by the parameter.
-	 * @param granularity
-	 * @return timestamp
-	 ****************************************************************/
-	private Long getYoungestAgedRecord(int granularity, long ageOutTime  ) {
-
-		String sql = 
-				  " SELECT time FROM " + tablenameStats
-				+ " WHERE granularity < ?"
-				+ " AND time <= ?"
-				+ " ORDER BY time DESC"
-				+ " LIMIT 1";
-		
-		ResultSet result = db.preparedExecuteQuery(sql, granularity, ageOutTime);
-		
-		return new HSRResultSetConverter(db, result).getFirstAsLong();
-		
-	}
-
-	
-	/***************************************************************
-	 * Aggregates the statistics in the given timeframe.
+	 * Aggregates the statistics of a test in the given timeframe into
+	 * one row per metric and time bucket of the new granularity. 
+	 * Runs in a single transaction.
 	 * 
-	 * @return true if successful, false otherwise
+	 * @return true if successful or if there was nothing to aggregate,
+	 * false in case of errors
 	 ****************************************************************/
-	private boolean aggregateStatistics(Long startTime, Long endTime, int testid, int newGranularity) {
-					
-		db.transactionStart();
-		boolean success = true;
-		int cacheCounter = 0;
+	private boolean aggregateStatistics(long startTime, long endTime, int testid, int newGranularity) {
 		
-		//--------------------------------------------
-		// Check if there is anything to aggregate
-		String sql = 
-				  " SELECT COUNT(*) FROM " + tablenameStats
-				  + " WHERE testid = ?"
-				  + " AND time >= ?"
-				  + " AND time < ?" 
-				  + " AND granularity < ?;"
-				  ;
-		
-		ResultSet result = db.preparedExecuteQuery(sql, testid, startTime, endTime, newGranularity);
+		// IF EXISTS: the create might have been rolled back together with the transaction
+		String sqlDropTempTable = 
+				"DROP TABLE IF EXISTS " +tablenameTempAggregation+";"
+				;
 		
-		int count =  new HSRResultSetConverter(db, result).getFirstAsCount();
-
-		if(count == 0) {
-			db.transactionRollback();
-			return true;
-		}
+		db.transactionStart();
 		
 		//--------------------------------------------
 		// Create Temp Table
 		String createTempTable = 
 				HSRRecordStats.createSQL_CreateTableStats(tablenameTempAggregation, tablenameTests);
 
-		db.preparedExecute(createTempTable);
+		if( db.preparedExecuteUpdate(createTempTable) < 0 ) {
+			db.transactionRollback();
+			db.preparedExecute(sqlDropTempTable);
+			return false;
+		}
 		
 		//--------------------------------------------
-		// Aggregate Statistics in Temp Table
-		success &= db.preparedExecute(
+		// Aggregate Statistics in Temp Table,
+		// grouped by time bucket
+		int aggregatedCount = db.preparedExecuteUpdate(
 						  sqlAggregateStats
 						, newGranularity
 						, testid
 						, startTime
 						, endTime
 						, newGranularity
+						, newGranularity * 1000L
 					);
 		
+		if( aggregatedCount <= 0 ) {
+			// error or nothing to aggregate
+			db.transactionRollback();
+			db.preparedExecute(sqlDropTempTable);
+			return (aggregatedCount == 0);
+		}
 		
 		//--------------------------------------------
 		// Delete Old Stats in stats table
-		String sqlDeleteOldStats = 
-						"DELETE FROM " + tablenameStats
-						+ " WHERE time >= ?"
-						+ " AND time < ?"
-						+ " AND granularity < ?;"
-						;
-		
-		success &= db.preparedExecute(
-						  sqlDeleteOldStats		
-						, startTime
-						, endTime
-						, newGranularity
-					);
+		// with partitioning, only the partitions of the timeframe are accessed
+		ArrayList<StatsTable> statsTables = getStatsTables(startTime, endTime);
+		
+		boolean success = true;
+		
+		// at least one table must contain the stats
+		int deletedCount = 0;
+		for(StatsTable table : statsTables) {
+			String sqlDeleteOldStats = 
+							"DELETE FROM " + table.name()
+							+ " WHERE testid = ?"
+							+ " AND time >= ?"
+							+ " AND time < ?"
+							+ " AND granularity < ?;"
+							;
+			
+			int count = db.preparedExecuteUpdate(
+							  sqlDeleteOldStats
+							, testid
+							, table.startTime()
+							, table.endTime()
+							, newGranularity
+						);
+			
+			if(count < 0) { success = false; }
+			else		  { deletedCount += count; }
+		}
 
+		success &= (deletedCount > 0);
 
 		//--------------------------------------------
 		// Move Temp Stats to EAVTable
-		String sqlMoveStats = 
-				"INSERT INTO " + tablenameStats + " " + HSRRecordStats.getSQLTableColumnNames()
-				+" SELECT * FROM "+tablenameTempAggregation+";"
-				;
-
-		success &= db.preparedExecute(
-				  sqlMoveStats
-			);
+		// all aggregated rows must be moved
+		int movedCount = 0;
+		for(StatsTable table : statsTables) {
+			String sqlMoveStats = 
+					"INSERT INTO " + table.name() + " " + HSRRecordStats.getSQLTableColumnNames()
+					+" SELECT * FROM "+tablenameTempAggregation
+					+" WHERE testid = ?"
+					+" AND time >= ?"
+					+" AND time < ?;"
+					;
+	
+			int count = db.preparedExecuteUpdate(
+					  sqlMoveStats
+					, testid
+					, table.startTime()
+					, table.endTime()
+				);
+			
+			if(count < 0) { success = false; }
+			else		  { movedCount += count; }
+		}
+		
+		success &= (movedCount == aggregatedCount);
 
 		//--------------------------------------------
 		// Drop Temp Table
-		String sqlDropTempTable = 
-				"DROP TABLE " +tablenameTempAggregation+";"
-				;
-
-		// success &= db.preparedExecute(sqlDropTempTable); // results in count 0
 		db.preparedExecute(sqlDropTempTable);
 
 		db.transactionEnd(success);
@@ -383,99 +816,245 @@ public class HSRDBInterface {
 
 	}
 	
+	/****************************************************************************
+	 * Will age out the statistics stored in the database to reduce
+	 * database size. Uses the max duration and pause defined by
+	 * HSRConfig.getAgeOutConfig().
+	 * 
+	 * @return true if all statistics have been aged out, false if the
+	 * age out was stopped and will continue with the next run
+	 ****************************************************************************/
+	public boolean ageOutStatistics() {
+		
+		HSRAgeOutConfig config = HSRConfig.getAgeOutConfig();
+		
+		return ageOutStatistics(config.maxDuration().toMillis(), config.pause().toMillis());
+	}
+	
 	/****************************************************************************
 	 * Will age out the statistics stored in the database to reduce
 	 * database size.
+	 * For every granularity, the statistics older than the age out time are
+	 * aggregated per test with a single GROUP BY over time buckets of the 
+	 * granularity. Large time ranges are split into chunks of 
+	 * AGE_OUT_BUCKETS_PER_TRANSACTION buckets to keep transactions small.
+	 * Only complete buckets are aggregated.
+	 * 
+	 * After every chunk, the processed time is saved in the checkpoint table
+	 * and the age out pauses to not slow down the reporting of statistics.
+	 * When stopped with stopAgeOut() or when the max duration is exceeded, 
+	 * the next run continues at the checkpoint. If a chunk fails, the remaining
+	 * chunks of the test are skipped, so the checkpoint never passes a chunk
+	 * that has not been aggregated.
+	 * 
+	 * @param maxDurationMillis maximum duration of the run, 0 or less for no limit
+	 * @param pauseMillis pause between two transactions
+	 * 
+	 * @return true if all statistics have been aged out, false if the
+	 * age out was stopped and will continue with the next run
 	 ****************************************************************************/
-	public void ageOutStatistics() {
+	public boolean ageOutStatistics(long maxDurationMillis, long pauseMillis) {
+		
+		long deadline = (maxDurationMillis > 0) 
+							? System.currentTimeMillis() + maxDurationMillis 
+							: Long.MAX_VALUE;
 		
 		//----------------------------
 		// Iterate all granularities
 		for(int granularitySec : XRTime.AGE_OUT_GRANULARITIES) {
 			
+			if(isAgeOutStopped) { return false; }
+			
 			//--------------------------
 			// Get Age Out Time
+			long bucketMillis = granularitySec * 1000L;
 			long ageOutTime = this.getAgeOutTime(granularitySec);
+			long endTime = ageOutTime - Math.floorMod(ageOutTime, bucketMillis);
 			
 			//--------------------------
-			// Get timespan 
-			Long oldest = getOldestAgedRecord(granularitySec, ageOutTime);
-			Long youngest = getYoungestAgedRecord(granularitySec, ageOutTime);
-			if(oldest == null || youngest == null ) {
+			// Get Tests and Timespan
+			String sqlGetTests = 
+					  """ 
+						SELECT 
+							  testid AS "testid"
+							, MIN("time") AS "oldest" 
+						FROM %s
+						WHERE granularity < ?
+						AND time < ?
+						GROUP BY testid;
+					  """.formatted(tablenameStats)
+					  ;
+			
+			ResultSet testsResult = db.preparedExecuteQuery(sqlGetTests, granularitySec, endTime);
+			JsonArray testsArray = new HSRResultSetConverter(db, testsResult).toJSONArray();
+			
+			if(testsArray.isEmpty()) {
 				//nothing to aggregate for this granularity
 				continue;
 			}
 			
 			logger.info("DB: Age Out statistics with granularity smaller than: "+granularitySec+" seconds");
-			logger.info(">>> Age Out earliest time: "+XRTime.formatMillisAsTimestamp(oldest));
-			logger.info(">>> Age Out latest time: "+XRTime.formatMillisAsTimestamp(youngest));
-
-
-			//--------------------------
-			// Get TestIDs
-			String sqlGetTestIDs = 
-					  " SELECT DISTINCT testid FROM " + tablenameStats
-					  + " WHERE time >= ?"
-					  + " AND time < ?" 
-					  + " AND granularity < ?;"
-					  ;
-			
-			ResultSet testIDResult = db.preparedExecuteQuery(sqlGetTestIDs, oldest, youngest, granularitySec);
+			logger.info(">>> Age Out latest time: "+XRTime.formatMillisAsTimestamp(endTime));
 			
-			ArrayList<Integer> testIDs = new HSRResultSetConverter(db, testIDResult).toIntegerArrayList("testid");
+			HashMap<Integer, Long> checkpoints = getAgeOutCheckpoints(granularitySec);
 			
 			//--------------------------------------------
 			// Iterate Tests and aggregate them
-			
-			for(int testid : testIDs) {
-				
-				String sqlGetTestTimeframe = 
-						  """ 
-							SELECT 
-								  MIN("time") AS "oldest" 
-						   		, MAX("time") AS "youngest"
-						  	FROM %s
-						    WHERE testid = ?;
-						  """.formatted(tablenameStats)
-						  ;
+			for(JsonElement element : testsArray) {
 				
-				ResultSet timeframeResult = db.preparedExecuteQuery(sqlGetTestTimeframe, testid);
-				JsonArray timeframeArray = new HSRResultSetConverter(db, timeframeResult).toJSONArray();
-				JsonObject timeframeObject = timeframeArray.get(0).getAsJsonObject();
-				long testOldest = timeframeObject.get("oldest").getAsLong();
-				long testYoungest = timeframeObject.get("youngest").getAsLong();
+				JsonObject testObject = element.getAsJsonObject();
+				int testid = testObject.get("testid").getAsInt();
+				long oldest = testObject.get("oldest").getAsLong();
+				long startTime = oldest - Math.floorMod(oldest, bucketMillis);
 				
 				//--------------------------
-				// Get Start Time
-				// Cannot take oldest as start time, as it might offset deep into 
-				// the timerange that still should be kept
-				//Long startTime = XRTimeUnit.s.offset(testOldest, +1);
-				
-				//while(startTime > testOldest) {
-					long startTime = XRTimeUnit.s.offset(testOldest, -granularitySec);
-				//}
+				// Continue at Checkpoint
+				Long checkpoint = checkpoints.get(testid);
+				if(checkpoint != null && checkpoint > startTime) {
+					startTime = checkpoint;
+				}
 				
 				//--------------------------
-				// Iterate with offsets
-				Long endTime =  XRTimeUnit.s.offset(startTime, granularitySec);
-				
-				
+				// Aggregate in Chunks
+				long chunkMillis = bucketMillis * AGE_OUT_BUCKETS_PER_TRANSACTION;
 				boolean success = true;
-				// do-while to execute at least once, else would not work if (endTime - startTime) < granularity
-				do {
-	
-					success &= aggregateStatistics(startTime, endTime, testid, granularitySec);
-					startTime =  XRTimeUnit.s.offset(startTime, granularitySec);
-					endTime = XRTimeUnit.s.offset(endTime, granularitySec);
+				
+				for(long chunkStart = startTime; chunkStart < endTime; chunkStart += chunkMillis) {
+					
+					if(isAgeOutStopped || System.currentTimeMillis() > deadline) { 
+						logger.info(">>> AgeOut stopped, will be continued with next run.");
+						return false; 
+					}
+					
+					long chunkEnd = Math.min(chunkStart + chunkMillis, endTime);
+					boolean chunkSuccess = aggregateStatistics(chunkStart, chunkEnd, testid, granularitySec);
+					
+					//--------------------------
+					// Checkpoint
+					// only advance contiguously, stop at the first failed
+					// chunk, the next run will retry from there
+					if( ! chunkSuccess ) {
+						success = false;
+						logger.warn(">>> AgeOut of chunk failed for Test: "+testid+", will be retried with next run. Chunk start: "+XRTime.formatMillisAsTimestamp(chunkStart));
+						break;
+					}
 					
+					saveAgeOutCheckpoint(granularitySec, testid, chunkEnd);
 					
-				} while(endTime < (testYoungest + (granularitySec * 1000) ) );
+					//--------------------------
+					// Throttle
+					if(pauseMillis > 0) {
+						try {
+							Thread.sleep(pauseMillis);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return false;
+						}
+					}
+				}
 				
 				logger.info(">>> AgeOut Statistics for Test: "+testid+", Success: "+success+", Timeframe "+XRTime.formatMillisAsTimestamp(startTime) + " to "+ XRTime.formatMillisAsTimestamp(endTime));
-				
 			}
 		}
 		
+		return true;
+	}
+	
+	/****************************************************************************
+	 * Returns the age out checkpoints for the granularity.
+	 * 
+	 * @return map with testid as key and time up to which the statistics 
+	 * have been aged out as value
+	 ****************************************************************************/
+	private HashMap<Integer, Long> getAgeOutCheckpoints(int granularity) {
+		
+		String sql = 
+				  "SELECT testid AS \"testid\", time AS \"time\" FROM " + tablenameAgeOutCheckpoint
+				+ " WHERE granularity = ?";
+		
+		ResultSet result = db.preparedExecuteQuery(sql, granularity);
+		JsonArray array = new HSRResultSetConverter(db, result).toJSONArray();
+		
+		HashMap<Integer, Long> checkpoints = new HashMap<>();
+		for(JsonElement element : array) {
+			JsonObject object = element.getAsJsonObject();
+			checkpoints.put(object.get("testid").getAsInt(), object.get("time").getAsLong());
+		}
+		
+		return checkpoints;
+	}
+	
+	/****************************************************************************
+	 * Saves the time up to which the statistics of the test have been aged
+	 * out to the given granularity.
+	 ****************************************************************************/
+	private void saveAgeOutCheckpoint(int granularity, int testid, long time) {
+		
+		String sqlUpdate = 
+				  "UPDATE " + tablenameAgeOutCheckpoint
+				+ " SET time = ?, updated = ?"
+				+ " WHERE granularity = ?"
+				+ " AND testid = ?";
+		
+		boolean updated = db.preparedExecute(sqlUpdate, time, System.currentTimeMillis(), granularity, testid);
+		
+		if( !updated ) {
+			String sqlInsert = 
+					  "INSERT INTO " + tablenameAgeOutCheckpoint
+					+ " (granularity, testid, time, updated) VALUES (?,?,?,?)";
+			
+			db.preparedExecute(sqlInsert, granularity, testid, time, System.currentTimeMillis());
+		}
+	}
+	
+	/****************************************************************************
+	 * Starts ageOutStatistics() in a separate thread, so that reporting can
+	 * start without waiting for the age out to finish.
+	 * Does nothing if the age out is already running.
+	 ****************************************************************************/
+	public synchronized void ageOutStatisticsInBackground() {
+		
+		if(ageOutThread != null && ageOutThread.isAlive()) { return; }
+		
+		isAgeOutStopped = false;
+		
+		ageOutThread = new Thread(() -> {
+			try {
+				long startMillis = System.currentTimeMillis();
+				boolean isComplete = ageOutStatistics();
+				logger.info("DB: Age Out finished, complete: "+isComplete+", duration: "+(System.currentTimeMillis() - startMillis)+" ms");
+			}catch(Throwable e) {
+				logger.error("Error during age out of statistics: "+e.getMessage(), e);
+			}
+		});
+		
+		ageOutThread.setName("hsr-ageout-" + tablenamePrefix);
+		ageOutThread.setDaemon(true);
+		ageOutThread.start();
+	}
+	
+	/****************************************************************************
+	 * Stops the age out after the current chunk has been aggregated and waits 
+	 * for the age out thread to finish.
+	 * 
+	 * @param timeoutMillis maximum time to wait
+	 ****************************************************************************/
+	public void stopAgeOut(long timeoutMillis) {
+		
+		isAgeOutStopped = true;
+		
+		Thread thread = ageOutThread;
+		if(thread == null) { return; }
+		
+		try {
+			thread.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		if(thread.isAlive()) {
+			logger.warn("Timeout while waiting for age out to stop.");
+		}
 	}
 	
 	
@@ -0,0 +1,242 @@
+package com.xresch.hsr.database;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRStatsEngine;
+
+/**************************************************************************************************************
+ * Database interface for PostgreSQL that streams the statistics into the tables with COPY ... FROM STDIN
+ * instead of INSERT statements. The rows are written in CSV format, using the same column order as
+ * HSRRecordStats.getSQLTableColumnNames().
+ *
+ * If the connection is not a PostgreSQL connection (e.g. H2 in Postgres mode) or COPY fails, the batched
+ * INSERT statements of HSRDBInterface are used instead.
+ *
+ * If partitioning is enabled with HSRConfig.databasePartitioning(), the statistics table is created with
+ * native range partitioning by time. Partitions are created before statistics of a new period are written,
+ * rows outside of any partition end up in the default partition.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRDBInterfacePostgres extends HSRDBInterface {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRDBInterfacePostgres.class);
+
+	// amount of characters buffered before they are sent to the database
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	private boolean useCopy;
+
+	/************************************************************************
+	 *
+	 * @param db the database interface
+	 * @param tablenamePrefix the prefix for the table names
+	 * @param useCopy true to use COPY, false to use batched INSERT statements
+	 ************************************************************************/
+	public HSRDBInterfacePostgres(DBInterface db, String tablenamePrefix, boolean useCopy) {
+		super(db, tablenamePrefix);
+		this.useCopy = useCopy;
+	}
+
+	/****************************************************************************
+	 * Creates the statistics table partitioned by range of time. Existing
+	 * tables that are not partitioned are kept as they are.
+	 ****************************************************************************/
+	@Override
+	protected void initializeStatsTable() {
+		
+		if(partitionPeriod == HSRPartitionPeriod.NONE) {
+			super.initializeStatsTable();
+			return;
+		}
+		
+		db.preparedExecute( HSRRecordStats.createSQL_CreateTableStats(tablenameStats, tablenameTests) + " PARTITION BY RANGE (time)" );
+		
+		//---------------------------
+		// Check Partitioning
+		// table might have been created before partitioning was enabled
+		ResultSet result = db.preparedExecuteQuery("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)", tablenameStats);
+		Integer count = (result == null) ? null : new HSRResultSetConverter(db, result).getFirstAsCount();
+		
+		if(count == null || count == 0) {
+			logger.warn("Table "+tablenameStats+" is not partitioned, partitioning is disabled for this table.");
+			partitionPeriod = HSRPartitionPeriod.NONE;
+			super.initializeStatsTable();
+			return;
+		}
+		
+		db.preparedExecute("CREATE TABLE IF NOT EXISTS "+tablenameStats+"_default PARTITION OF "+tablenameStats+" DEFAULT");
+	}
+	
+	/****************************************************************************
+	 * 
+	 ****************************************************************************/
+	@Override
+	protected boolean isNativePartitioning() {
+		return true;
+	}
+	
+	/****************************************************************************
+	 * Creates the partition as part of the statistics table.
+	 ****************************************************************************/
+	@Override
+	protected void createPartitionTable(String partitionName, long periodStart, long periodEnd) {
+		
+		db.preparedExecute(
+				  "CREATE TABLE IF NOT EXISTS " + partitionName
+				+ " PARTITION OF " + tablenameStats
+				+ " FOR VALUES FROM ("+periodStart+") TO ("+periodEnd+")"
+			);
+	}
+	
+	/****************************************************************************
+	 * Writes the records with COPY, falls back to batched inserts if COPY is
+	 * not supported by the connection.
+	 ****************************************************************************/
+	@Override
+	protected int writeRecords(int testID, String tableName, String monitoringName, ArrayList<HSRRecordStats> records) {
+
+		if( !useCopy ) {
+			return super.writeRecords(testID, tableName, monitoringName, records);
+		}
+
+		Connection conn = null;
+		CopyIn copyIn = null;
+
+		try {
+			conn = db.getConnection();
+
+			//---------------------------
+			// Get Copy API
+			if( ! conn.isWrapperFor(PGConnection.class) ) {
+				logger.info("Connection does not support COPY, using batched inserts for table "+tableName+".");
+				useCopy = false;
+				db.close(conn);
+				conn = null;
+				return super.writeRecords(testID, tableName, monitoringName, records);
+			}
+
+			CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+
+			//---------------------------
+			// Stream Rows
+			long startNanos = System.nanoTime();
+
+			copyIn = copyManager.copyIn(createSQL_CopyFrom(tableName));
+
+			StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 4096);
+			for(HSRRecordStats record : records ) {
+
+				appendCSVRow(buffer, record.getInsertValues(testID));
+
+				if(buffer.length() >= COPY_BUFFER_SIZE) {
+					writeToCopy(copyIn, buffer);
+				}
+			}
+
+			writeToCopy(copyIn, buffer);
+			long rows = copyIn.endCopy();
+			copyIn = null;
+
+			//---------------------------
+			// Statistics
+			double durationMillis = (System.nanoTime() - startNanos) / 1_000_000d;
+
+			logger.debug("Copied "+rows+" rows into "+tableName+", duration: "+durationMillis+" ms");
+			HSRStatsEngine.addSelfMonitoringRecord("Database Copy Duration [ms]: " + monitoringName, durationMillis);
+
+			return (int)rows;
+
+		} catch (SQLException e) {
+
+			logger.error("Error while copying records into table "+tableName+", using batched inserts: "+e.getMessage(), e);
+
+			if(copyIn != null) {
+				try {
+					copyIn.cancelCopy();
+				} catch (SQLException e2) {
+					logger.error("Error while cancelling copy.", e2);
+				}
+			}
+
+			if(conn != null) {
+				db.close(conn);
+				conn = null;
+			}
+
+			return super.writeRecords(testID, tableName, monitoringName, records);
+
+		} finally {
+			if(conn != null) {
+				db.close(conn);
+			}
+		}
+	}
+
+	/****************************************************************************
+	 * Returns the COPY statement for the table.
+	 ****************************************************************************/
+	public static String createSQL_CopyFrom(String tableName) {
+		return "COPY " + tableName + " " + HSRRecordStats.getSQLTableColumnNames() + " FROM STDIN WITH (FORMAT csv)";
+	}
+
+	/****************************************************************************
+	 * Sends the buffered characters to the database and clears the buffer.
+	 ****************************************************************************/
+	private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+
+		if(buffer.length() == 0) { return; }
+
+		byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+		copyIn.writeToCopy(bytes, 0, bytes.length);
+		buffer.setLength(0);
+	}
+
+	/****************************************************************************
+	 * Appends the values as a CSV row as expected by COPY in CSV format.
+	 * Null values are written as empty unquoted fields, strings are always
+	 * quoted to keep empty strings apart from null.
+	 ****************************************************************************/
+	public static void appendCSVRow(StringBuilder builder, Object[] values) {
+
+		for(int i = 0; i < values.length; i++) {
+
+			if(i > 0) { builder.append(','); }
+
+			Object value = values[i];
+
+			if(value == null) {
+				continue;
+			}else if(value instanceof BigDecimal decimal) {
+				builder.append(decimal.toPlainString());
+			}else if(value instanceof Number || value instanceof Boolean) {
+				builder.append(value);
+			}else {
+				String string = value.toString();
+				builder.append('"');
+				for(int c = 0; c < string.length(); c++) {
+					char character = string.charAt(c);
+					if(character == '"') { builder.append('"'); }
+					builder.append(character);
+				}
+				builder.append('"');
+			}
+		}
+
+		builder.append('\n');
+	}
+
+}
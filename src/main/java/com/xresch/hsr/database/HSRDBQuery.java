@@ -0,0 +1,286 @@
+package com.xresch.hsr.database;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonObject;
+import com.xresch.hsr.database.HSRResultSetConverter.ResultSetAsJsonReader;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+import com.xresch.hsr.stats.HSRRecordStats.RecordField;
+
+/**************************************************************************************************************
+ * Reads statistics that have been written by HSRDBInterface back from the database, for example to compare
+ * the current test against previous runs at the end of a test.
+ *
+ * Only the columns of the requested metrics are selected, and the rows are fetched from the database in
+ * chunks of the fetch size. If a granularity is given, the statistics are aggregated into time buckets of
+ * that size by the database, using the same aggregations as the age out.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRDBQuery {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRDBQuery.class);
+
+	private static final int DEFAULT_FETCH_SIZE = 1000;
+
+	private final HSRDBInterface hsrDB;
+	private final DBInterface db;
+	private int fetchSize = DEFAULT_FETCH_SIZE;
+
+	/************************************************************************
+	 *
+	 * @param hsrDB the database interface the statistics have been written with
+	 ************************************************************************/
+	public HSRDBQuery(HSRDBInterface hsrDB) {
+		this.hsrDB = hsrDB;
+		this.db = hsrDB.db;
+	}
+
+	/************************************************************************
+	 * Sets the number of rows fetched from the database at once.
+	 * Default is 1000.
+	 ************************************************************************/
+	public HSRDBQuery fetchSize(int fetchSize) {
+		this.fetchSize = Math.max(1, fetchSize);
+		return this;
+	}
+
+	/************************************************************************
+	 * Returns the ids of the latest tests with the given name, latest first.
+	 *
+	 * @param testName the name of the test
+	 * @param beforeTestID only return tests with a smaller id, e.g. the id of
+	 * the current test to get the previous runs, use null for all tests
+	 * @param limit maximum number of ids
+	 ************************************************************************/
+	public ArrayList<Integer> getTestIDs(String testName, Integer beforeTestID, int limit) {
+
+		String sql = "SELECT id AS \"id\" FROM " + hsrDB.tablenameTests
+					+ " WHERE name = ?"
+					+ " AND id < ?"
+					+ " ORDER BY id DESC"
+					+ " LIMIT ?";
+
+		int before = (beforeTestID != null) ? beforeTestID : Integer.MAX_VALUE;
+
+		ResultSet result = db.preparedExecuteQuery(sql, testName, before, limit);
+
+		return new HSRResultSetConverter(db, result).toIntegerArrayList("id");
+	}
+
+	/************************************************************************
+	 * Returns the statistics of a test.
+	 *
+	 * @param testid the id of the test
+	 * @param granularitySec size of the time buckets in seconds, 0 to get the
+	 * statistics as stored
+	 * @param metrics the metrics to load, all if none are given
+	 * @return list of statistics, null in case of error
+	 ************************************************************************/
+	public ArrayList<HSRRecordStats> getStats(int testid, int granularitySec, HSRMetric... metrics) {
+
+		ArrayList<HSRRecordStats> result = new ArrayList<>();
+		long count = forEachStats(testid, 0, Long.MAX_VALUE, granularitySec, metrics, result::add);
+
+		return (count < 0) ? null : result;
+	}
+
+	/************************************************************************
+	 * Returns the statistics of all tests in the timeframe.
+	 *
+	 * @param startTime start of the timeframe in epoch milliseconds, inclusive
+	 * @param endTime end of the timeframe in epoch milliseconds, exclusive
+	 * @param granularitySec size of the time buckets in seconds, 0 to get the
+	 * statistics as stored
+	 * @param metrics the metrics to load, all if none are given
+	 * @return list of statistics, null in case of error
+	 ************************************************************************/
+	public ArrayList<HSRRecordStats> getStats(long startTime, long endTime, int granularitySec, HSRMetric... metrics) {
+
+		ArrayList<HSRRecordStats> result = new ArrayList<>();
+		long count = forEachStats(null, startTime, endTime, granularitySec, metrics, result::add);
+
+		return (count < 0) ? null : result;
+	}
+
+	/************************************************************************
+	 * Returns the summary statistics of a test.
+	 *
+	 * @param testid the id of the test
+	 * @param metrics the metrics to load, all if none are given
+	 * @return list of statistics, null in case of error
+	 ************************************************************************/
+	public ArrayList<HSRRecordStats> getSummary(int testid, HSRMetric... metrics) {
+
+		String sql = "SELECT " + createFieldsSelect() + createValuesSelect(metrics)
+					+ " FROM " + hsrDB.tablenameStatsSummary
+					+ " WHERE testid = ?";
+
+		ArrayList<HSRRecordStats> result = new ArrayList<>();
+		long count = read(db.preparedExecuteQueryStreaming(fetchSize, sql, testid), result::add);
+
+		return (count < 0) ? null : result;
+	}
+
+	/************************************************************************
+	 * Passes the statistics one by one to the consumer ordered by time,
+	 * without keeping them in memory.
+	 *
+	 * @param testid the id of the test, null for all tests
+	 * @param startTime start of the timeframe in epoch milliseconds, inclusive
+	 * @param endTime end of the timeframe in epoch milliseconds, exclusive
+	 * @param granularitySec size of the time buckets in seconds, 0 to get the
+	 * statistics as stored
+	 * @param metrics the metrics to load, all if null or empty
+	 * @param consumer receives the statistics
+	 *
+	 * @return number of statistics, -1 in case of error
+	 ************************************************************************/
+	public long forEachStats(Integer testid, long startTime, long endTime, int granularitySec, HSRMetric[] metrics, Consumer<HSRRecordStats> consumer) {
+
+		//---------------------------
+		// Filter
+		ArrayList<Object> params = new ArrayList<>();
+
+		String where = " WHERE \"time\" >= ? AND \"time\" < ?";
+		params.add(startTime);
+		params.add(endTime);
+
+		if(testid != null) {
+			where += " AND testid = ?";
+			params.add(testid);
+		}
+
+		//---------------------------
+		// Create SQL
+		String sql;
+		if(granularitySec <= 0) {
+			sql = "SELECT " + createFieldsSelect() + createValuesSelect(metrics)
+				+ " FROM " + hsrDB.tablenameStats
+				+ where
+				+ " ORDER BY \"time\"";
+		}else {
+			String groupFields = createFieldsSelect()
+									.replace("\"time\", ", "")
+									.replace(", \"granularity\"", "");
+
+			sql = "SELECT MIN(\"time\") AS \"time\", " + groupFields
+				+ ", GREATEST(MAX(\"granularity\"), ?) AS \"granularity\""
+				+ createValuesAggregation(metrics)
+				+ " FROM " + hsrDB.tablenameStats
+				+ where
+				+ " GROUP BY FLOOR(\"time\" / ?), " + groupFields
+				+ " ORDER BY \"time\"";
+
+			params.add(0, granularitySec);
+			params.add(granularitySec * 1000L);
+		}
+
+		//---------------------------
+		// Read
+		ResultSet result = db.preparedExecuteQueryStreaming(fetchSize, sql, params.toArray());
+
+		return read(result, consumer);
+	}
+
+	/************************************************************************
+	 * Converts the rows to statistics and passes them to the consumer.
+	 *
+	 * @return number of statistics, -1 in case of error
+	 ************************************************************************/
+	private long read(ResultSet result, Consumer<HSRRecordStats> consumer) {
+
+		if(result == null) { return -1; }
+
+		ResultSetAsJsonReader reader = new HSRResultSetConverter(db, result).toJSONReader();
+
+		long count = 0;
+		JsonObject object;
+		try {
+			while( (object = reader.next()) != null ) {
+				consumer.accept(new HSRRecordStats(object));
+				count++;
+			}
+		}catch(Exception e) {
+			logger.error("Error while reading statistics: "+e.getMessage(), e);
+			db.close(result);
+			return -1;
+		}
+		
+		//---------------------------
+		// Results might be incomplete
+		if(reader.hasError()) {
+			logger.error("Error while reading statistics, "+count+" statistics have been read before the error.");
+			return -1;
+		}
+
+		return count;
+	}
+
+	/************************************************************************
+	 * Returns the quoted field columns, e.g. "time", "type", "test" ...
+	 ************************************************************************/
+	private static String createFieldsSelect() {
+
+		StringBuilder fields = new StringBuilder();
+		for(RecordField field : RecordField.values()) {
+			if(fields.length() > 0) { fields.append(", "); }
+			fields.append('"').append(field.name()).append('"');
+		}
+
+		return fields.toString();
+	}
+
+	/************************************************************************
+	 * Returns the value columns of the metrics, starting with a comma.
+	 ************************************************************************/
+	private static String createValuesSelect(HSRMetric[] metrics) {
+
+		StringBuilder values = new StringBuilder();
+		for(HSRRecordState state : HSRRecordState.values()) {
+			for(HSRMetric metric : selectedMetrics(metrics)) {
+				if(!metric.isOkNok() && state != HSRRecordState.ok) { continue; }
+
+				values.append(", \"").append(metric.valueName(state)).append('"');
+			}
+		}
+
+		return values.toString();
+	}
+
+	/************************************************************************
+	 * Returns the aggregations of the value columns of the metrics, starting
+	 * with a comma.
+	 ************************************************************************/
+	private static String createValuesAggregation(HSRMetric[] metrics) {
+
+		StringBuilder values = new StringBuilder();
+		for(HSRRecordState state : HSRRecordState.values()) {
+			for(HSRMetric metric : selectedMetrics(metrics)) {
+				if(!metric.isOkNok() && state != HSRRecordState.ok) { continue; }
+
+				values.append(", ")
+					  .append(metric.sqlAggregation(state))
+					  .append(" AS \"").append(metric.valueName(state)).append('"');
+			}
+		}
+
+		return values.toString();
+	}
+
+	/************************************************************************
+	 * Returns the given metrics, or all metrics if none are given.
+	 ************************************************************************/
+	private static HSRMetric[] selectedMetrics(HSRMetric[] metrics) {
+		return (metrics == null || metrics.length == 0) ? HSRMetric.values() : metrics;
+	}
+
+}
@@ -0,0 +1,456 @@
+package com.xresch.hsr.database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRStatsEngine;
+
+/**************************************************************************************************************
+ * Write-behind for database reporters. Records are put into a bounded in-memory queue and written to the
+ * database by a single writer thread, the reporter thread never waits for the database.
+ * When the queue is full or the database cannot be reached, the records are appended to a local spill file
+ * in JSON lines format (one line per batch). If the queue is full, the queued batches are moved to the spill
+ * file before the new batch, as the writer thread does not write any batch before the spill file. The spill file is replayed as soon as the database can be
+ * reached again and on terminate(), before any newer records are written to keep the order of the data.
+ * For the replay, the spill file is renamed to "*.replaying" and streamed line by line, so the reporter can
+ * keep spilling to a new file while the database is written. A spill file that is left over from a previous
+ * run is replayed as well.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRDBWriteBehind {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRDBWriteBehind.class);
+
+	// time to wait before the database is accessed again after an error
+	private static final long RETRY_INTERVAL_MILLIS = 5000;
+	
+	// maximum time the writer thread waits for new batches before checking its state
+	private static final long POLL_INTERVAL_MILLIS = 500;
+
+	private static final String FIELD_TESTID = "testid";
+	private static final String FIELD_SUMMARY = "summary";
+	private static final String FIELD_RECORDS = "records";
+
+	/******************************************************************************
+	 * A batch of records to write to the stats or summary table.
+	 ******************************************************************************/
+	private record Batch(int testID, boolean isSummary, ArrayList<HSRRecordStats> records) {}
+
+	private final HSRDBInterface hsrDB;
+	private final ArrayBlockingQueue<Batch> queue;
+	private final Path spillFile;
+	private final Path replayFile;
+	private final Thread worker;
+
+	// only held to spill or rotate the spill file, never while the database is accessed
+	private final Object spillLock = new Object();
+
+	private volatile boolean isStopped = false;
+
+	private volatile boolean isDatabaseUp = true;
+	private volatile long lastFailureMillis = 0;
+
+	//----------------------
+	// Statistics
+	private final Object statisticsLock = new Object();
+	private long replayedRecords = 0;
+	private long statisticsStartMillis = System.currentTimeMillis();
+
+	/******************************************************************************
+	 * Creates the write-behind and starts the writer thread.
+	 *
+	 * @param hsrDB the database interface to write to
+	 * @param queueSize the maximum number of batches kept in memory, minimum 1
+	 * @param spillFolder the folder where the spill file is created
+	 ******************************************************************************/
+	public HSRDBWriteBehind(HSRDBInterface hsrDB, int queueSize, String spillFolder) {
+
+		this.hsrDB = hsrDB;
+		this.queue = new ArrayBlockingQueue<>( Math.max(1, queueSize) );
+		this.spillFile = Paths.get(spillFolder, "hsr-spill-" + hsrDB.tablenamePrefix + ".jsonl");
+		this.replayFile = Paths.get(spillFolder, "hsr-spill-" + hsrDB.tablenamePrefix + ".jsonl.replaying");
+
+		if(hasSpilledData()) {
+			logger.info("Found spill file of previous run, will be replayed: "+spillFile.toAbsolutePath());
+		}
+
+		worker = new Thread(this::work);
+		worker.setName("hsr-writebehind-" + hsrDB.tablenamePrefix);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/******************************************************************************
+	 * Queues the records to be written to the statistics table.
+	 * Also reports the self-monitoring statistics of the write-behind.
+	 ******************************************************************************/
+	public void reportRecords(int testID, ArrayList<HSRRecordStats> records) {
+		enqueue(new Batch(testID, false, records));
+		reportStatistics();
+	}
+
+	/******************************************************************************
+	 * Queues the records to be written to the summary table.
+	 ******************************************************************************/
+	public void reportRecordsSummary(int testID, ArrayList<HSRRecordStats> records) {
+		enqueue(new Batch(testID, true, records));
+	}
+
+	/******************************************************************************
+	 * Adds the batch to the queue. If the queue is full, the queued batches and
+	 * the batch are spilled to disk in this order.
+	 ******************************************************************************/
+	private void enqueue(Batch batch) {
+
+		if(batch.records().isEmpty()) { return; }
+
+		if(isStopped) {
+			logger.warn("Write-behind already terminated, records are spilled to: "+spillFile.toAbsolutePath());
+			spill(batch);
+			return;
+		}
+
+		if( ! queue.offer(batch) ) {
+			logger.warn("Write-behind queue full, spilling queued batches and "+batch.records().size()+" records to disk.");
+			
+			// keep the order, the spill file is replayed before the queue
+			synchronized(spillLock) {
+				Batch queued;
+				while( (queued = queue.poll()) != null ) {
+					spill(queued);
+				}
+				spill(batch);
+			}
+		}
+	}
+
+	/******************************************************************************
+	 * Writer loop.
+	 ******************************************************************************/
+	private void work() {
+
+		while(true) {
+
+			//---------------------------
+			// Take next Batch
+			Batch batch = null;
+			try {
+				batch = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				isStopped = true;
+			}
+
+			//---------------------------
+			// Replay spilled data first
+			// to keep order
+			boolean canWrite = isDatabaseUp
+							|| (System.currentTimeMillis() - lastFailureMillis) >= RETRY_INTERVAL_MILLIS;
+
+			if(canWrite && hasSpilledData()) {
+				canWrite = replaySpill();
+			}
+
+			//---------------------------
+			// Write or Spill
+			if(batch != null) {
+				if( !canWrite || !write(batch) ) {
+					spill(batch);
+				}
+			}
+
+			if(isStopped && queue.isEmpty()) {
+				return;
+			}
+		}
+	}
+
+	/******************************************************************************
+	 * Writes the batch to the database.
+	 *
+	 * @return true if successful
+	 ******************************************************************************/
+	private boolean write(Batch batch) {
+
+		boolean success = (batch.isSummary())
+							? hsrDB.reportRecordsSummary(batch.testID(), batch.records())
+							: hsrDB.reportRecords(batch.testID(), batch.records());
+
+		if(success) {
+			if( !isDatabaseUp ) { logger.info("Database reachable again, resuming writes."); }
+			isDatabaseUp = true;
+		}else {
+			if(isDatabaseUp) { logger.warn("Database write failed, spilling records to: "+spillFile.toAbsolutePath()); }
+			isDatabaseUp = false;
+			lastFailureMillis = System.currentTimeMillis();
+		}
+
+		return success;
+	}
+
+	/******************************************************************************
+	 * Returns true if the spill file contains data or a replay is not finished.
+	 ******************************************************************************/
+	private boolean hasSpilledData() {
+		return spillFile.toFile().length() > 0 
+			|| replayFile.toFile().exists();
+	}
+
+	/******************************************************************************
+	 * Returns the size of the spilled data in bytes.
+	 ******************************************************************************/
+	private long spilledBytes() {
+		return spillFile.toFile().length() + replayFile.toFile().length();
+	}
+
+	/******************************************************************************
+	 * Appends the batch to the spill file as a single line of JSON.
+	 ******************************************************************************/
+	private void spill(Batch batch) {
+
+		JsonArray records = new JsonArray(batch.records().size());
+		for(HSRRecordStats stats : batch.records()) {
+			records.add(stats.toJson());
+		}
+
+		JsonObject line = new JsonObject();
+		line.addProperty(FIELD_TESTID, batch.testID());
+		line.addProperty(FIELD_SUMMARY, batch.isSummary());
+		line.add(FIELD_RECORDS, records);
+
+		String lineString = line.toString();
+
+		try {
+			Files.createDirectories(spillFile.toAbsolutePath().getParent());
+
+			synchronized(spillLock) {
+				try(BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8
+						, StandardOpenOption.CREATE
+						, StandardOpenOption.APPEND)
+				){
+					writer.write(lineString);
+					writer.write('\n');
+				}
+			}
+		}catch(IOException e) {
+			logger.error("Error while writing spill file, "+batch.records().size()+" records are lost: "+e.getMessage(), e);
+		}
+	}
+
+	/******************************************************************************
+	 * Writes all batches of the spill file to the database. The remains of an 
+	 * unfinished replay are written first. If a batch fails, the remaining 
+	 * batches are kept for the next replay.
+	 *
+	 * @return true if all spilled data has been written
+	 ******************************************************************************/
+	private boolean replaySpill() {
+
+		if( replayFile.toFile().exists() && !replayFile() ) { 
+			return false; 
+		}
+		
+		if( rotateSpillFile() && !replayFile() ) { 
+			return false; 
+		}
+
+		// false if new data has been spilled during the replay
+		return !hasSpilledData();
+	}
+	
+	/******************************************************************************
+	 * Renames the spill file to the replay file, new batches will be spilled to
+	 * a new file. Only the rename is done while holding the lock.
+	 *
+	 * @return true if there was a spill file to replay
+	 ******************************************************************************/
+	private boolean rotateSpillFile() {
+		
+		synchronized(spillLock) {
+			
+			if(spillFile.toFile().length() == 0) { return false; }
+			
+			try {
+				Files.move(spillFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+				return true;
+			}catch(IOException e) {
+				logger.error("Error while renaming spill file for replay: "+e.getMessage(), e);
+				return false;
+			}
+		}
+	}
+	
+	/******************************************************************************
+	 * Streams the batches of the replay file to the database, one line at a time.
+	 * If a batch fails, the batch and all following lines are kept in the replay
+	 * file. The file is deleted when all batches have been written.
+	 *
+	 * @return true if the whole replay file has been written
+	 ******************************************************************************/
+	private boolean replayFile() {
+
+		logger.info("Replaying spilled batches to the database: "+replayFile.toAbsolutePath());
+		
+		Path remainingFile = Paths.get(replayFile.toString() + ".tmp");
+		boolean isComplete = true;
+		
+		try(BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)){
+			
+			String line;
+			while( (line = reader.readLine()) != null ) {
+				
+				if( line.isBlank() ) { continue; }
+				
+				Batch batch = parseLine(line);
+				if(batch == null) { continue; } // skip corrupt lines
+
+				if( !write(batch) ) {
+					isComplete = false;
+					writeRemaining(remainingFile, line, reader);
+					break;
+				}
+
+				synchronized(statisticsLock) {
+					replayedRecords += batch.records().size();
+				}
+			}
+			
+		}catch(IOException e) {
+			logger.error("Error while replaying spill file, data might be replayed twice: "+e.getMessage(), e);
+			return false;
+		}
+
+		//---------------------------
+		// Keep what was not written
+		try {
+			if(isComplete) {
+				Files.deleteIfExists(replayFile);
+			}else {
+				Files.move(remainingFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}catch(IOException e) {
+			logger.error("Error while updating spill file, data might be replayed twice: "+e.getMessage(), e);
+		}
+
+		return isComplete;
+	}
+	
+	/******************************************************************************
+	 * Writes the first line and all remaining lines of the reader to the file.
+	 ******************************************************************************/
+	private void writeRemaining(Path file, String firstLine, BufferedReader reader) throws IOException {
+		
+		try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8
+				, StandardOpenOption.CREATE
+				, StandardOpenOption.TRUNCATE_EXISTING)
+		){
+			String line = firstLine;
+			while(line != null) {
+				if( !line.isBlank() ) {
+					writer.write(line);
+					writer.write('\n');
+				}
+				line = reader.readLine();
+			}
+		}
+	}
+
+	/******************************************************************************
+	 * Parses a line of the spill file, returns null if the line is invalid.
+	 ******************************************************************************/
+	private Batch parseLine(String line) {
+
+		try {
+			JsonObject object = JsonParser.parseString(line).getAsJsonObject();
+
+			ArrayList<HSRRecordStats> records = new ArrayList<>();
+			for(JsonElement element : object.getAsJsonArray(FIELD_RECORDS)) {
+				records.add(new HSRRecordStats(element.getAsJsonObject()));
+			}
+
+			return new Batch(
+					  object.get(FIELD_TESTID).getAsInt()
+					, object.get(FIELD_SUMMARY).getAsBoolean()
+					, records
+				);
+
+		}catch(Exception e) {
+			logger.error("Skipping invalid line in spill file: "+e.getMessage(), e);
+			return null;
+		}
+	}
+
+	/******************************************************************************
+	 * Adds self-monitoring statistics for queue size, spill file size and replay
+	 * rate since the last call.
+	 ******************************************************************************/
+	private void reportStatistics() {
+
+		long now = System.currentTimeMillis();
+		double replayRate;
+
+		synchronized(statisticsLock) {
+			double seconds = Math.max(1, now - statisticsStartMillis) / 1000d;
+			replayRate = replayedRecords / seconds;
+			replayedRecords = 0;
+			statisticsStartMillis = now;
+		}
+
+		String tablenamePrefix = hsrDB.tablenamePrefix;
+		HSRStatsEngine.addSelfMonitoringRecord("Write-Behind Queue Size: " + tablenamePrefix, queue.size());
+		HSRStatsEngine.addSelfMonitoringRecord("Write-Behind Spill [KB]: " + tablenamePrefix, spilledBytes() / 1024d);
+		HSRStatsEngine.addSelfMonitoringRecord("Write-Behind Replay Records/s: " + tablenamePrefix, replayRate);
+	}
+
+	/******************************************************************************
+	 * Writes all queued records, replays the spill file and stops the writer
+	 * thread. Records that cannot be written remain in the spill file.
+	 *
+	 * @param timeoutMillis maximum time to wait for the writer thread
+	 ******************************************************************************/
+	public void terminate(long timeoutMillis) {
+
+		// allow one more attempt to write
+		lastFailureMillis = 0;
+		isStopped = true;
+
+		try {
+			worker.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if(worker.isAlive()) {
+			logger.warn("Timeout while waiting for write-behind to finish, remaining records are spilled.");
+			Batch batch;
+			while( (batch = queue.poll()) != null ) {
+				spill(batch);
+			}
+		}
+
+		if(hasSpilledData()) {
+			logger.warn("Not all records could be written to the database, they will be replayed with the next run: "+spillFile.toAbsolutePath());
+		}
+	}
+
+}
@@ -1,5 +1,12 @@
 package com.xresch.hsr.database;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -7,6 +14,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.function.Consumer;
 
 import org.h2.jdbc.JdbcArray;
 import org.slf4j.Logger;
@@ -18,6 +26,10 @@ import com.google.gson.JsonObject;
 import com.xresch.hsr.base.HSR;
 
 /**************************************************************************************************************
+ * Converts a ResultSet into other formats. The ResultSet is closed after conversion.
+ * 
+ * The to-methods keep the whole result in memory. For big results, use the write- and forEach-methods together
+ * with DBInterface.preparedExecuteQueryStreaming(), they process one row at a time and run in constant memory.
  * 
  * @author Reto Scheiwiller, (c) Copyright 2025
  * @license MIT-License
@@ -209,10 +221,23 @@ public class HSRResultSetConverter {
 		
 		ArrayList<LinkedHashMap<String, Object>> resultList =  new ArrayList<>();
 		
+		forEachKeyValueMap(resultList::add);
+		
+		return resultList;
+	}
+	
+	/***************************************************************************
+	 * Passes every row as a map with key/values to the consumer, without 
+	 * keeping the rows in memory.
+	 * @return number of rows, -1 in case of error
+	 ***************************************************************************/
+	public long forEachKeyValueMap(Consumer<LinkedHashMap<String, Object>> consumer) {
+		
 		if(result == null) {
-			return resultList;
+			return 0;
 		}
 		
+		long count = 0;
 		try {
 			ResultSetMetaData meta = result.getMetaData();
 			int columnCount = meta.getColumnCount();
@@ -222,21 +247,21 @@ public class HSRResultSetConverter {
 				
 				for(int i = 1; i <= columnCount; i++) {
 					String key = meta.getColumnLabel(i);
-					Object value = result.getObject(key);
+					Object value = result.getObject(i);
 					keyValueMap.put(key, value);
 				}
-				resultList.add(keyValueMap);
-				
+				consumer.accept(keyValueMap);
+				count++;
 			}
 		} catch (SQLException e) {
 			logger
 			.error("Error reading object from database.", e);
-			
+			count = -1;
 		}finally {
 			db.close(result);
 		}
 		
-		return resultList;
+		return count;
 	}
 	
 	/***************************************************************
@@ -362,6 +387,56 @@ public class HSRResultSetConverter {
 		
 	}
 	
+	/***************************************************************************
+	 * Writes the ResultSet as a JSON array to the stream in UTF-8, one record
+	 * at a time. The stream is flushed but not closed.
+	 * @return number of records, -1 in case of error
+	 ***************************************************************************/
+	public long writeJSONArray(OutputStream out) {
+		return writeJSONArray( new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)) );
+	}
+	
+	/***************************************************************************
+	 * Writes the ResultSet as a JSON array to the writer, one record at a 
+	 * time. The writer is flushed but not closed.
+	 * @return number of records, -1 in case of error
+	 ***************************************************************************/
+	public long writeJSONArray(Writer writer) {
+		
+		long count = 0;
+		
+		try {
+			writer.write("[");
+			
+			if(result != null) {
+				ResultSetAsJsonReader reader = toJSONReader();
+				
+				JsonObject object;
+				while( (object = reader.next()) != null) {
+					if(count > 0) { writer.write(",\n"); }
+					writer.write(object.toString());
+					count++;
+				}
+				
+				// do not return a partial count
+				if(reader.hasError()) {
+					writer.flush();
+					return -1;
+				}
+			}
+			
+			writer.write("]");
+			writer.flush();
+			
+		} catch (IOException e) {
+			logger.error("Exception occured while writing ResultSet as JSON.", e);
+			db.close(result);
+			return -1;
+		}
+		
+		return count;
+	}
+	
 	
 
 	/********************************************************************************************
@@ -369,14 +444,40 @@ public class HSRResultSetConverter {
 	 * 
 	 ********************************************************************************************/
 	public String toCSV(String delimiter) {
-		StringBuilder csv = new StringBuilder();
+		
+		StringWriter writer = new StringWriter();
+		
+		if(writeCSV(writer, delimiter) < 0) {
+			return "";
+		}
+		
+		return writer.toString();
+	}
+	
+	/********************************************************************************************
+	 * Writes the ResultSet as CSV to the stream in UTF-8, one row at a time. 
+	 * The stream is flushed but not closed.
+	 * @return number of rows, -1 in case of error
+	 ********************************************************************************************/
+	public long writeCSV(OutputStream out, String delimiter) {
+		return writeCSV( new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), delimiter );
+	}
+	
+	/********************************************************************************************
+	 * Writes the ResultSet as CSV to the writer, one row at a time. 
+	 * The writer is flushed but not closed.
+	 * @return number of rows, -1 in case of error
+	 ********************************************************************************************/
+	public long writeCSV(Writer writer, String delimiter) {
+		
+		if(result == null) {
+			return 0;
+		}
+		
+		long count = 0;
 		
 		try {
 			
-			if(result == null) {
-				return "";
-			}
-			
 			//--------------------------------------
 			// Check has results
 			/* Excluded as MSSQL might throw errors			
@@ -386,40 +487,42 @@ public class HSRResultSetConverter {
 			} */
 			
 			//--------------------------------------
-			// Iterate results
+			// Header
 			ResultSetMetaData metadata = result.getMetaData();
 			int columnCount = metadata.getColumnCount();
 			
 			for(int i = 1 ; i <= columnCount; i++) {
-				csv.append("\"")
-				   .append(metadata.getColumnLabel(i))
-				   .append("\"")
-				   .append(delimiter);
+				if(i > 1) { writer.write(delimiter); }
+				writer.write("\"");
+				writer.write(metadata.getColumnLabel(i));
+				writer.write("\"");
 			}
-			csv.deleteCharAt(csv.length()-1); //remove last comma
-			csv.append("\r\n");
+			
+			//--------------------------------------
+			// Iterate results
 			while(result.next()) {
+				writer.write("\r\n");
 				for(int i = 1 ; i <= columnCount; i++) {
+					if(i > 1) { writer.write(delimiter); }
 					
 					String value = result.getString(i);
-					csv.append("\"")
-					   .append(HSR.JSON.escapeString(value))
-					   .append("\"")
-					   .append(delimiter);
+					writer.write("\"");
+					writer.write(HSR.JSON.escapeString(value));
+					writer.write("\"");
 				}
-				csv.deleteCharAt(csv.length()-1); //remove last comma
-				csv.append("\r\n");
+				count++;
 			}
-			csv.deleteCharAt(csv.length()-1); //remove last comma
-	
 			
-		} catch (SQLException e) {
-				logger.error("Exception occured while converting ResultSet to CSV.", e);
-				
-				return "";
+			writer.flush();
+			
+		} catch (SQLException | IOException e) {
+			logger.error("Exception occured while converting ResultSet to CSV.", e);
+			return -1;
+		} finally {
+			db.close(result);
 		}
 	
-		return csv.toString();
+		return count;
 	}
 
 	/********************************************************************************************
@@ -427,12 +530,40 @@ public class HSRResultSetConverter {
 	 * 
 	 ********************************************************************************************/
 	public String toXML() {
-		StringBuilder xml = new StringBuilder();
+		
+		StringWriter writer = new StringWriter();
+		
+		if(writeXML(writer) < 0) {
+			return "<data></data>";
+		}
+		
+		return writer.toString();
+	}
+	
+	/********************************************************************************************
+	 * Writes the ResultSet as XML to the stream in UTF-8, one row at a time. 
+	 * The stream is flushed but not closed.
+	 * @return number of rows, -1 in case of error
+	 ********************************************************************************************/
+	public long writeXML(OutputStream out) {
+		return writeXML( new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)) );
+	}
+	
+	/********************************************************************************************
+	 * Writes the ResultSet as XML to the writer, one row at a time, with a record for each row. 
+	 * The writer is flushed but not closed.
+	 * @return number of rows, -1 in case of error
+	 ********************************************************************************************/
+	public long writeXML(Writer writer) {
+		
+		long count = 0;
 		
 		try {
 			
 			if(result == null) {
-				return "<data></data>";
+				writer.write("<data></data>");
+				writer.flush();
+				return 0;
 			}
 			//--------------------------------------
 			// Check has results
@@ -447,33 +578,42 @@ public class HSRResultSetConverter {
 			ResultSetMetaData metadata = result.getMetaData();
 			int columnCount = metadata.getColumnCount();
 	
-			xml.append("<data>\n");
+			writer.write("<data>\n");
 			while(result.next()) {
-				xml.append("\t<record>\n");
+				writer.write("\t<record>\n");
 				for(int i = 1 ; i <= columnCount; i++) {
 					String column = metadata.getColumnLabel(i);
-					xml.append("\t\t<").append(column).append(">");
+					writer.write("\t\t<");
+					writer.write(column);
+					writer.write(">");
 					
-					String value = result.getString(i);
-					xml.append(value);
-					xml.append("</").append(column).append(">\n");
+					writer.write( String.valueOf(result.getString(i)) );
+					
+					writer.write("</");
+					writer.write(column);
+					writer.write(">\n");
 				}
-				xml.append("\t</record>\n");
+				writer.write("\t</record>\n");
+				count++;
 			}
-			xml.append("</data>");
+			writer.write("</data>");
+			writer.flush();
 			
-		} catch (SQLException e) {
-				logger.error("Exception occured while converting ResultSet to XML.", e);
-				
-				return "<data></data>";
+		} catch (SQLException | IOException e) {
+			logger.error("Exception occured while converting ResultSet to XML.", e);
+			return -1;
+		} finally {
+			db.close(result);
 		}
 	
-		return xml.toString();
+		return count;
 	}
 	
 	
 	/**************************************************************************************************************
 	 * Reads records from a Result set and converts them into Json Objects.
+	 * When next() returns null, use hasError() to check if the end of the results was reached or if an
+	 * error occurred.
 	 * 
 	 **************************************************************************************************************/
 	public class ResultSetAsJsonReader {
@@ -481,6 +621,7 @@ public class HSRResultSetConverter {
 		private ResultSet resultSet = null;
 		private ResultSetMetaData metadata;
 		private int columnCount;
+		private boolean hasError = false;
 		/****************************************************************
 		 * 
 		 ****************************************************************/
@@ -491,16 +632,27 @@ public class HSRResultSetConverter {
 				this.columnCount = metadata.getColumnCount();
 			}catch (SQLException e) {
 					logger.error("Error while initializing ResultSetAsJsonReader:"+e.getMessage(), e);
+					hasError = true;
+					db.close(resultSet);
 			}
 			
 		}
 		
 		/****************************************************************
-		 * Returns the next JsonObject or null if the end of the result set was reached.
+		 * Returns true if an error occurred while reading the results.
+		 * The records returned so far are incomplete in this case.
+		 ****************************************************************/
+		public boolean hasError() {
+			return hasError;
+		}
+		
+		/****************************************************************
+		 * Returns the next JsonObject or null if the end of the result set 
+		 * was reached or in case of error, see hasError().
 		 ****************************************************************/
 		public JsonObject next() {
 
-			if(this.resultSet == null) {
+			if(this.resultSet == null || hasError) {
 				return null;
 			}
 			
@@ -532,6 +684,7 @@ public class HSRResultSetConverter {
 					return null;
 				}
 			} catch (SQLException e) {
+				hasError = true;
 				db.close(resultSet);
 				logger.error("Error while reading SQL results:"+e.getMessage(), e);
 			}
@@ -10,5 +10,5 @@ WHERE "testid" = ?
 AND	"time" >= ? 
 AND "time" < ? 
 AND "granularity" < ?
-GROUP BY "testid", {namesWithoutTimeOrGranularity}
+GROUP BY "testid", FLOOR("time" / ?), {namesWithoutTimeOrGranularity}
 ;
\ No newline at end of file
@@ -0,0 +1,411 @@
+package com.xresch.hsr.reporting;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRStatsEngine;
+import com.xresch.hsr.stats.HSRStatsEngine.SummarizedStats;
+
+/**************************************************************************************************************
+ * Reads files written by HSRBinaryWriter back into HSRRecordStats, for example to analyze or re-summarize
+ * the statistics of a long run offline. See HSRBinaryWriter for the format.
+ *
+ * If the file has a footer, blocks outside of the requested timeframe are skipped. Files without a footer
+ * (e.g. if the run was aborted) are read block by block until the last complete block.
+ *
+ * SLAs are not stored in the file, the statistics are returned without SLA.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRBinaryReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRBinaryReader.class);
+
+	private static final HSRRecordType[] TYPES = HSRRecordType.values();
+
+	private final File file;
+
+	/****************************************************************************
+	 *
+	 * @param filepath the path of the file to read
+	 ****************************************************************************/
+	public HSRBinaryReader(String filepath) {
+		this.file = new File(filepath);
+	}
+
+	/****************************************************************************
+	 * Returns all statistics of the file.
+	 ****************************************************************************/
+	public ArrayList<HSRRecordStats> readAll() throws IOException {
+
+		ArrayList<HSRRecordStats> result = new ArrayList<>();
+		read(Long.MIN_VALUE, Long.MAX_VALUE, result::add);
+
+		return result;
+	}
+
+	/****************************************************************************
+	 * Summarizes the statistics of the file the same way the stats engine
+	 * creates the summary report at the end of a test.
+	 ****************************************************************************/
+	public SummarizedStats summarize() throws IOException {
+
+		TreeMap<String, ArrayList<HSRRecordStats>> groupedStats = new TreeMap<>();
+
+		read(Long.MIN_VALUE, Long.MAX_VALUE, stats ->
+			groupedStats.computeIfAbsent(stats.statsIdentifier(), k -> new ArrayList<>()).add(stats)
+		);
+
+		return HSRStatsEngine.summarizeGroupedStats(groupedStats, false);
+	}
+
+	/****************************************************************************
+	 * Passes the statistics in the timeframe to the consumer one by one.
+	 *
+	 * @param startTime start of the timeframe in epoch milliseconds, inclusive
+	 * @param endTime end of the timeframe in epoch milliseconds, exclusive
+	 * @param consumer receives the statistics
+	 *
+	 * @return number of statistics passed to the consumer
+	 ****************************************************************************/
+	public long read(long startTime, long endTime, Consumer<HSRRecordStats> consumer) throws IOException {
+
+		try(RandomAccessFile input = new RandomAccessFile(file, "r")){
+
+			int[] valueIndexes = readHeader(input);
+			long headerEnd = input.getFilePointer();
+
+			ArrayList<String> dictionary = new ArrayList<>();
+			ArrayList<long[]> blockIndex = readFooter(input, dictionary);
+
+			//----------------------------
+			// Sequential if no Footer
+			if(blockIndex == null) {
+				logger.info("Binary file has no footer, reading all blocks: "+file.getPath());
+
+				input.seek(headerEnd);
+				return readSequential(input, valueIndexes, startTime, endTime, consumer);
+			}
+
+			//----------------------------
+			// Read Blocks in Timeframe
+			long count = 0;
+			for(long[] entry : blockIndex) {
+
+				long minTime = entry[1];
+				long maxTime = entry[2];
+				if(maxTime < startTime || minTime >= endTime) { continue; }
+
+				input.seek(entry[0]);
+				count += readBlock(input, valueIndexes, dictionary, false, startTime, endTime, consumer);
+			}
+
+			return count;
+		}
+	}
+
+	/****************************************************************************
+	 * Reads all blocks from the current position of the file.
+	 ****************************************************************************/
+	private long readSequential(RandomAccessFile input, int[] valueIndexes, long startTime, long endTime, Consumer<HSRRecordStats> consumer) throws IOException {
+
+		ArrayList<String> dictionary = new ArrayList<>();
+		long count = 0;
+
+		while(input.getFilePointer() < input.length()) {
+
+			long position = input.getFilePointer();
+			byte marker = input.readByte();
+
+			if(marker != HSRBinaryWriter.BLOCK_MARKER) { break; } // footer or corrupt
+
+			input.seek(position);
+			try {
+				count += readBlock(input, valueIndexes, dictionary, true, startTime, endTime, consumer);
+			}catch(EOFException | CorruptBlockException e) {
+				logger.warn("Incomplete block at the end of the file is skipped: "+file.getPath());
+				break;
+			}
+		}
+
+		return count;
+	}
+
+	/****************************************************************************
+	 * Reads the header and returns the value index for each value column of
+	 * the file, -1 for columns that are unknown in this version.
+	 ****************************************************************************/
+	private int[] readHeader(RandomAccessFile input) throws IOException {
+
+		if(input.readInt() != HSRBinaryWriter.MAGIC) {
+			throw new IOException("Not a HSR binary file: "+file.getPath());
+		}
+
+		short version = input.readShort();
+		if(version > HSRBinaryWriter.VERSION) {
+			throw new IOException("Unsupported version "+version+" of HSR binary file: "+file.getPath());
+		}
+
+		int[] knownIndexes = HSRRecordStats.valueNameIndexes();
+
+		int columnCount = (int)readVarLong(input);
+		int[] valueIndexes = new int[columnCount];
+
+		for(int i = 0; i < columnCount; i++) {
+			int position = HSRRecordStats.valueNames.indexOf( readString(input) );
+			valueIndexes[i] = (position >= 0) ? knownIndexes[position] : -1;
+		}
+
+		return valueIndexes;
+	}
+
+	/****************************************************************************
+	 * Reads the footer, fills the dictionary and returns the block index.
+	 * Returns null if the file has no footer.
+	 ****************************************************************************/
+	private ArrayList<long[]> readFooter(RandomAccessFile input, ArrayList<String> dictionary) throws IOException {
+
+		long length = input.length();
+		if(length < 12) { return null; }
+
+		input.seek(length - 12);
+		long footerOffset = input.readLong();
+		int magic = input.readInt();
+
+		if(magic != HSRBinaryWriter.MAGIC || footerOffset < 0 || footerOffset >= length) {
+			return null;
+		}
+
+		input.seek(footerOffset);
+		if(input.readByte() != HSRBinaryWriter.FOOTER_MARKER) { return null; }
+
+		int dictionarySize = (int)readVarLong(input);
+		for(int i = 0; i < dictionarySize; i++) {
+			dictionary.add( readString(input) );
+		}
+
+		int blockCount = (int)readVarLong(input);
+		ArrayList<long[]> blockIndex = new ArrayList<>(blockCount);
+		for(int i = 0; i < blockCount; i++) {
+			blockIndex.add(new long[] {
+					  input.readLong()
+					, input.readLong()
+					, input.readLong()
+					, readVarLong(input)
+				});
+		}
+
+		return blockIndex;
+	}
+
+	/****************************************************************************
+	 * Reads the block at the current position of the file.
+	 *
+	 * @param addToDictionary true if the new dictionary entries of the block
+	 * have to be added, false if the dictionary was read from the footer
+	 * @return number of statistics passed to the consumer
+	 ****************************************************************************/
+	private long readBlock(RandomAccessFile input
+			, int[] valueIndexes
+			, ArrayList<String> dictionary
+			, boolean addToDictionary
+			, long startTime
+			, long endTime
+			, Consumer<HSRRecordStats> consumer
+			) throws IOException {
+
+		if(input.readByte() != HSRBinaryWriter.BLOCK_MARKER) {
+			throw new IOException("Invalid block in file: "+file.getPath());
+		}
+
+		int uncompressedLength = input.readInt();
+		int compressedLength = input.readInt();
+
+		byte[] compressed = new byte[compressedLength];
+		input.readFully(compressed);
+
+		DataInputStream body = new DataInputStream(new ByteArrayInputStream( decompress(compressed, uncompressedLength) ));
+
+		int rows = (int)readVarLong(body);
+
+		//----------------------------
+		// Dictionary
+		int newEntries = (int)readVarLong(body);
+		for(int i = 0; i < newEntries; i++) {
+			String value = readString(body);
+			if(addToDictionary) { dictionary.add(value); }
+		}
+
+		//----------------------------
+		// Time
+		long[] times = new long[rows];
+		long previous = body.readLong();
+		for(int r = 0; r < rows; r++) {
+			previous += readZigZag(body);
+			times[r] = previous;
+		}
+
+		//----------------------------
+		// Identifiers
+		int[][] stringColumns = new int[6][rows];
+		for(int[] column : stringColumns) {
+			for(int r = 0; r < rows; r++) {
+				column[r] = (int)readVarLong(body);
+			}
+		}
+
+		int[] granularities = new int[rows];
+		for(int r = 0; r < rows; r++) {
+			granularities[r] = (int)readVarLong(body);
+		}
+
+		//----------------------------
+		// Create Stats
+		HSRRecordStats[] stats = new HSRRecordStats[rows];
+		for(int r = 0; r < rows; r++) {
+			stats[r] = new HSRRecordStats(
+					  times[r]
+					, typeOf( dictionary.get(stringColumns[0][r]) )
+					, dictionary.get(stringColumns[1][r])
+					, dictionary.get(stringColumns[2][r])
+					, dictionary.get(stringColumns[3][r])
+					, dictionary.get(stringColumns[4][r])
+					, dictionary.get(stringColumns[5][r])
+					, granularities[r]
+				);
+		}
+
+		//----------------------------
+		// Values
+		byte[] bitmap = new byte[(rows + 7) / 8];
+		for(int valueIndex : valueIndexes) {
+
+			body.readFully(bitmap);
+
+			for(int r = 0; r < rows; r++) {
+				if( (bitmap[r / 8] & (1 << (r % 8))) == 0 ) { continue; }
+
+				double value = body.readDouble();
+				if(valueIndex >= 0) {
+					stats[r].setValue(valueIndex, value);
+				}
+			}
+		}
+
+		//----------------------------
+		// Pass to Consumer
+		long count = 0;
+		for(int r = 0; r < rows; r++) {
+			if(times[r] >= startTime && times[r] < endTime) {
+				consumer.accept(stats[r]);
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/****************************************************************************
+	 * Returns the type for the name, Unknown if it does not exist.
+	 ****************************************************************************/
+	private static HSRRecordType typeOf(String name) {
+		for(HSRRecordType type : TYPES) {
+			if(type.name().equals(name)) { return type; }
+		}
+		return HSRRecordType.Unknown;
+	}
+
+	/****************************************************************************
+	 * Decompresses the bytes of a block.
+	 ****************************************************************************/
+	private static byte[] decompress(byte[] compressed, int uncompressedLength) throws IOException {
+
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+
+			byte[] result = new byte[uncompressedLength];
+			int length = 0;
+			while(length < uncompressedLength && !inflater.finished()) {
+				int read = inflater.inflate(result, length, uncompressedLength - length);
+				if(read == 0 && (inflater.needsInput() || inflater.needsDictionary())) { break; }
+				length += read;
+			}
+
+			if(length != uncompressedLength) {
+				throw new CorruptBlockException("Block is incomplete.");
+			}
+
+			return result;
+
+		}catch(DataFormatException e) {
+			throw new CorruptBlockException(e.getMessage());
+		}finally {
+			inflater.end();
+		}
+	}
+
+	/****************************************************************************
+	 * Thrown if a block cannot be decompressed, e.g. if it was not completely
+	 * written.
+	 ****************************************************************************/
+	private static class CorruptBlockException extends IOException {
+		private static final long serialVersionUID = 1L;
+		CorruptBlockException(String message) { super(message); }
+	}
+
+	/****************************************************************************
+	 * Reads a value written with HSRBinaryWriter.writeVarLong().
+	 ****************************************************************************/
+	private static long readVarLong(DataInput input) throws IOException {
+
+		long value = 0;
+		int shift = 0;
+		byte current;
+
+		do {
+			if(shift > 63) { throw new IOException("Invalid variable length number."); }
+
+			current = input.readByte();
+			value |= (long)(current & 0x7F) << shift;
+			shift += 7;
+		} while( (current & 0x80) != 0 );
+
+		return value;
+	}
+
+	/****************************************************************************
+	 * Reads a value written with HSRBinaryWriter.writeZigZag().
+	 ****************************************************************************/
+	private static long readZigZag(DataInput input) throws IOException {
+		long value = readVarLong(input);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/****************************************************************************
+	 * Reads a string written with HSRBinaryWriter.writeString().
+	 ****************************************************************************/
+	private static String readString(DataInput input) throws IOException {
+		byte[] bytes = new byte[(int)readVarLong(input)];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
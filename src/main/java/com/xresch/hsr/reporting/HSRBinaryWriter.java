@@ -0,0 +1,369 @@
+package com.xresch.hsr.reporting;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import com.xresch.hsr.stats.HSRRecordStats;
+
+/**************************************************************************************************************
+ * Writes statistics to a compact binary file that can be read with HSRBinaryReader.
+ *
+ * The records are buffered and written in blocks. Every block stores the data column by column and is
+ * compressed with deflate:
+ * <ul>
+ * 	<li>Strings (type, test, usecase, path, name, code) are stored once in a dictionary for the whole file,
+ * 		the columns only contain the ids. Every block contains the dictionary entries that were added since
+ * 		the previous block.</li>
+ * 	<li>Times are stored as variable length deltas to the previous record.</li>
+ * 	<li>Every value column has a bitmap of the rows containing a value, followed by the values as doubles.</li>
+ * </ul>
+ *
+ * On close(), a footer is written containing the full dictionary and an index of all blocks with their
+ * file offset and timeframe, which allows the reader to skip blocks. Files of runs that did not finish
+ * properly have no footer, but can still be read block by block.
+ *
+ * <pre>
+ * File:   MAGIC(int) VERSION(short) valueNameCount(varint) valueName(string)... block... [footer]
+ * Block:  BLOCK_MARKER(byte) uncompressedLength(int) compressedLength(int) deflatedBody
+ * Body:   rowCount(varint) newDictCount(varint) string... firstTime(long) timeDelta(zigzag varlong)...
+ *         typeID... testID... usecaseID... pathID... nameID... codeID... granularity(varint)...
+ *         per value column: presenceBitmap value(double)...
+ * Footer: FOOTER_MARKER(byte) dictCount(varint) string... blockCount(varint)
+ *         per block: offset(long) minTime(long) maxTime(long) rowCount(varint)
+ * End:    footerOffset(long) MAGIC(int)
+ * </pre>
+ * Strings are stored as varint length followed by the UTF-8 bytes.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRBinaryWriter {
+
+	public static final int MAGIC = 0x48535242; // "HSRB"
+	public static final short VERSION = 1;
+	public static final byte BLOCK_MARKER = 'B';
+	public static final byte FOOTER_MARKER = 'F';
+
+	private static final int[] VALUE_INDEXES = HSRRecordStats.valueNameIndexes();
+
+	private final File file;
+	private final int blockRows;
+
+	private final DataOutputStream out;
+	private long offset = 0;
+
+	private final ArrayList<HSRRecordStats> buffer = new ArrayList<>();
+
+	//----------------------
+	// Dictionary
+	private final HashMap<String, Integer> dictionary = new HashMap<>();
+	private final ArrayList<String> dictionaryList = new ArrayList<>();
+	private int dictionaryWritten = 0;
+
+	//----------------------
+	// Block Index
+	private final ArrayList<long[]> blockIndex = new ArrayList<>(); // offset, minTime, maxTime, rows
+
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private boolean isClosed = false;
+
+	/****************************************************************************
+	 * Creates the file and writes the header. An existing file is replaced.
+	 *
+	 * @param filepath the path of the file
+	 * @param blockRows number of records that are buffered before a block is
+	 * written, bigger blocks compress better
+	 ****************************************************************************/
+	public HSRBinaryWriter(String filepath, int blockRows) throws IOException {
+
+		this.blockRows = Math.max(1, blockRows);
+
+		file = new File(filepath).getAbsoluteFile();
+		file.getParentFile().mkdirs();
+
+		if(file.exists() && !file.delete()) {
+			throw new IOException("Could not delete existing file: "+file.getPath());
+		}
+
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+
+		//----------------------------
+		// Header
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerOut = new DataOutputStream(header);
+		headerOut.writeInt(MAGIC);
+		headerOut.writeShort(VERSION);
+
+		writeVarLong(headerOut, HSRRecordStats.valueNames.size());
+		for(String valueName : HSRRecordStats.valueNames) {
+			writeString(headerOut, valueName);
+		}
+
+		write(header.toByteArray());
+		out.flush();
+	}
+
+	/****************************************************************************
+	 * Returns the file that is written.
+	 ****************************************************************************/
+	public File getFile() {
+		return file;
+	}
+
+	/****************************************************************************
+	 * Adds the records, writes a block whenever enough records are buffered.
+	 ****************************************************************************/
+	public synchronized void write(List<HSRRecordStats> records) throws IOException {
+
+		if(isClosed) {
+			throw new IOException("Binary writer already closed: "+file.getPath());
+		}
+
+		buffer.addAll(records);
+
+		if(buffer.size() >= blockRows) {
+			flush();
+		}
+	}
+
+	/****************************************************************************
+	 * Writes the buffered records as a block to the file.
+	 ****************************************************************************/
+	public synchronized void flush() throws IOException {
+
+		if( !buffer.isEmpty() ) {
+			writeBlock(buffer);
+			buffer.clear();
+		}
+
+		out.flush();
+	}
+
+	/****************************************************************************
+	 * Writes one block.
+	 ****************************************************************************/
+	private void writeBlock(ArrayList<HSRRecordStats> records) throws IOException {
+
+		int rows = records.size();
+
+		//----------------------------
+		// Dictionary IDs
+		// before the body to know the new entries
+		int[][] stringColumns = new int[6][rows];
+		for(int r = 0; r < rows; r++) {
+			HSRRecordStats record = records.get(r);
+			stringColumns[0][r] = dictionaryID(record.type().toString());
+			stringColumns[1][r] = dictionaryID(record.test());
+			stringColumns[2][r] = dictionaryID(record.usecase());
+			stringColumns[3][r] = dictionaryID(record.path());
+			stringColumns[4][r] = dictionaryID(record.name());
+			stringColumns[5][r] = dictionaryID(record.code());
+		}
+
+		//----------------------------
+		// Body
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(rows * 64);
+		DataOutputStream body = new DataOutputStream(bodyBytes);
+
+		writeVarLong(body, rows);
+
+		writeVarLong(body, dictionaryList.size() - dictionaryWritten);
+		for(int i = dictionaryWritten; i < dictionaryList.size(); i++) {
+			writeString(body, dictionaryList.get(i));
+		}
+		dictionaryWritten = dictionaryList.size();
+
+		//----------------------------
+		// Time
+		long minTime = Long.MAX_VALUE;
+		long maxTime = Long.MIN_VALUE;
+		long previous = records.get(0).time();
+		body.writeLong(previous);
+
+		for(HSRRecordStats record : records) {
+			long time = record.time();
+			writeZigZag(body, time - previous);
+			previous = time;
+
+			minTime = Math.min(minTime, time);
+			maxTime = Math.max(maxTime, time);
+		}
+
+		//----------------------------
+		// Identifiers
+		for(int[] column : stringColumns) {
+			for(int id : column) {
+				writeVarLong(body, id);
+			}
+		}
+
+		for(HSRRecordStats record : records) {
+			writeVarLong(body, record.granularity());
+		}
+
+		//----------------------------
+		// Values
+		byte[] bitmap = new byte[(rows + 7) / 8];
+		for(int index : VALUE_INDEXES) {
+
+			Arrays.fill(bitmap, (byte)0);
+			for(int r = 0; r < rows; r++) {
+				if(records.get(r).hasValue(index)) {
+					bitmap[r / 8] |= (byte)(1 << (r % 8));
+				}
+			}
+			body.write(bitmap);
+
+			for(HSRRecordStats record : records) {
+				if(record.hasValue(index)) {
+					body.writeDouble(record.getValueDouble(index));
+				}
+			}
+		}
+
+		body.flush();
+
+		//----------------------------
+		// Compress
+		byte[] uncompressed = bodyBytes.toByteArray();
+		byte[] compressed = compress(uncompressed);
+
+		blockIndex.add(new long[] {offset, minTime, maxTime, rows});
+
+		ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(compressed.length + 9);
+		DataOutputStream block = new DataOutputStream(blockBytes);
+		block.writeByte(BLOCK_MARKER);
+		block.writeInt(uncompressed.length);
+		block.writeInt(compressed.length);
+		block.write(compressed);
+
+		write(blockBytes.toByteArray());
+	}
+
+	/****************************************************************************
+	 * Returns the id of the string in the dictionary, adds it if missing.
+	 ****************************************************************************/
+	private int dictionaryID(String value) {
+
+		if(value == null) { value = ""; }
+
+		Integer id = dictionary.get(value);
+		if(id == null) {
+			id = dictionaryList.size();
+			dictionary.put(value, id);
+			dictionaryList.add(value);
+		}
+
+		return id;
+	}
+
+	/****************************************************************************
+	 * Compresses the bytes with deflate.
+	 ****************************************************************************/
+	private byte[] compress(byte[] bytes) {
+
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+
+		ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+		byte[] chunk = new byte[8192];
+		while( !deflater.finished() ) {
+			int length = deflater.deflate(chunk);
+			result.write(chunk, 0, length);
+		}
+
+		return result.toByteArray();
+	}
+
+	/****************************************************************************
+	 * Writes the bytes to the file and keeps track of the offset.
+	 ****************************************************************************/
+	private void write(byte[] bytes) throws IOException {
+		out.write(bytes);
+		offset += bytes.length;
+	}
+
+	/****************************************************************************
+	 * Writes the remaining records and the footer and closes the file.
+	 ****************************************************************************/
+	public synchronized void close() throws IOException {
+
+		if(isClosed) { return; }
+		isClosed = true;
+
+		try {
+			flush();
+
+			//----------------------------
+			// Footer
+			long footerOffset = offset;
+
+			ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+			DataOutputStream footer = new DataOutputStream(footerBytes);
+
+			footer.writeByte(FOOTER_MARKER);
+
+			writeVarLong(footer, dictionaryList.size());
+			for(String value : dictionaryList) {
+				writeString(footer, value);
+			}
+
+			writeVarLong(footer, blockIndex.size());
+			for(long[] entry : blockIndex) {
+				footer.writeLong(entry[0]);
+				footer.writeLong(entry[1]);
+				footer.writeLong(entry[2]);
+				writeVarLong(footer, entry[3]);
+			}
+
+			footer.writeLong(footerOffset);
+			footer.writeInt(MAGIC);
+
+			write(footerBytes.toByteArray());
+			out.flush();
+
+		}finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	/****************************************************************************
+	 * Writes a positive value with 7 bits per byte.
+	 ****************************************************************************/
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while( (value & ~0x7FL) != 0 ) {
+			out.writeByte( (int)((value & 0x7F) | 0x80) );
+			value >>>= 7;
+		}
+		out.writeByte( (int)value );
+	}
+
+	/****************************************************************************
+	 * Writes a value that might be negative with zigzag encoding.
+	 ****************************************************************************/
+	static void writeZigZag(DataOutputStream out, long value) throws IOException {
+		writeVarLong(out, (value << 1) ^ (value >> 63) );
+	}
+
+	/****************************************************************************
+	 * Writes the string as varint length followed by the UTF-8 bytes.
+	 ****************************************************************************/
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+}
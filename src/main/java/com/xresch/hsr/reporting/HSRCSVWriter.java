@@ -0,0 +1,211 @@
+package com.xresch.hsr.reporting;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.xresch.hsr.stats.HSRRecordStats;
+
+/**************************************************************************************************************
+ * Writes statistics to a CSV file that is kept open for the whole run. The rows are appended to a reusable
+ * StringBuilder and encoded directly into a reusable byte buffer, which is written to the file when it is
+ * full or at the end of each call to write().
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ *
+ **************************************************************************************************************/
+public class HSRCSVWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String LINE_SEPARATOR = "\r\n";
+
+	/******************************************************************************
+	 * Defines what happens after the records of a call to write() have been written.
+	 ******************************************************************************/
+	public enum FlushPolicy {
+		/** keep data in the buffers until they are full, fastest, data might be lost on a crash */
+		  BUFFERED
+		/** write data to the operating system after each interval */
+		, FLUSH
+		/** write data to the operating system and force it to disk after each interval, slowest */
+		, FSYNC
+	}
+
+	/******************************************************************************
+	 * The compression used for the file.
+	 ******************************************************************************/
+	public enum Compression {
+		  NONE
+		  /** gzip compression, ".gz" is added to the file name if missing */
+		, GZIP
+	}
+
+	private final String separator;
+	private final FlushPolicy flushPolicy;
+	private final File file;
+
+	private final FileOutputStream fileOut;
+	private final OutputStream out;
+
+	private final StringBuilder row = new StringBuilder(1024);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+													.onMalformedInput(CodingErrorAction.REPLACE)
+													.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private boolean isClosed = false;
+
+	/****************************************************************************
+	 * Creates the file and writes the header. An existing file is replaced.
+	 *
+	 * @param filepath the path of the file
+	 * @param separator the separator of the CSV data
+	 * @param flushPolicy when data is written to disk
+	 * @param compression the compression of the file
+	 ****************************************************************************/
+	public HSRCSVWriter(String filepath, String separator, FlushPolicy flushPolicy, Compression compression) throws IOException {
+
+		this.separator = separator;
+		this.flushPolicy = flushPolicy;
+
+		if(compression == Compression.GZIP && !filepath.endsWith(".gz")) {
+			filepath += ".gz";
+		}
+
+		//----------------------------
+		// Create File
+		file = new File(filepath).getAbsoluteFile();
+		file.getParentFile().mkdirs();
+
+		if(file.exists() && !file.delete()) {
+			throw new IOException("Could not delete existing file: "+file.getPath());
+		}
+
+		fileOut = new FileOutputStream(file);
+
+		//----------------------------
+		// Compression
+		if(compression == Compression.GZIP) {
+			// sync flush to make data readable after each flush
+			out = new GZIPOutputStream(fileOut, BUFFER_SIZE, true);
+		}else {
+			out = fileOut;
+		}
+
+		//----------------------------
+		// Header
+		row.append(HSRRecordStats.getCSVHeader(separator)).append(LINE_SEPARATOR);
+		encodeRow();
+		flush();
+	}
+
+	/****************************************************************************
+	 * Returns the file that is written.
+	 ****************************************************************************/
+	public File getFile() {
+		return file;
+	}
+
+	/****************************************************************************
+	 * Writes the records to the file and applies the flush policy.
+	 ****************************************************************************/
+	public synchronized void write(List<HSRRecordStats> records) throws IOException {
+
+		if(isClosed) {
+			throw new IOException("CSV writer already closed: "+file.getPath());
+		}
+
+		for(HSRRecordStats record : records ) {
+			record.appendCSV(row, separator);
+			row.append(LINE_SEPARATOR);
+			encodeRow();
+		}
+
+		if(flushPolicy != FlushPolicy.BUFFERED) {
+			flush();
+		}
+	}
+
+	/****************************************************************************
+	 * Encodes the row into the byte buffer and clears the row. The buffer is
+	 * written to the stream whenever it is full.
+	 ****************************************************************************/
+	private void encodeRow() throws IOException {
+
+		CharBuffer chars = CharBuffer.wrap(row);
+
+		while(true) {
+			CoderResult result = encoder.encode(chars, buffer, true);
+
+			if(result.isOverflow()) {
+				drainBuffer();
+			}else {
+				break;
+			}
+		}
+
+		encoder.reset();
+		row.setLength(0);
+	}
+
+	/****************************************************************************
+	 * Writes the content of the byte buffer to the stream.
+	 ****************************************************************************/
+	private void drainBuffer() throws IOException {
+
+		if(buffer.position() == 0) { return; }
+
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	/****************************************************************************
+	 * Writes the buffered data to the file, also forces it to disk if the flush
+	 * policy is FSYNC.
+	 ****************************************************************************/
+	public synchronized void flush() throws IOException {
+
+		drainBuffer();
+		out.flush();
+
+		if(flushPolicy == FlushPolicy.FSYNC) {
+			fileOut.getFD().sync();
+		}
+	}
+
+	/****************************************************************************
+	 * Writes the remaining data and closes the file.
+	 ****************************************************************************/
+	public synchronized void close() throws IOException {
+
+		if(isClosed) { return; }
+		isClosed = true;
+
+		try {
+			drainBuffer();
+
+			if(out instanceof GZIPOutputStream gzip) {
+				gzip.finish();
+			}
+
+			out.flush();
+
+			if(flushPolicy == FlushPolicy.FSYNC) {
+				fileOut.getFD().sync();
+			}
+		}finally {
+			out.close();
+		}
+	}
+
+}
@@ -43,7 +43,8 @@ public interface HSRReporter {
 	 * HSRConfig.disableSummaryReports(true).
 	 * 
 	 * @param summaryRecords the final statistics over the whole test
-	 * @param summaryRecordsWithSeries the final statistics as a JsonArray
+	 * @param summaryRecordsWithSeries the final statistics as a JsonArray, the series are 
+	 * 		  downsampled if set with HSRConfig.summarySeriesDownsampling()
 	 * @param properties the properties that have been added with HSRConfig.addProperties()
 	 * @param slaForRecords object with record name as key and a string representation of its SLA
 	 * @param testSettings TODO
@@ -56,6 +57,16 @@ public interface HSRReporter {
 			, ArrayList<HSRTestSettings> testSettings
 			);
 	
+	/******************************************************************************************
+	 * Return true if the series in summaryRecordsWithSeries should contain a point for every
+	 * report interval, even if HSRConfig.summarySeriesDownsampling() is set.
+	 * Default is false.
+	 * 
+	 ******************************************************************************************/
+	public default boolean requiresRawSeries() {
+		return false;
+	}
+	
 	/******************************************************************************************
 	 * Will be called after all the data has been reported.
 	 * Can be used to finish of whatever has to be finished off.
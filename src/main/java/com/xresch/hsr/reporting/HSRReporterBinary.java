@@ -0,0 +1,148 @@
+package com.xresch.hsr.reporting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.xresch.hsr.base.HSRTestSettings;
+import com.xresch.hsr.stats.HSRRecordStats;
+
+/**************************************************************************************************************
+ * This reporter writes the statistics to a compact binary, columnar file, which is much smaller than the
+ * CSV or JSON files of the same run. The strings of the records are only stored once per file.
+ * The file can be read with HSRBinaryReader, for example to analyze or re-summarize a long run offline.
+ * The summary is written to a separate file with the suffix "-summary".
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ *
+ **************************************************************************************************************/
+public class HSRReporterBinary implements HSRReporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRReporterBinary.class);
+
+	private static final int DEFAULT_BLOCK_ROWS = 1000;
+
+	private String filepath;
+	private int blockRows;
+
+	private HSRBinaryWriter writer;
+
+	/****************************************************************************
+	 *
+	 * @param filepath the path of the file, e.g. "./target/hsr-stats.hsrb"
+	 ****************************************************************************/
+	public HSRReporterBinary(String filepath) {
+		this(filepath, DEFAULT_BLOCK_ROWS);
+	}
+
+	/****************************************************************************
+	 *
+	 * @param filepath the path of the file, e.g. "./target/hsr-stats.hsrb"
+	 * @param blockRows number of records that are buffered before they are
+	 * written to the file, bigger blocks compress better. Default is 1000.
+	 ****************************************************************************/
+	public HSRReporterBinary(String filepath, int blockRows) {
+
+		this.filepath = filepath;
+		this.blockRows = blockRows;
+
+	}
+
+	/****************************************************************************
+	 *
+	 ****************************************************************************/
+	public void initialize() {
+		writer = createWriter(filepath);
+	}
+
+	/****************************************************************************
+	 * Creates the writer for the file, returns null on error.
+	 ****************************************************************************/
+	private HSRBinaryWriter createWriter(String filepath) {
+		try {
+			return new HSRBinaryWriter(filepath, blockRows);
+		} catch (IOException e) {
+			logger.error("Error while initializing binary file.", e);
+			return null;
+		}
+	}
+
+	/****************************************************************************
+	 *
+	 ****************************************************************************/
+	@Override
+	public void reportRecords(ArrayList<HSRRecordStats> records) {
+
+		if(writer == null) { return; }
+
+		try {
+			writer.write(records);
+		} catch (IOException e) {
+			logger.error("Error while writing binary data.", e);
+		}
+
+	}
+
+	/****************************************************************************
+	 *
+	 ****************************************************************************/
+	@Override
+	public void reportSummary(ArrayList<HSRRecordStats> summaryRecords, JsonArray summaryRecordsWithSeries, TreeMap<String, String> properties, JsonObject slaForRecords, ArrayList<HSRTestSettings> testSettings) {
+
+		//----------------------------
+		// Make Summary File
+		String summaryFilePath = "";
+		if(filepath.contains(".")) {
+			summaryFilePath =  filepath.substring(0, filepath.lastIndexOf("."));
+			summaryFilePath += "-summary";
+			summaryFilePath += filepath.substring(filepath.lastIndexOf("."));
+		}else {
+			summaryFilePath = filepath + "-summary";
+		}
+
+		//----------------------------
+		// Report to Summary File
+		HSRBinaryWriter summaryWriter = createWriter(summaryFilePath);
+		if(summaryWriter == null) { return; }
+
+		try {
+			summaryWriter.write(summaryRecords);
+		} catch (IOException e) {
+			logger.error("Error while writing binary data.", e);
+		}finally {
+			close(summaryWriter);
+		}
+
+	}
+
+	/****************************************************************************
+	 *
+	 ****************************************************************************/
+	private void close(HSRBinaryWriter writer) {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			logger.error("Error while closing binary file.", e);
+		}
+	}
+
+	/****************************************************************************
+	 *
+	 ****************************************************************************/
+	@Override
+	public void terminate() {
+
+		if(writer != null) {
+			close(writer);
+			writer = null;
+		}
+
+	}
+
+}
@@ -1,11 +1,6 @@
 package com.xresch.hsr.reporting;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.TreeMap;
 
@@ -15,11 +10,15 @@ import org.slf4j.LoggerFactory;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.xresch.hsr.base.HSRTestSettings;
+import com.xresch.hsr.reporting.HSRCSVWriter.Compression;
+import com.xresch.hsr.reporting.HSRCSVWriter.FlushPolicy;
 import com.xresch.hsr.stats.HSRRecordStats;
 
 /**************************************************************************************************************
  * This reporter writes report data to a CSV file.
  * You might choose the separator for your CSV data so that you can properly delimit your data.
+ * The file is kept open for the whole run, by default the data is flushed after every report interval.
+ * For long running tests the file can be compressed with gzip while it is written.
  * 
  * @author Reto Scheiwiller, (c) Copyright 2025
  * @license EPL-License
@@ -31,15 +30,32 @@ public class HSRReporterCSV implements HSRReporter {
 	
 	private String separator;
 	private String filepath;
-	private Path path;
+	private FlushPolicy flushPolicy;
+	private Compression compression;
+	
+	private HSRCSVWriter writer;
 	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
 	public HSRReporterCSV(String filepath, String separator) {
+		this(filepath, separator, FlushPolicy.FLUSH, Compression.NONE);
+	}
+	
+	/****************************************************************************
+	 * 
+	 * @param filepath the path of the CSV file
+	 * @param separator the separator of the CSV data
+	 * @param flushPolicy when the data is written to disk
+	 * @param compression the compression of the file, ".gz" is added to the
+	 * file name for GZIP
+	 ****************************************************************************/
+	public HSRReporterCSV(String filepath, String separator, FlushPolicy flushPolicy, Compression compression) {
 		
 		this.filepath = filepath;
 		this.separator = separator;
+		this.flushPolicy = flushPolicy;
+		this.compression = compression;
 		
 	}
 	
@@ -47,28 +63,18 @@ public class HSRReporterCSV implements HSRReporter {
 	 * 
 	 ****************************************************************************/
 	public void initialize() {
-		initializeCSVFile(filepath, separator);
+		writer = createWriter(filepath);
 	}
 	
 	/****************************************************************************
-	 * 
+	 * Creates the writer for the file, returns null on error.
 	 ****************************************************************************/
-	public void initializeCSVFile(String filepath, String separator) {
+	private HSRCSVWriter createWriter(String filepath) {
 		try {
-			path = Path.of(filepath);
-			String header = HSRRecordStats.getCSVHeader(separator)+"\r\n";
-			Files.deleteIfExists(path);
-			
-			Files.createDirectories(path.getParent());
-			
-			Files.write(path, header.getBytes() 
-					, StandardOpenOption.WRITE
-					, StandardOpenOption.CREATE
-					, StandardOpenOption.SYNC
-					);
-			
+			return new HSRCSVWriter(filepath, separator, flushPolicy, compression);
 		} catch (IOException e) {
 			logger.error("Error while initializing CSV file.", e);
+			return null;
 		}
 	}
 	
@@ -77,7 +83,14 @@ public class HSRReporterCSV implements HSRReporter {
 	 ****************************************************************************/
 	@Override
 	public void reportRecords(ArrayList<HSRRecordStats> records) {
-		reportToFile(filepath, records);
+		
+		if(writer == null) { return; }
+		
+		try {
+			writer.write(records);
+		} catch (IOException e) {
+			logger.error("Error while writing CSV data.", e);
+		}
 			
 	}
 	
@@ -98,51 +111,43 @@ public class HSRReporterCSV implements HSRReporter {
 			summaryFilePath = filepath + "-summary";
 		}
 
-		//----------------------------
-		// Make Summary File
-		initializeCSVFile(summaryFilePath, separator);
-		
 		//----------------------------
 		// Report to Summary File
-		reportToFile(summaryFilePath, summaryRecords);
+		HSRCSVWriter summaryWriter = createWriter(summaryFilePath);
+		if(summaryWriter == null) { return; }
+		
+		try {
+			summaryWriter.write(summaryRecords);
+		} catch (IOException e) {
+			logger.error("Error while writing CSV data.", e);
+		}finally {
+			close(summaryWriter);
+		}
 		
 	}
 	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
-	public void reportToFile(String filepath, ArrayList<HSRRecordStats> records) {
-		BufferedWriter writer = null;
+	private void close(HSRCSVWriter writer) {
 		try {
-			
-			writer = new BufferedWriter(new FileWriter(filepath, true));
-	    
-			for(HSRRecordStats record : records ) {
-				writer.write(record.toCSV(separator)+"\r\n");
-			}
-			
-			writer.flush();
-			
+			writer.close();
 		} catch (IOException e) {
-			logger.error("Error while writing CSV data.", e);
-		}finally {
-			if(writer != null) {
-				try {
-					writer.close();
-				} catch (IOException e) {
-					logger.error("Error while closing CSV file.", e);
-				}
-			}
+			logger.error("Error while closing CSV file.", e);
 		}
 	}
 	
-	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
 	@Override
 	public void terminate() {
 		
+		if(writer != null) {
+			close(writer);
+			writer = null;
+		}
+		
 	}
 	
 }
@@ -12,6 +12,12 @@ import com.xresch.hsr.base.HSRTestSettings;
  **************************************************************************************************************/
 public abstract class HSRReporterDatabase implements HSRReporter {
 
+	// maximum time to wait for the write-behind to write the remaining records on terminate
+	protected static final long WRITE_BEHIND_TIMEOUT_MILLIS = 5 * 60 * 1000;
+	
+	// maximum time to wait for a running age out to stop on terminate
+	protected static final long AGE_OUT_STOP_TIMEOUT_MILLIS = 60 * 1000;
+	
 	public abstract void firstReport(ArrayList<HSRTestSettings> testsettings);
 	
 }
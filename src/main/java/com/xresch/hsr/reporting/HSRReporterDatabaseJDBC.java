@@ -12,6 +12,7 @@ import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.base.HSRTestSettings;
 import com.xresch.hsr.database.DBInterface;
 import com.xresch.hsr.database.HSRDBInterface;
+import com.xresch.hsr.database.HSRDBWriteBehind;
 import com.xresch.hsr.stats.HSRRecordStats;
 
 import ch.qos.logback.classic.Logger;
@@ -34,6 +35,7 @@ public abstract class HSRReporterDatabaseJDBC extends HSRReporterDatabase {
 	
 	private DBInterface db;
 	private HSRDBInterface hsrDB;
+	private HSRDBWriteBehind writeBehind;
 	private int testID = -1;
 	
 	/****************************************************************************
@@ -76,7 +78,11 @@ public abstract class HSRReporterDatabaseJDBC extends HSRReporterDatabase {
 				hsrDB.initializeDB();
 				
 				if(HSRConfig.isAgeOut()) {
-					hsrDB.ageOutStatistics();
+					hsrDB.ageOutStatisticsInBackground();
+				}
+				
+				if(HSRConfig.databaseWriteBehind()) {
+					writeBehind = new HSRDBWriteBehind(hsrDB, HSRConfig.databaseWriteBehindQueueSize(), HSRConfig.databaseSpillFolder());
 				}
 			}catch(Throwable e) {
 				logger.error("Error while connecting to the database.", e);
@@ -105,7 +111,9 @@ public abstract class HSRReporterDatabaseJDBC extends HSRReporterDatabase {
 	 ****************************************************************************/
 	@Override
 	public void reportRecords(ArrayList<HSRRecordStats> records) {
-		if(isConnected()) {
+		if(writeBehind != null) {
+			writeBehind.reportRecords(testID, records);
+		}else if(isConnected()) {
 			hsrDB.reportRecords(testID, records);
 		}
 	}
@@ -128,7 +136,9 @@ public abstract class HSRReporterDatabaseJDBC extends HSRReporterDatabase {
 	public void reportSummary(ArrayList<HSRRecordStats> summaryRecords, JsonArray summaryRecordsWithSeries, TreeMap<String, String> properties, JsonObject slaForRecords, ArrayList<HSRTestSettings> testSettings) {
 		if(isConnected()) {
 			hsrDB.reportSLA(testID, slaForRecords);
-			hsrDB.reportRecordsSummary(testID, summaryRecords);
+			
+			if(writeBehind != null) { writeBehind.reportRecordsSummary(testID, summaryRecords); }
+			else 					{ hsrDB.reportRecordsSummary(testID, summaryRecords); }
 		}
 	}
 	
@@ -137,9 +147,15 @@ public abstract class HSRReporterDatabaseJDBC extends HSRReporterDatabase {
 	 ****************************************************************************/
 	@Override
 	public void terminate() {
+		if(writeBehind != null) {
+			writeBehind.terminate(WRITE_BEHIND_TIMEOUT_MILLIS);
+		}
 		if(isConnected()) {
 			hsrDB.reportEndTime(testID);
 		}
+		if(hsrDB != null) {
+			hsrDB.stopAgeOut(AGE_OUT_STOP_TIMEOUT_MILLIS);
+		}
 		if(db != null) {
 			db.closeAll(); // fixes exception on test end
 		}
@@ -12,12 +12,15 @@ import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.base.HSRTestSettings;
 import com.xresch.hsr.database.DBInterface;
 import com.xresch.hsr.database.HSRDBInterface;
+import com.xresch.hsr.database.HSRDBInterfacePostgres;
+import com.xresch.hsr.database.HSRDBWriteBehind;
 import com.xresch.hsr.stats.HSRRecordStats;
 
 import ch.qos.logback.classic.Logger;
 
 /**************************************************************************************************************
  * This reporter stores the data in a Postgres Database.
+ * The statistics are written with COPY by default, see HSRDBInterfacePostgres.
  * 
  * @author Reto Scheiwiller, (c) Copyright 2025
  * @license EPL-License
@@ -32,9 +35,11 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 	private String tableNamePrefix;
 	private String username;
 	private String password;
+	private boolean useCopy = true;
 	
 	private DBInterface db;         
 	HSRDBInterface hsrDB;           
+	private HSRDBWriteBehind writeBehind;
 	
 	private int testID = -1;
 	
@@ -65,6 +70,31 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 		
 	}		
 	
+	/****************************************************************************
+	 * 
+	 * @param servername name of the database server
+	 * @param port the database port
+	 * @param dbName the name of the database
+	 * @param tableNamePrefix the name prefix that should be used for the tables (will be created)
+	 * @param username the username for accessing the database
+	 * @param password the password for accessing the database
+	 * @param useCopy true to write the statistics with COPY (default), false to 
+	 * use batched INSERT statements
+	 ****************************************************************************/
+	public HSRReporterDatabasePostGres(
+			  String servername
+			, int port
+			, String dbName
+			, String tableNamePrefix
+			, String username
+			, String password
+			, boolean useCopy
+			){
+		
+		this(servername, port, dbName, tableNamePrefix, username, password);
+		this.useCopy = useCopy;
+	}
+	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
@@ -77,11 +107,15 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 			try {
 				db = DBInterface.createDBInterfacePostgres(uniqueName, servername, port, dbName, username, password);
 	
-				hsrDB = new HSRDBInterface(db, tableNamePrefix);
+				hsrDB = new HSRDBInterfacePostgres(db, tableNamePrefix, useCopy);
 				hsrDB.initializeDB();
 				
 				if(HSRConfig.isAgeOut()) {
-					hsrDB.ageOutStatistics();
+					hsrDB.ageOutStatisticsInBackground();
+				}
+				
+				if(HSRConfig.databaseWriteBehind()) {
+					writeBehind = new HSRDBWriteBehind(hsrDB, HSRConfig.databaseWriteBehindQueueSize(), HSRConfig.databaseSpillFolder());
 				}
 			}catch(Throwable e) {
 				logger.error("Error while connecting to the database.", e);
@@ -102,7 +136,9 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 	 ****************************************************************************/
 	@Override
 	public void reportRecords(ArrayList<HSRRecordStats> records) {
-		if(isConnected()) {
+		if(writeBehind != null) {
+			writeBehind.reportRecords(testID, records);
+		}else if(isConnected()) {
 			hsrDB.reportRecords(testID, records);
 		}
 	}
@@ -125,7 +161,9 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 	public void reportSummary(ArrayList<HSRRecordStats> summaryRecords, JsonArray summaryRecordsWithSeries, TreeMap<String, String> properties, JsonObject slaForRecords, ArrayList<HSRTestSettings> testSettings) {
 		if(isConnected()) {
 			hsrDB.reportSLA(testID, slaForRecords);
-			hsrDB.reportRecordsSummary(testID, summaryRecords);
+			
+			if(writeBehind != null) { writeBehind.reportRecordsSummary(testID, summaryRecords); }
+			else 					{ hsrDB.reportRecordsSummary(testID, summaryRecords); }
 		}
 	}
 	
@@ -134,9 +172,15 @@ public class HSRReporterDatabasePostGres extends HSRReporterDatabase {
 	 ****************************************************************************/
 	@Override
 	public void terminate() {
+		if(writeBehind != null) {
+			writeBehind.terminate(WRITE_BEHIND_TIMEOUT_MILLIS);
+		}
 		if(isConnected()) {
 			hsrDB.reportEndTime(testID);
 		}
+		if(hsrDB != null) {
+			hsrDB.stopAgeOut(AGE_OUT_STOP_TIMEOUT_MILLIS);
+		}
 		if(db != null) {
 			db.closeAll(); // fixes exception on test end
 		}
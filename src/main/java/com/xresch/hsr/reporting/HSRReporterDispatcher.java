@@ -0,0 +1,302 @@
+package com.xresch.hsr.reporting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xresch.hsr.stats.HSRRecordStats;
+
+/**************************************************************************************************************
+ * Dispatches the statistics of every report interval to one reporter.
+ * Each dispatcher has a bounded queue and one worker thread that calls HSRReporter.reportRecords() for the
+ * queued batches in order. A slow reporter therefore does not create additional threads, what happens
+ * when the queue is full is defined by the OverflowPolicy.
+ * The dispatcher keeps track of the queue size, the time the reporter needs and the batches that have
+ * been dropped, which are reported by the stats engine as self-monitoring statistics.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRReporterDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(HSRReporterDispatcher.class);
+
+	/******************************************************************************
+	 * Defines what happens when a batch is dispatched while the queue is full.
+	 ******************************************************************************/
+	public enum OverflowPolicy {
+		/** Wait until the reporter has processed a batch. Slows down the stats engine. */
+		BLOCK
+		/** Remove the oldest batch from the queue, the records of that batch are lost. */
+		, DROP_OLDEST
+		/** Add the records to the newest batch in the queue, the reporter gets multiple intervals in one call. */
+		, COALESCE
+	}
+
+	/******************************************************************************
+	 * Statistics of the dispatcher since the last call of pollStatistics().
+	 *
+	 * @param queueSize number of batches currently in the queue
+	 * @param reportedBatches number of batches reported
+	 * @param avgLatencyMillis average duration of reportRecords() in milliseconds
+	 * @param maxLatencyMillis maximum duration of reportRecords() in milliseconds
+	 * @param droppedBatches number of batches that have been dropped
+	 ******************************************************************************/
+	public record DispatchStatistics(
+			  int queueSize
+			, long reportedBatches
+			, double avgLatencyMillis
+			, double maxLatencyMillis
+			, long droppedBatches
+		) {}
+
+	private final HSRReporter reporter;
+	private final int capacity;
+	private final OverflowPolicy policy;
+
+	private final ArrayDeque<ArrayList<HSRRecordStats>> queue = new ArrayDeque<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition idle = lock.newCondition();
+
+	private final Thread worker;
+	private boolean isStopped = false;
+	private boolean isBusy = false;
+
+	//----------------------
+	// Statistics
+	private long reportedBatches = 0;
+	private long latencySumNanos = 0;
+	private long latencyMaxNanos = 0;
+	private long droppedBatches = 0;
+
+	/******************************************************************************
+	 * Creates a dispatcher and starts its worker thread.
+	 *
+	 * @param reporter the reporter to dispatch to
+	 * @param capacity the maximum number of batches in the queue, minimum 1
+	 * @param policy the policy used when the queue is full
+	 ******************************************************************************/
+	public HSRReporterDispatcher(HSRReporter reporter, int capacity, OverflowPolicy policy){
+
+		this.reporter = reporter;
+		this.capacity = Math.max(1, capacity);
+		this.policy = (policy != null) ? policy : OverflowPolicy.BLOCK;
+
+		worker = new Thread(this::work);
+		worker.setName("hsr-reporter-" + reporter.getClass().getSimpleName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/******************************************************************************
+	 * Returns the reporter of this dispatcher.
+	 ******************************************************************************/
+	public HSRReporter reporter() {
+		return reporter;
+	}
+
+	/******************************************************************************
+	 * Adds the records to the queue of the reporter. Depending on the overflow
+	 * policy this method blocks until there is space in the queue.
+	 *
+	 * @param records the records to report, the list will be owned by the
+	 * dispatcher and must not be modified afterwards.
+	 ******************************************************************************/
+	public void dispatch(ArrayList<HSRRecordStats> records) {
+
+		lock.lock();
+		try {
+
+			if(isStopped) {
+				logger.warn("Dispatcher stopped, records not reported to: " + reporter.getClass().getSimpleName());
+				return;
+			}
+
+			//---------------------------
+			// Handle Full Queue
+			if(queue.size() >= capacity) {
+				switch(policy) {
+
+					case BLOCK -> {
+						while(queue.size() >= capacity && !isStopped) {
+							notFull.awaitUninterruptibly();
+						}
+						if(isStopped) { return; }
+					}
+
+					case DROP_OLDEST -> {
+						queue.pollFirst();
+						droppedBatches++;
+						logger.warn("Reporter queue full, dropped oldest records for: " + reporter.getClass().getSimpleName());
+					}
+
+					case COALESCE -> {
+						queue.peekLast().addAll(records);
+						return;
+					}
+				}
+			}
+
+			queue.addLast(records);
+			notEmpty.signal();
+
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/******************************************************************************
+	 * Worker loop, reports the batches in the order they have been queued.
+	 ******************************************************************************/
+	private void work() {
+
+		while(true) {
+
+			//---------------------------
+			// Take next Batch
+			ArrayList<HSRRecordStats> batch;
+
+			lock.lock();
+			try {
+				while(queue.isEmpty() && !isStopped) {
+					notEmpty.awaitUninterruptibly();
+				}
+
+				if(queue.isEmpty()) { return; } // stopped and drained
+
+				batch = queue.pollFirst();
+				isBusy = true;
+				notFull.signalAll();
+			}finally {
+				lock.unlock();
+			}
+
+			//---------------------------
+			// Report
+			long startNanos = System.nanoTime();
+			try {
+				logger.debug("Report data to: " + reporter.getClass().getName());
+				reporter.reportRecords(batch);
+			}catch(Throwable e) {
+				logger.error("Exception while reporting data to " + reporter.getClass().getSimpleName() + ": " + e.getMessage(), e);
+			}
+			long durationNanos = System.nanoTime() - startNanos;
+
+			//---------------------------
+			// Update Statistics
+			lock.lock();
+			try {
+				reportedBatches++;
+				latencySumNanos += durationNanos;
+				latencyMaxNanos = Math.max(latencyMaxNanos, durationNanos);
+
+				isBusy = false;
+				if(queue.isEmpty()) { idle.signalAll(); }
+			}finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/******************************************************************************
+	 * Waits until all queued batches have been reported.
+	 *
+	 * @param timeoutMillis maximum time to wait
+	 * @return true if drained, false if the timeout has been reached
+	 ******************************************************************************/
+	public boolean drain(long timeoutMillis) {
+
+		long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+		lock.lock();
+		try {
+			while( (!queue.isEmpty() || isBusy) && worker.isAlive() ) {
+
+				if(remainingNanos <= 0) {
+					logger.warn("Timeout while waiting for reporter to finish: " + reporter.getClass().getSimpleName());
+					return false;
+				}
+
+				remainingNanos = idle.awaitNanos(remainingNanos);
+			}
+
+			return true;
+
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/******************************************************************************
+	 * Reports all queued batches and stops the worker thread.
+	 *
+	 * @param timeoutMillis maximum time to wait for the queued batches
+	 ******************************************************************************/
+	public void stop(long timeoutMillis) {
+
+		drain(timeoutMillis);
+
+		lock.lock();
+		try {
+			isStopped = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/******************************************************************************
+	 * Returns the number of batches in the queue.
+	 ******************************************************************************/
+	public int queueSize() {
+
+		lock.lock();
+		try {
+			return queue.size();
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/******************************************************************************
+	 * Returns the statistics since the last call of this method and resets them.
+	 ******************************************************************************/
+	public DispatchStatistics pollStatistics() {
+
+		lock.lock();
+		try {
+
+			double avgMillis = (reportedBatches == 0) ? 0 : (latencySumNanos / (double)reportedBatches) / 1_000_000d;
+
+			DispatchStatistics result = new DispatchStatistics(
+					  queue.size()
+					, reportedBatches
+					, avgMillis
+					, latencyMaxNanos / 1_000_000d
+					, droppedBatches
+				);
+
+			reportedBatches = 0;
+			latencySumNanos = 0;
+			latencyMaxNanos = 0;
+			droppedBatches = 0;
+
+			return result;
+
+		}finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -1,6 +1,5 @@
 package com.xresch.hsr.reporting;
 
-import java.math.BigDecimal;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -217,17 +216,23 @@ public class HSRReporterEMP implements HSRReporter {
 		//-------------------------------
 		// Common information
 		
+		StringBuilder builderOK = new StringBuilder(recordOK);
+		StringBuilder builderNOK = new StringBuilder(recordNOK);
+		
 		for(HSRMetric metric : HSRMetric.values()) {
 			
-			BigDecimal valueOK = record.getValue(HSRRecordState.ok, metric);
-			BigDecimal valueNOK = record.getValue(HSRRecordState.nok, metric);
+			int indexOK = HSRRecordStats.valueIndex(HSRRecordState.ok, metric);
+			int indexNOK = HSRRecordStats.valueIndex(HSRRecordState.nok, metric);
+			
+			builderOK.append(SEPARATOR);
+			if(record.hasValue(indexOK)) { HSRRecordStats.appendValue(builderOK, record.getValueDouble(indexOK)); }
 			
-			recordOK += SEPARATOR + ( (valueOK != null) ? valueOK : "") ;
-			recordNOK += SEPARATOR + ( (valueNOK != null) ? valueNOK : "");
+			builderNOK.append(SEPARATOR);
+			if(record.hasValue(indexNOK)) { HSRRecordStats.appendValue(builderNOK, record.getValueDouble(indexNOK)); }
 		}
 		
-		csv.append("\r\n"+recordOK);
-		csv.append("\r\n"+recordNOK);
+		csv.append("\r\n").append(builderOK);
+		csv.append("\r\n").append(builderNOK);
 
 	}
 
@@ -1,10 +1,13 @@
 package com.xresch.hsr.reporting;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.TreeMap;
 import java.util.zip.ZipInputStream;
@@ -12,17 +15,28 @@ import java.util.zip.ZipInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.xresch.hsr.base.HSR;
 import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.base.HSRTestSettings;
 import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRSeriesDownsampler;
 import com.xresch.hsr.utils.HSRReportUtils;
 
 /**************************************************************************************************************
- * This reporter writes report data to a CSV file.
- * You might choose the separator for your CSV data so that you can properly delimit your data.
+ * This reporter writes the summary as a HTML report into a directory. The data is written to the file
+ * data.js, which is loaded by report.html.
+ * 
+ * For long running tests the report can be chunked: data.js then only contains the series of every record
+ * downsampled to a maximum number of points, which are used for the tables and overview charts. The full 
+ * series of a record is written to a separate file in the folder "series", which is loaded by the report
+ * when the details of the record are opened.
  * 
  * @author Reto Scheiwiller, (c) Copyright 2025
  * @license EPL-License
@@ -32,16 +46,40 @@ public class HSRReporterHTML implements HSRReporter {
 
 	private static final Logger logger = LoggerFactory.getLogger(HSRReporterHTML.class);
 	
+	private static final String SERIES_FOLDER = "series";
+	
+	private static final Gson GSON = new GsonBuilder()
+											.serializeNulls()
+											.disableHtmlEscaping()
+											.create();
+	
 	private String directoryPath; // e.g. "./target/hieraReport"
 	private String finalDirectoryPath; // might get a number attached
 	private Path path;
 	
 	private int initCounter = 0;
 	
+	// max number of points per series in data.js, 0 or less to disable chunking
+	private int maxPreviewPoints = 0;
+	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
 	public HSRReporterHTML(String directoryPath) {
+		this(directoryPath, 0);
+	}
+	
+	/****************************************************************************
+	 * 
+	 * @param directoryPath the directory the report is written to
+	 * @param maxPreviewPoints if greater than zero, series with more points are 
+	 * downsampled to this amount of points in data.js and their full series is
+	 * written to a separate file, which is loaded on demand by the report.
+	 * A value of 200 to 500 is a good start for long running tests.
+	 ****************************************************************************/
+	public HSRReporterHTML(String directoryPath, int maxPreviewPoints) {
+		
+		this.maxPreviewPoints = maxPreviewPoints;
 		
 		if(directoryPath.endsWith("/")
 		|| directoryPath.endsWith("\\")) {
@@ -108,16 +146,100 @@ public class HSRReporterHTML implements HSRReporter {
     	data.add("sla", slaForRecords);
     	data.add("records", summaryRecordsWithSeries);
     	
+    	//-----------------------------------
+    	// Chunk Series
+    	if(maxPreviewPoints > 0) {
+    		writeSeriesFiles(summaryRecordsWithSeries);
+    	}
+    	
 		//-----------------------------------
 		// Add to data.js
-		String javascript = "DATA = DATA.concat(\n" + HSR.JSON.toJSON(data) + "\n);";
-		HSRReportUtils.writeStringToFile(finalDirectoryPath, "data.js", javascript);
+    	writeJavascriptFile("data.js", "DATA = DATA.concat(\n", data, "\n);");
 		
 	}
 	
+	/****************************************************************************
+	 * Writes the full series of every record that has more than maxPreviewPoints
+	 * to a separate file and replaces it in the record with a downsampled series.
+	 * The path of the file is added to the record as "seriesfile".
+	 ****************************************************************************/
+	private void writeSeriesFiles(JsonArray records) {
+		
+		int index = 0;
+		for(JsonElement element : records) {
+			
+			JsonObject record = element.getAsJsonObject();
+			JsonElement series = record.get("series");
+			
+			if(series == null || !series.isJsonObject()) { continue; }
+			
+			//-----------------------------------
+			// Downsample
+			boolean isGauge = HSRSeriesDownsampler.isGauge(record);
+			JsonObject fullSeries = series.getAsJsonObject();
+			JsonObject preview = HSRSeriesDownsampler.minAvgMax(fullSeries, maxPreviewPoints, isGauge);
+			
+			if(preview == fullSeries) { continue; } // small enough
+			
+			//-----------------------------------
+			// Write Full Series
+			// unique file names allow to combine reports of multiple runs
+			String filename = SERIES_FOLDER + "/" + HSRConfig.STARTTIME_MILLIS + "_" + index + ".js";
+			String key = "./" + filename;
+			index++;
+			
+			boolean success = writeJavascriptFile(
+					  filename
+					, "SERIES_DATA[\"" + key + "\"] = "
+					, fullSeries
+					, ";"
+				);
+			
+			if(success) {
+				record.add("series", preview);
+				record.addProperty("seriesfile", key);
+			}
+		}
+	}
+	
+	/****************************************************************************
+	 * Streams the JSON to a file in the report directory, surrounded by the 
+	 * given prefix and suffix.
+	 * 
+	 * @return true if successful
+	 ****************************************************************************/
+	private boolean writeJavascriptFile(String filename, String prefix, JsonElement json, String suffix) {
+		
+		Path filepath = Paths.get(finalDirectoryPath, filename);
+		
+		try {
+			Files.createDirectories(filepath.getParent());
+			
+			try(BufferedWriter writer = Files.newBufferedWriter(filepath, StandardCharsets.UTF_8)){
+				writer.write(prefix);
+				GSON.toJson(json, new JsonWriter(writer));
+				writer.write(suffix);
+			}
+			
+			return true;
+			
+		} catch (IOException | JsonIOException e) {
+			logger.error("Error while writing report file: "+filepath, e);
+			return false;
+		}
+	}
+	
 
 	
 	
+	/****************************************************************************
+	 * Chunked reports write the full series to separate files.
+	 ****************************************************************************/
+	@Override
+	public boolean requiresRawSeries() {
+		return maxPreviewPoints > 0;
+	}
+	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
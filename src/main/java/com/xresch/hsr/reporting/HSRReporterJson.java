@@ -11,9 +11,13 @@ import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
-import com.xresch.hsr.base.HSR;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
 import com.xresch.hsr.base.HSRTestSettings;
 import com.xresch.hsr.stats.HSRRecordStats;
 
@@ -21,6 +25,8 @@ import com.xresch.hsr.stats.HSRRecordStats;
  * This reporter writes json data to a file. the file will be written as
  * one json object per line. Every line is a valid JSON string.
  * The whole file itself is not a valid JSON string as it is not an array.
+ * The records and the summary are streamed to the file with a JsonWriter, no JSON strings are created
+ * in memory.
  * 
  * @author Reto Scheiwiller, (c) Copyright 2025
  * @license EPL-License
@@ -29,12 +35,19 @@ public class HSRReporterJson implements HSRReporter {
 
 	private static final Logger logger = LoggerFactory.getLogger(HSRReporterJson.class);
 	
+	// used to stream JsonElements, same output as JsonElement.toString()
+	private static final Gson GSON = new GsonBuilder()
+											.serializeNulls()
+											.disableHtmlEscaping()
+											.create();
+	
 	private boolean makeArray = false;
 	private boolean isFirst = true;
 	private String filepath = "";
 	private String arrayComma = "";
 	
 	BufferedWriter writer = null;
+	JsonWriter jsonWriter = null;
 	
 	/****************************************************************************
 	 * 
@@ -60,6 +73,10 @@ public class HSRReporterJson implements HSRReporter {
 	 ****************************************************************************/
 	public void initialize() {
 		writer = createFile(filepath, makeArray);
+		
+		if(writer != null) {
+			jsonWriter = createJsonWriter(writer);
+		}
 	}
 	
 	/****************************************************************************
@@ -86,21 +103,40 @@ public class HSRReporterJson implements HSRReporter {
 		return null;
 	}
 	
+	/****************************************************************************
+	 * Creates a JsonWriter that writes directly to the writer. The writer is 
+	 * lenient, to allow multiple JSON values per file and NaN values.
+	 * As JsonWriter does not buffer, separators can be written to the underlying
+	 * writer in between values.
+	 ****************************************************************************/
+	private static JsonWriter createJsonWriter(BufferedWriter writer) {
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.setStrictness(Strictness.LENIENT);
+		jsonWriter.setHtmlSafe(false);
+		jsonWriter.setSerializeNulls(true);
+		
+		return jsonWriter;
+	}
+	
 	/****************************************************************************
 	 * 
 	 ****************************************************************************/
 	@Override
 	public void reportRecords(ArrayList<HSRRecordStats> records) {
 
+		if(jsonWriter == null) { return; }
+		
 		try {
 
 			for(HSRRecordStats record : records ) {
 				if(!isFirst) { // yep, all just because of one comma
-					writer.write(arrayComma + " " + record.toJsonString() + "\r\n");
+					writer.write(arrayComma + " ");
 				}else {
-					writer.write(record.toJsonString() + "\r\n");
 					isFirst = false;
 				}
+				
+				record.writeJson(jsonWriter);
+				writer.write("\r\n");
 			}
 
 		} catch (IOException e) {
@@ -129,19 +165,21 @@ public class HSRReporterJson implements HSRReporter {
 		//--------------------------------
 		// Create File
 		BufferedWriter writer = createFile(summaryFilePath, false);
+		if(writer == null) { return; }
+		
+		//--------------------------------
+		// Stream Summary
 		try {
-			writer.write(HSR.JSON.toJSON(summaryRecordsWithSeries));
+			GSON.toJson(summaryRecordsWithSeries, createJsonWriter(writer));
 			writer.flush();
 			
-		} catch (IOException e) {
+		} catch (IOException | JsonIOException e) {
 			logger.error("Error while writing JSON data to file.", e);
 		}finally {
-			if(writer != null) {
-				try {
-					writer.close();
-				} catch (IOException e) {
-					logger.error("Error while closing JSON file writer.", e);
-				}
+			try {
+				writer.close();
+			} catch (IOException e) {
+				logger.error("Error while closing JSON file writer.", e);
 			}
 		}
 		
@@ -152,6 +190,9 @@ public class HSRReporterJson implements HSRReporter {
 	 ****************************************************************************/
 	@Override
 	public void terminate() {
+		
+		if(writer == null) { return; }
+		
 		try {
 			
 			if(makeArray) {
@@ -163,13 +204,13 @@ public class HSRReporterJson implements HSRReporter {
 		} catch (IOException e) {
 			logger.error("Error while writing JSON data to file.", e);
 		}finally {
-			if(writer != null) {
-				try {
-					writer.close();
-				} catch (IOException e) {
-					logger.error("Error while closing JSON file writer.", e);
-				}
+			try {
+				writer.close();
+			} catch (IOException e) {
+				logger.error("Error while closing JSON file writer.", e);
 			}
+			writer = null;
+			jsonWriter = null;
 		}
 	}
 
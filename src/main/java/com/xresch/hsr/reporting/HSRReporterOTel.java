@@ -1,6 +1,5 @@
 package com.xresch.hsr.reporting;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.TreeMap;
@@ -176,12 +175,12 @@ public class HSRReporterOTel implements HSRReporter {
 	    	for(HSRMetric metric : HSRMetric.values()) {
 				
 	    		
-				DoubleGauge gauge = metricsMap.get(metric);
+				DoubleGauge gauge = metricsMap.get(metric.toString());
 				
 				if(record.hasDataOK()) {
-					 BigDecimal value = record.getValue(HSRRecordState.ok, metric);
+					 double value = record.getValueDouble(HSRRecordState.ok, metric);
 					 gauge.set(
-							   value.longValue()
+							   (long)value
 							 , Attributes.builder()
 									   .put(TEST, record.test())
 									   .put(USECASE, record.usecase())
@@ -196,9 +195,9 @@ public class HSRReporterOTel implements HSRReporter {
 				}
 				
 				if(record.hasDataNOK()) {
-					BigDecimal value = record.getValue(HSRRecordState.nok, metric);
+					double value = record.getValueDouble(HSRRecordState.nok, metric);
 					gauge.set(
-							   value.longValue()
+							   (long)value
 							 , Attributes.builder()
 								   .put(TEST, record.test())
 								   .put(USECASE, record.usecase())
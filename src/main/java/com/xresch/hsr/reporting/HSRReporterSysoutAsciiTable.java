@@ -1,6 +1,5 @@
 package com.xresch.hsr.reporting;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.TreeMap;
 
@@ -60,6 +59,7 @@ public class HSRReporterSysoutAsciiTable implements HSRReporter {
 
 	    // Convert all records into row lists
 	    ArrayList<ArrayList<String>> rows = new ArrayList<>();
+	    int[] valueIndexes = HSRRecordStats.valueNameIndexes();
 
 	    for (HSRRecordStats record : records) {
 	        ArrayList<String> row = new ArrayList<>();
@@ -80,9 +80,10 @@ public class HSRReporterSysoutAsciiTable implements HSRReporter {
 	        row.add(record.code());
 	        row.add(String.valueOf(record.granularity()));
 
-	        for (String valueName : HSRRecordStats.valueNames) {
-	            BigDecimal val = record.getValues().get(valueName);
-	            row.add(val == null ? "0" : val.stripTrailingZeros().toPlainString());
+	        for (int index : valueIndexes) {
+	        	StringBuilder value = new StringBuilder();
+	        	HSRRecordStats.appendValue(value, record.hasValue(index) ? record.getValueDouble(index) : 0);
+	            row.add(value.toString());
 	        }
 
 	        rows.add(row);
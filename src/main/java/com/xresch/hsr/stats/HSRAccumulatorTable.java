@@ -0,0 +1,163 @@
+package com.xresch.hsr.stats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**************************************************************************************************************
+ * Table of accumulators indexed by the metric id of the HSRMetricRegistry.
+ * As metric ids are small consecutive integers, the accumulators are stored in pages of arrays instead of
+ * a hash map. Looking up an accumulator does not need to calculate any hash or box the key.
+ * Pages are only created for ranges of ids that are actually used.
+ *
+ * Lookups and inserts are thread safe and do not block, only adding a new page is synchronized.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRAccumulatorTable {
+
+	private static final int PAGE_BITS = 8;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private volatile AtomicReferenceArray<HSRRecordAccumulator>[] pages;
+	private final AtomicInteger size = new AtomicInteger(0);
+	private volatile boolean closed = false;
+
+	/******************************************************************************
+	 * Creates an empty table.
+	 ******************************************************************************/
+	public HSRAccumulatorTable(){
+		int pageCount = Math.max(1, (HSRMetricRegistry.metricCount() >> PAGE_BITS) + 1);
+		pages = newPages(pageCount);
+	}
+	
+	/******************************************************************************
+	 * Creates the array for the pages, generic arrays cannot be created directly.
+	 ******************************************************************************/
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static AtomicReferenceArray<HSRRecordAccumulator>[] newPages(int pageCount) {
+		return new AtomicReferenceArray[pageCount];
+	}
+
+	/******************************************************************************
+	 * Returns the accumulator with the given id or null if there is none.
+	 ******************************************************************************/
+	public HSRRecordAccumulator get(int id) {
+
+		AtomicReferenceArray<HSRRecordAccumulator>[] current = pages;
+		int pageIndex = id >>> PAGE_BITS;
+
+		if(pageIndex >= current.length) { return null; }
+
+		AtomicReferenceArray<HSRRecordAccumulator> page = current[pageIndex];
+		if(page == null) { return null; }
+
+		return page.get(id & PAGE_MASK);
+	}
+
+	/******************************************************************************
+	 * Returns the accumulator with the given id, creates it with the factory if
+	 * it does not exist. If multiple threads create the same accumulator at the
+	 * same time, all of them get the same instance.
+	 * 
+	 * Returns null if the table has been closed, as an accumulator that is created
+	 * after the close might not be seen by the stats engine anymore. The caller
+	 * has to use the table of the next interval instead.
+	 ******************************************************************************/
+	public HSRRecordAccumulator getOrCreate(int id, Supplier<HSRRecordAccumulator> factory) {
+
+		HSRRecordAccumulator accumulator = get(id);
+		
+		if(accumulator == null) {
+			AtomicReferenceArray<HSRRecordAccumulator> page = getOrCreatePage(id >>> PAGE_BITS);
+	
+			HSRRecordAccumulator created = factory.get();
+			if( page.compareAndSet(id & PAGE_MASK, null, created) ) {
+				size.incrementAndGet();
+				accumulator = created;
+			}else {
+				accumulator = page.get(id & PAGE_MASK);
+			}
+		}
+
+		// check after the lookup, the accumulator might have been 
+		// added after the close pass of the stats engine
+		if(closed) { return null; }
+		
+		return accumulator;
+	}
+	
+	/******************************************************************************
+	 * Marks the table as closed. Has to be called before the accumulators are 
+	 * collected with forEach(), getOrCreate() will return null afterwards.
+	 ******************************************************************************/
+	public void close() {
+		closed = true;
+	}
+	
+	/******************************************************************************
+	 * Returns true if the table has been closed.
+	 ******************************************************************************/
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/******************************************************************************
+	 * Returns the page with the given index, creates it if necessary.
+	 ******************************************************************************/
+	private synchronized AtomicReferenceArray<HSRRecordAccumulator> getOrCreatePage(int pageIndex) {
+
+		AtomicReferenceArray<HSRRecordAccumulator>[] current = pages;
+
+		if(pageIndex >= current.length) {
+			AtomicReferenceArray<HSRRecordAccumulator>[] grown = newPages( Math.max(pageIndex + 1, current.length * 2) );
+			System.arraycopy(current, 0, grown, 0, current.length);
+			current = grown;
+		}
+
+		if(current[pageIndex] == null) {
+			current[pageIndex] = new AtomicReferenceArray<>(PAGE_SIZE);
+		}
+
+		// publish after the page has been set
+		pages = current;
+
+		return current[pageIndex];
+	}
+
+	/******************************************************************************
+	 * Returns true if the table does not contain any accumulator.
+	 ******************************************************************************/
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/******************************************************************************
+	 * Returns the number of accumulators in this table.
+	 ******************************************************************************/
+	public int size() {
+		return size.get();
+	}
+
+	/******************************************************************************
+	 * Passes all the accumulators to the consumer, ordered by id.
+	 ******************************************************************************/
+	public void forEach(Consumer<HSRRecordAccumulator> consumer) {
+
+		for(AtomicReferenceArray<HSRRecordAccumulator> page : pages) {
+
+			if(page == null) { continue; }
+
+			for(int i = 0; i < PAGE_SIZE; i++) {
+				HSRRecordAccumulator accumulator = page.get(i);
+				if(accumulator != null) {
+					consumer.accept(accumulator);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,322 @@
+package com.xresch.hsr.stats;
+
+/**************************************************************************************************************
+ * A log-linear histogram with primitive long counters, similar to the approach of HdrHistogram.
+ * Every power of two range is split into a fixed number of linear sub-buckets, the number of sub-buckets
+ * is defined by the precision in significant digits. A value is recorded in O(1) by incrementing the
+ * counter of its bucket, the memory used only depends on the range of the recorded values and not on
+ * the amount of values.
+ *
+ * Min, max and the average are tracked exactly, percentiles are calculated from the buckets and have a
+ * relative error that depends on the precision. The standard deviation is not provided by the histogram,
+ * it is tracked exactly by HSRMoments.
+ *
+ * This class is not thread safe, synchronize externally if values are recorded concurrently.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRHistogram {
+
+	// values with a smaller absolute value are counted as zero
+	private static final int MIN_EXPONENT = -30;
+
+	private final int precision;
+	private final int subBucketBits;
+	private final int subBucketCount;
+
+	private final Buckets positive = new Buckets();
+	private final Buckets negative = new Buckets();
+	private long zeroCount = 0;
+
+	private long count = 0;
+	private double sum = 0;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+	/******************************************************************************
+	 * Creates a histogram with a precision of 2 significant digits.
+	 ******************************************************************************/
+	public HSRHistogram(){
+		this(2);
+	}
+
+	/******************************************************************************
+	 * Creates a histogram.
+	 *
+	 * @param precision number of significant digits between 1 and 5, higher
+	 * values are more precise but use more memory.
+	 ******************************************************************************/
+	public HSRHistogram(int precision){
+
+		this.precision = Math.max(1, Math.min(5, precision));
+
+		int minSubBuckets = (int)Math.pow(10, this.precision);
+		this.subBucketBits = 32 - Integer.numberOfLeadingZeros(minSubBuckets - 1);
+		this.subBucketCount = 1 << subBucketBits;
+	}
+
+	/******************************************************************************
+	 * Returns the precision in significant digits.
+	 ******************************************************************************/
+	public int precision() {
+		return precision;
+	}
+
+	/******************************************************************************
+	 * Records a value.
+	 ******************************************************************************/
+	public void recordValue(double value) {
+		recordValue(value, 1);
+	}
+	
+	/******************************************************************************
+	 * Records a value multiple times.
+	 *
+	 * @param value the value to record
+	 * @param times how many times the value should be recorded
+	 ******************************************************************************/
+	public void recordValue(double value, long times) {
+
+		if(Double.isNaN(value) || times <= 0) { return; }
+
+		//----------------------------
+		// Exact Values
+		if(count == 0) {
+			min = value;
+			max = value;
+		}else {
+			if(value < min) { min = value; }
+			if(value > max) { max = value; }
+		}
+
+		count += times;
+		sum += value * times;
+
+		//----------------------------
+		// Increase Bucket
+		double absolute = Math.abs(value);
+		if(absolute == 0 || Math.getExponent(absolute) < MIN_EXPONENT) {
+			zeroCount += times;
+		}else if(value > 0) {
+			positive.increment(bucketIndex(absolute), times);
+		}else {
+			negative.increment(bucketIndex(absolute), times);
+		}
+	}
+
+	/******************************************************************************
+	 * Adds all the values of another histogram to this histogram.
+	 * Both histograms should have the same precision.
+	 ******************************************************************************/
+	public void add(HSRHistogram other) {
+
+		if(other == null || other.count == 0) { return; }
+
+		if(other.subBucketBits != this.subBucketBits) {
+			throw new IllegalArgumentException("Cannot add histograms with different precision.");
+		}
+
+		if(count == 0) {
+			min = other.min;
+			max = other.max;
+		}else {
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+		}
+
+		count += other.count;
+		sum += other.sum;
+		zeroCount += other.zeroCount;
+		positive.add(other.positive);
+		negative.add(other.negative);
+	}
+
+	/******************************************************************************
+	 * Removes all values from the histogram.
+	 ******************************************************************************/
+	public void reset() {
+		positive.reset();
+		negative.reset();
+		zeroCount = 0;
+		count = 0;
+		sum = 0;
+		min = Double.NaN;
+		max = Double.NaN;
+	}
+
+	/******************************************************************************
+	 * Returns the number of recorded values.
+	 ******************************************************************************/
+	public long getCount() {
+		return count;
+	}
+
+	/******************************************************************************
+	 * Returns the sum of all recorded values.
+	 ******************************************************************************/
+	public double getSum() {
+		return sum;
+	}
+
+	/******************************************************************************
+	 * Returns the smallest recorded value, NaN if the histogram is empty.
+	 ******************************************************************************/
+	public double getMin() {
+		return min;
+	}
+
+	/******************************************************************************
+	 * Returns the biggest recorded value, NaN if the histogram is empty.
+	 ******************************************************************************/
+	public double getMax() {
+		return max;
+	}
+
+	/******************************************************************************
+	 * Returns the average of the recorded values, NaN if the histogram is empty.
+	 ******************************************************************************/
+	public double getMean() {
+		if(count == 0) { return Double.NaN; }
+		return sum / count;
+	}
+
+	/******************************************************************************
+	 * Returns the value at the given percentile, using the same nearest rank
+	 * definition as HSRStatsEngine.percentileRank().
+	 * The value is the middle of the bucket containing the rank, limited by the
+	 * exact min and max values.
+	 *
+	 * @param percentile a value between 0 and 100
+	 * @return value or NaN if the histogram is empty
+	 ******************************************************************************/
+	public double getValueAtPercentile(double percentile) {
+
+		if(count == 0) { return Double.NaN; }
+
+		long rank = HSRStatsEngine.percentileRank(percentile, count);
+
+		long seen = 0;
+		double result = max;
+
+		found:
+		{
+			//----------------------------
+			// Negative, biggest absolute value first
+			for(int i = negative.counts.length - 1; i >= 0; i--) {
+				seen += negative.counts[i];
+				if(seen >= rank) {
+					result = -bucketValue(negative.offset + i);
+					break found;
+				}
+			}
+
+			//----------------------------
+			// Zero
+			seen += zeroCount;
+			if(seen >= rank) {
+				result = 0;
+				break found;
+			}
+
+			//----------------------------
+			// Positive
+			for(int i = 0; i < positive.counts.length; i++) {
+				seen += positive.counts[i];
+				if(seen >= rank) {
+					result = bucketValue(positive.offset + i);
+					break found;
+				}
+			}
+		}
+
+		return Math.max(min, Math.min(max, result));
+	}
+
+	/******************************************************************************
+	 * Returns the bucket index for a positive value.
+	 ******************************************************************************/
+	private int bucketIndex(double absoluteValue) {
+
+		long bits = Double.doubleToRawLongBits(absoluteValue);
+		int exponent = (int)((bits >>> 52) & 0x7FF) - 1023;
+		int subBucket = (int)( (bits & 0x000FFFFFFFFFFFFFL) >>> (52 - subBucketBits) );
+
+		return (exponent << subBucketBits) + subBucket;
+	}
+
+	/******************************************************************************
+	 * Returns the value in the middle of the bucket with the given index.
+	 ******************************************************************************/
+	private double bucketValue(int index) {
+
+		int exponent = index >> subBucketBits;
+		int subBucket = index & (subBucketCount - 1);
+
+		return Math.scalb(1.0 + (subBucket + 0.5) / subBucketCount, exponent);
+	}
+
+	/**************************************************************************************************************
+	 * Dynamic array of counters, only covers the range of indexes that have been used.
+	 **************************************************************************************************************/
+	private static class Buckets {
+
+		private long[] counts = new long[0];
+		private int offset = 0;
+
+		/******************************************************************************
+		 * Increments the counter with the given index.
+		 ******************************************************************************/
+		private void increment(int index, long amount) {
+
+			if(counts.length == 0) {
+				counts = new long[64];
+				offset = index - 32;
+			}else if(index < offset || index >= offset + counts.length) {
+				grow(index);
+			}
+
+			counts[index - offset] += amount;
+		}
+
+		/******************************************************************************
+		 * Grows the array to contain the given index, with some headroom to not
+		 * grow on every new index.
+		 ******************************************************************************/
+		private void grow(int index) {
+
+			int newStart = Math.min(offset, index);
+			int newEnd = Math.max(offset + counts.length, index + 1);
+			int headroom = (newEnd - newStart) / 2;
+
+			if(index < offset) 	{ newStart -= headroom; }
+			else				{ newEnd += headroom; }
+
+			long[] newCounts = new long[newEnd - newStart];
+			System.arraycopy(counts, 0, newCounts, offset - newStart, counts.length);
+
+			counts = newCounts;
+			offset = newStart;
+		}
+
+		/******************************************************************************
+		 * Adds the counters of the other buckets.
+		 ******************************************************************************/
+		private void add(Buckets other) {
+			for(int i = 0; i < other.counts.length; i++) {
+				if(other.counts[i] != 0) {
+					increment(other.offset + i, other.counts[i]);
+				}
+			}
+		}
+
+		/******************************************************************************
+		 * Removes all the counts.
+		 ******************************************************************************/
+		private void reset() {
+			counts = new long[0];
+			offset = 0;
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.xresch.hsr.stats;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+
+/**************************************************************************************************************
+ * Registry that maps the identity of a metric (type, test, usecase, pathlist, name, code) to a compact
+ * integer id. Strings and paths are interned once, paths are stored as a tree of nodes where each node
+ * is identified by its parent node and the name of the path segment.
+ * This allows to group records by a primitive id without concatenating strings for every record.
+ * Strings like the stats identifier are only created once per metric and cached.
+ *
+ * Ids are never removed and stay valid for the lifetime of the JVM.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRMetricRegistry {
+
+	// id of the root path node, represents an empty path
+	public static final int ROOT_PATH = 0;
+
+	//-----------------------------
+	// Strings
+	private static final ConcurrentHashMap<String, Integer> stringIDs = new ConcurrentHashMap<>();
+	private static final AtomicInteger stringCounter = new AtomicInteger(0);
+
+	//-----------------------------
+	// Paths, key is (parentID << 32 | segmentStringID)
+	private static final ConcurrentHashMap<Long, Integer> pathIDs = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<Integer, String> pathStrings = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, Integer> pathIDsByString = new ConcurrentHashMap<>();
+	private static final AtomicInteger pathCounter = new AtomicInteger(ROOT_PATH + 1);
+
+	//-----------------------------
+	// Metrics
+	private static final ConcurrentHashMap<MetricKey, Integer> metricIDs = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<Integer, MetricInfo> metricInfos = new ConcurrentHashMap<>();
+	private static final AtomicInteger metricCounter = new AtomicInteger(0);
+
+	static {
+		pathStrings.put(ROOT_PATH, "");
+		pathIDsByString.put("", ROOT_PATH);
+	}
+
+	/******************************************************************************
+	 * Identity of a metric, consisting of ids only.
+	 ******************************************************************************/
+	private record MetricKey(int type, int test, int path, int name, int code) {}
+
+	/******************************************************************************
+	 * Strings of a metric, created once when the metric is registered.
+	 ******************************************************************************/
+	private record MetricInfo(String statsIdentifier, String path, String pathRecord) {}
+
+	/******************************************************************************
+	 * Returns the id of the string, registers the string if not yet known.
+	 ******************************************************************************/
+	public static int getStringID(String value) {
+
+		if(value == null) { value = ""; }
+
+		Integer id = stringIDs.get(value);
+		if(id != null) { return id; }
+
+		return stringIDs.computeIfAbsent(value, k -> stringCounter.incrementAndGet());
+	}
+
+	/******************************************************************************
+	 * Returns the id of the path node that is the child of the given parent node.
+	 *
+	 * @param parentPathID id of the parent node, use ROOT_PATH for the first segment
+	 * @param segment name of the segment, separators must already be replaced
+	 ******************************************************************************/
+	public static int getPathID(int parentPathID, String segment) {
+
+		int segmentID = getStringID(segment);
+		Long key = ( ((long)parentPathID) << 32 ) | (segmentID & 0xFFFFFFFFL);
+
+		Integer id = pathIDs.get(key);
+		if(id != null) { return id; }
+
+		return pathIDs.computeIfAbsent(key, k -> {
+
+			String path = (parentPathID == ROOT_PATH) 
+							? segment 
+							: pathStrings.get(parentPathID) + HSRRecord.PATH_SEP + segment;
+
+			// different nodes resulting in the same path string share the same id
+			return pathIDsByString.computeIfAbsent(path, p -> {
+				int newID = pathCounter.getAndIncrement();
+				pathStrings.put(newID, p);
+				return newID;
+			});
+		});
+	}
+
+	/******************************************************************************
+	 * Returns the id of a path string as created by HSRRecord.getPath().
+	 ******************************************************************************/
+	public static int getPathID(String path) {
+
+		if(path == null || path.isEmpty()) { return ROOT_PATH; }
+
+		int pathID = ROOT_PATH;
+		for(String segment : path.split(HSRRecord.PATH_SEP, -1)) {
+			pathID = getPathID(pathID, segment);
+		}
+
+		return pathID;
+	}
+
+	/******************************************************************************
+	 * Returns the path string of the path node.
+	 ******************************************************************************/
+	public static String getPath(int pathID) {
+		return pathStrings.get(pathID);
+	}
+
+	/******************************************************************************
+	 * Returns the id of the metric, registers the metric if not yet known.
+	 *
+	 * @param type the type of the metric
+	 * @param test the name of the test
+	 * @param pathID the id of the path including the usecase
+	 * @param name the name of the metric
+	 * @param code the code of the metric
+	 ******************************************************************************/
+	public static int getMetricID(HSRRecordType type, String test, int pathID, String name, String code) {
+
+		MetricKey key = new MetricKey(
+				  type.ordinal()
+				, getStringID(test)
+				, pathID
+				, getStringID(name)
+				, getStringID(code)
+			);
+
+		Integer id = metricIDs.get(key);
+		if(id != null) { return id; }
+
+		return metricIDs.computeIfAbsent(key, k -> {
+			int newID = metricCounter.getAndIncrement();
+
+			String path = getPath(pathID);
+			String nameSafe = (name == null) ? "" : name;
+			String codeSafe = (code == null) ? "" : code;
+
+			metricInfos.put(newID, new MetricInfo(
+					  HSRRecord.createStatsIdentifier(type, test, path, nameSafe, codeSafe).intern()
+					, path.intern()
+					, (path + HSRRecord.PATH_SEP + nameSafe.replace(HSRRecord.PATH_SEP_TRIMMED, "_")).intern()
+				));
+
+			return newID;
+		});
+	}
+
+	/******************************************************************************
+	 * Returns the stats identifier string of the metric.
+	 ******************************************************************************/
+	public static String getStatsIdentifier(int metricID) {
+		return metricInfos.get(metricID).statsIdentifier();
+	}
+
+	/******************************************************************************
+	 * Returns the path string of the metric.
+	 ******************************************************************************/
+	public static String getMetricPath(int metricID) {
+		return metricInfos.get(metricID).path();
+	}
+
+	/******************************************************************************
+	 * Returns the path of the metric including the name of the metric.
+	 ******************************************************************************/
+	public static String getPathRecord(int metricID) {
+		return metricInfos.get(metricID).pathRecord();
+	}
+
+	/******************************************************************************
+	 * Returns the number of registered metrics.
+	 ******************************************************************************/
+	public static int metricCount() {
+		return metricCounter.get();
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.xresch.hsr.stats;
+
+/**************************************************************************************************************
+ * Streaming accumulator for count, mean and the sum of squared distances to the mean (M2).
+ * Values are added in a single pass with Welford's algorithm, which is numerically stable also for big
+ * values with a small variance. Two instances can be merged with the parallel formula of Chan et al.,
+ * which allows to calculate the pooled standard deviation of multiple intervals without having the values.
+ *
+ * This class is not thread safe, synchronize externally if values are added concurrently.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRMoments {
+
+	private long count = 0;
+	private double mean = 0;
+	private double m2 = 0;
+
+	/******************************************************************************
+	 * Adds a value.
+	 ******************************************************************************/
+	public void add(double value) {
+
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	/******************************************************************************
+	 * Merges the values of another instance into this one.
+	 ******************************************************************************/
+	public void merge(HSRMoments other) {
+
+		if(other == null) { return; }
+
+		merge(other.count, other.mean, other.m2);
+	}
+
+	/******************************************************************************
+	 * Merges a group of values that is only known by its statistics, for example
+	 * the statistics of a report interval.
+	 *
+	 * @param otherCount number of values
+	 * @param otherMean average of the values
+	 * @param otherStdev sample standard deviation of the values
+	 ******************************************************************************/
+	public void mergeStats(long otherCount, double otherMean, double otherStdev) {
+
+		if(otherCount <= 0) { return; }
+
+		double otherM2 = (otherCount > 1) ? otherStdev * otherStdev * (otherCount - 1) : 0;
+
+		merge(otherCount, otherMean, otherM2);
+	}
+
+	/******************************************************************************
+	 * Chan's formula for combining two groups.
+	 ******************************************************************************/
+	private void merge(long otherCount, double otherMean, double otherM2) {
+
+		if(otherCount <= 0) { return; }
+
+		if(count == 0) {
+			count = otherCount;
+			mean = otherMean;
+			m2 = otherM2;
+			return;
+		}
+
+		long total = count + otherCount;
+		double delta = otherMean - mean;
+
+		mean += delta * otherCount / total;
+		m2 += otherM2 + delta * delta * ((double)count * otherCount / total);
+		count = total;
+	}
+
+	/******************************************************************************
+	 * Returns the number of values.
+	 ******************************************************************************/
+	public long count() {
+		return count;
+	}
+
+	/******************************************************************************
+	 * Returns the average of the values, NaN if there are no values.
+	 ******************************************************************************/
+	public double mean() {
+		return (count == 0) ? Double.NaN : mean;
+	}
+
+	/******************************************************************************
+	 * Returns the variance.
+	 *
+	 * @param usePopulation true for population, false for sample variance
+	 ******************************************************************************/
+	public double variance(boolean usePopulation) {
+
+		// zero or one number will have variance 0
+		if(count <= 1) { return 0; }
+
+		long divisor = (usePopulation) ? count : count - 1;
+
+		return Math.max(0, m2 / divisor);
+	}
+
+	/******************************************************************************
+	 * Returns the standard deviation.
+	 *
+	 * @param usePopulation true for population, false for sample standard deviation
+	 ******************************************************************************/
+	public double stdev(boolean usePopulation) {
+		return Math.sqrt( variance(usePopulation) );
+	}
+
+}
@@ -28,10 +28,11 @@ public class HSRRecord {
 	private String usecase = "";
 	private String name = null;  // name of this item
 	
-	private String pathRecordCached = null;
 	
 	private List<String> pathlist = new ArrayList<>();
-	private String statsIdentifier = null;
+	private transient int parentPathID = -1; // path id resolved from the parent, -1 if path has been changed
+	private transient int pathID = -1;
+	private transient int metricID = -1;
 
 	private long startTimeNanos = -1;
 	private long endTimeNanos = -1;
@@ -40,8 +41,12 @@ public class HSRRecord {
 	private HSRSLA sla;
 	
 	
-	private BigDecimal value = null;
-	private BigDecimal correction = BigDecimal.ZERO; // corrections for the value like pauses etc...
+	// primitive values are used for durations and counts, BigDecimals are only
+	// used when they are explicitly passed to the record
+	private double value = 1;
+	private BigDecimal valueBig = null;
+	private double correction = 0; // corrections for the value like pauses etc...
+	private BigDecimal correctionBig = null;
 	
 	private String logString = null;
 	
@@ -139,7 +144,6 @@ public class HSRRecord {
 		
 		type(type);
 		name(recordName);
-		value(BigDecimal.ONE); 
 				
 	}
 	
@@ -182,7 +186,6 @@ public class HSRRecord {
 		
 		type(type);
 		name(recordName);
-		value(BigDecimal.ONE); 
 			
 	}
 
@@ -320,6 +323,14 @@ public class HSRRecord {
 			if(parentName != null && !parentName.isBlank()) {
 				this.pathlist.add(parentName);
 			}
+			
+			// resolve path from the parent, avoids walking the pathlist
+			if(usecase.equals(parent.usecase())) {
+				parentPathID = parent.getPathID();
+				if(parentName != null && !parentName.isBlank()) {
+					parentPathID = HSRMetricRegistry.getPathID(parentPathID, parentName.replace(PATH_SEP_TRIMMED, "_"));
+				}
+			}
 		}
 		
 		return this;
@@ -359,8 +370,9 @@ public class HSRRecord {
 	 * 
 	 ******************************************************************/
 	public HSRRecord usecase(String usecase) {
-		if(usecase != null && !usecase.isBlank() ) {			
+		if(usecase != null && !usecase.isBlank() && !usecase.equals(this.usecase) ) {			
 			this.usecase = usecase; 
+			parentPathID = -1;
 			identityChanged = true;
 		}
 		return this;
@@ -394,21 +406,97 @@ public class HSRRecord {
 	}
 
 	/******************************************************************
-	 * 
+	 * Sets the value as a BigDecimal. Use this method if you need the
+	 * exact decimal precision, else prefer value(long) or value(double).
 	 ******************************************************************/
 	public HSRRecord value(BigDecimal value) {
 		if(value != null) {	
-			this.value = value;
+			this.valueBig = value;
 		}
 		return this;
 	}
 	
+	/******************************************************************
+	 * Sets the value as a primitive, used for durations and counts.
+	 ******************************************************************/
+	public HSRRecord value(long value) {
+		this.value = value;
+		this.valueBig = null;
+		return this;
+	}
+	
+	/******************************************************************
+	 * Sets the value as a primitive.
+	 ******************************************************************/
+	public HSRRecord value(double value) {
+		this.value = value;
+		this.valueBig = null;
+		return this;
+	}
+	
 	/******************************************************************
 	 * Returns the value with all corrections applied.
 	 * 
 	 ******************************************************************/
 	public BigDecimal value() {
-		return value.add(correction);
+		
+		if(valueBig == null && correctionBig == null) {
+			return toBigDecimal(value + correction);
+		}
+		
+		BigDecimal result = (valueBig != null) ? valueBig : toBigDecimal(value);
+		result = result.add( (correctionBig != null) ? correctionBig : toBigDecimal(correction) );
+		
+		return result;
+	}
+	
+	/******************************************************************
+	 * Returns the value with all corrections applied as a primitive.
+	 * This does not create any objects and is used for aggregation.
+	 * 
+	 ******************************************************************/
+	public double valueDouble() {
+		
+		double result = (valueBig != null) ? valueBig.doubleValue() : value;
+		result += (correctionBig != null) ? correctionBig.doubleValue() : correction;
+		
+		return result;
+	}
+	
+	/******************************************************************
+	 * Returns the number of decimal places of the value, used to round
+	 * aggregated values like averages.
+	 * Integer values have a scale of 0, primitive decimal values a scale
+	 * of 3, and BigDecimal values the scale they have been created with.
+	 * 
+	 ******************************************************************/
+	public int valueScale() {
+		
+		int scale = (valueBig != null) ? valueBig.scale() : valueScale(value);
+		scale = Math.max(scale, (correctionBig != null) ? correctionBig.scale() : valueScale(correction) );
+		
+		return Math.max(0, scale);
+	}
+	
+	/******************************************************************
+	 * Returns the scale of a primitive value.
+	 ******************************************************************/
+	private static int valueScale(double value) {
+		return (value == Math.rint(value)) ? 0 : 3;
+	}
+	
+	/******************************************************************
+	 * Converts a primitive to a BigDecimal, integer values are converted
+	 * without decimal places.
+	 * 
+	 ******************************************************************/
+	public static BigDecimal toBigDecimal(double value) {
+		
+		if(value == Math.rint(value) && Math.abs(value) < 9.0E15) {
+			return BigDecimal.valueOf( (long)value );
+		}
+		
+		return BigDecimal.valueOf(value);
 	}
 	
 	/******************************************************************
@@ -419,7 +507,13 @@ public class HSRRecord {
 	 * the value, either positive or negative
 	 ******************************************************************/
 	public HSRRecord correction(long correction) {
-		return this.correction( new BigDecimal(correction) );
+		
+		if(correctionBig != null) {
+			return this.correction( new BigDecimal(correction) );
+		}
+		
+		this.correction += correction;
+		return this;
 	}
 	
 	/******************************************************************
@@ -430,7 +524,7 @@ public class HSRRecord {
 	 * the value, either positive or negative
 	 ******************************************************************/
 	public HSRRecord correction(int correction) {
-		return this.correction( new BigDecimal(correction) );
+		return this.correction( (long)correction );
 	}
 	
 	/******************************************************************
@@ -443,7 +537,12 @@ public class HSRRecord {
 	public HSRRecord correction(BigDecimal correction) {
 
 		if(correction != null) {	
-			this.correction = this.correction.add(correction);
+			
+			if(correctionBig == null) {
+				correctionBig = toBigDecimal(this.correction);
+			}
+			
+			this.correctionBig = this.correctionBig.add(correction);
 		}
 		return this;
 	}
@@ -452,7 +551,12 @@ public class HSRRecord {
 	 * 
 	 ******************************************************************/
 	public BigDecimal correction() {
-		return correction;
+		
+		if(correctionBig != null) {
+			return correctionBig;
+		}
+		
+		return toBigDecimal(correction);
 	}
 
 	/******************************************************************
@@ -523,7 +627,6 @@ public class HSRRecord {
 		
 		if(status != null ) {
 			this.status = status; 
-			identityChanged = true;
 		}
 		return this;
 		
@@ -544,6 +647,9 @@ public class HSRRecord {
 	 ******************************************************************/
 	public HSRRecord pathlist(List<String> pathlist) {
 		
+		parentPathID = -1;
+		identityChanged = true;
+		
 		if(pathlist == null) {	
 			this.pathlist.clear();
 			return this;
@@ -551,7 +657,6 @@ public class HSRRecord {
 		
 		this.pathlist = new ArrayList<>();
 		this.pathlist.addAll(pathlist); 
-		identityChanged = true;
 	
 		return this;
 		
@@ -611,7 +716,7 @@ public class HSRRecord {
 		this.endTimeNanos(endNanos);
 		
 		long duration = (endNanos - startTimeNanos) / 1_000_000;
-		this.value(new BigDecimal(duration));
+		this.value(duration);
 		
 		return this;
 		
@@ -619,16 +724,69 @@ public class HSRRecord {
 	
 	
 	/******************************************************************
-	 * Returns the string used for grouping the statistics.
+	 * Returns the id of the metric this record belongs to, as registered
+	 * in the HSRMetricRegistry. Used for grouping the statistics.
 	 * 
 	 ******************************************************************/
-	public String getStatsIdentifier() {
+	public int getMetricID() {
 		
-		if(identityChanged || this.statsIdentifier == null) {
-			this.statsIdentifier = createStatsIdentifier(type,test, getPath(), name, code );
+		if(identityChanged || metricID < 0) {
+			resolveIdentity();
 		}
 		
-		return statsIdentifier;
+		return metricID;
+	}
+	
+	/******************************************************************
+	 * Returns the id of the path of this record, as registered
+	 * in the HSRMetricRegistry.
+	 * 
+	 ******************************************************************/
+	public int getPathID() {
+		
+		if(identityChanged || pathID < 0) {
+			resolveIdentity();
+		}
+		
+		return pathID;
+	}
+	
+	/******************************************************************
+	 * Resolves the path and metric id of this record. Takes the path
+	 * resolved from the parent if possible, so the pathlist does not 
+	 * have to be walked for every record.
+	 * 
+	 ******************************************************************/
+	private void resolveIdentity() {
+		
+		//--------------------------
+		// Resolve Path
+		if(parentPathID >= 0) {
+			pathID = parentPathID;
+		}else {
+			pathID = HSRMetricRegistry.ROOT_PATH;
+			
+			if(usecase != null && !usecase.isBlank()) {
+				pathID = HSRMetricRegistry.getPathID(pathID, usecase);
+			}
+			
+			for(String part : pathlist) {
+				pathID = HSRMetricRegistry.getPathID(pathID, part.replace(PATH_SEP_TRIMMED, "_"));
+			}
+		}
+		
+		//--------------------------
+		// Resolve Metric
+		metricID = HSRMetricRegistry.getMetricID(type, test, pathID, name, code);
+		identityChanged = false;
+	}
+	
+	/******************************************************************
+	 * Returns the string used for grouping the statistics.
+	 * 
+	 ******************************************************************/
+	public String getStatsIdentifier() {
+		return HSRMetricRegistry.getStatsIdentifier( getMetricID() );
 	}
 	
 	/******************************************************************
@@ -657,32 +815,11 @@ public class HSRRecord {
 	
 
 	/******************************************************************
-	 * Returns the pathlist as a string.
+	 * Returns the pathlist prefixed with the usecase as a string.
 	 * 
 	 ******************************************************************/
 	public String getPath() {
-		return getPath(HSRRecord.PATH_SEP);
-	}
-	
-	/******************************************************************
-	 * Returns the pathlist prefixed with the usecase as a string 
-	 * separated by the given separator.
-	 * 
-	 ******************************************************************/
-	private String getPath(String separator) {
-		
-		if(pathlist.isEmpty()) { return this.usecase; }
-				
-		ArrayList<String> noSeparators = new ArrayList<>();
-		for(String part : pathlist) {
-			noSeparators.add(part.replace(PATH_SEP_TRIMMED, "_"));
-		}
-		
-		if(usecase != null && !usecase.isBlank()) {
-			return this.usecase + separator + String.join(separator, noSeparators);
-		}
-		
-		return String.join(separator, noSeparators);
+		return HSRMetricRegistry.getPath( getPathID() );
 	}
 	
 	/******************************************************************
@@ -707,7 +844,7 @@ public class HSRRecord {
 			.append( HSR.Time.nanoTimeToMillis(startTimeNanos) ).append(sep)
 			.append( HSR.Time.nanoTimeToMillis(endTimeNanos) ).append(sep)
 			.append( usecase.replace(sep, "_") ).append(sep)
-			.append( getPath(PATH_SEP).replace(sep, "_") ).append(sep)
+			.append( getPath().replace(sep, "_") ).append(sep)
 			.append( name.replace(sep, "_").replaceAll("\r\n|\n", " ") ).append(sep)
 			.append( this.value() )
 			;
@@ -732,7 +869,7 @@ public class HSRRecord {
 				;
 		
 		if(!pathlist.isEmpty()) {
-			pathFull += getPath(PATH_SEP)
+			pathFull += getPath()
 					 +  PATH_SEP;
 		}
 		
@@ -748,17 +885,7 @@ public class HSRRecord {
 	 *   {path} / {metricName}
 	 ******************************************************************/
 	public String getPathRecord() {
-		
-		if(pathRecordCached == null) {
-			
-			pathRecordCached = getPath(PATH_SEP)
-			 + PATH_SEP 
-			 + name.replace(PATH_SEP_TRIMMED, "_")
-			 ;
-		}
-		
-		return pathRecordCached;
-		
+		return HSRMetricRegistry.getPathRecord( getMetricID() );
 	}
 	
 	/***********************************************************************************
@@ -0,0 +1,490 @@
+package com.xresch.hsr.stats;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import com.xresch.hsr.base.HSRConfig;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordStatus;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Mutable accumulator that aggregates all the records of one stats identifier during one report interval.
+ * Records are folded into the accumulator as they arrive, the accumulator keeps counts per status, sum,
+ * streaming moments (see HSRMoments), min and max for each state. Depending on the mode it additionally keeps
+ * either all the values (exact percentiles) or a histogram (approximated percentiles with bounded memory).
+ *
+ * The accumulator does not keep any reference to the records, records can be garbage collected right
+ * after they have been added.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRRecordAccumulator {
+
+	private static final MathContext STDEV_PRECISION = new MathContext(3, RoundingMode.HALF_UP);
+
+	private final HSRRecordStats stats;
+	private final HSRSLA sla;
+	private final String pathRecord;
+
+	private final StateValues ok;
+	private final StateValues nok;
+	private final long[] statusCounts = new long[HSRRecordStatus.values().length];
+
+	private boolean isClosed = false;
+	private int intervalCount = 0;
+
+	/******************************************************************************
+	 * Creates an accumulator for the stats identifier of the given record.
+	 * The record itself is not added, use add() to do so.
+	 *
+	 * @param record the record used to take over the identity (type, test, path...)
+	 * @param keepValues true to keep all values and calculate exact percentiles,
+	 * false to use a histogram
+	 * @param histogramPrecision the precision used for histograms
+	 ******************************************************************************/
+	public HSRRecordAccumulator(HSRRecord record, boolean keepValues, int histogramPrecision){
+
+		this.stats = new HSRRecordStats(record);
+		this.sla = record.sla();
+		this.pathRecord = record.getPathRecord();
+
+		// counts only need sums, no need to keep values or histograms
+		boolean isCount = record.type().isCount();
+		this.ok = new StateValues(isCount, keepValues, histogramPrecision);
+		this.nok = new StateValues(isCount, keepValues, histogramPrecision);
+	}
+	
+	/******************************************************************************
+	 * Creates an accumulator that merges the statistics of multiple intervals,
+	 * used to create summaries over the whole test. Always uses histograms.
+	 *
+	 * @param template the statistics used to take over the identity
+	 * @param histogramPrecision the precision used for histograms
+	 ******************************************************************************/
+	public HSRRecordAccumulator(HSRRecordStats template, int histogramPrecision){
+		
+		this.stats = template.clone();
+		this.stats.clearValues();
+		this.sla = template.sla();
+		this.pathRecord = template.pathRecord();
+		
+		boolean isCount = template.type().isCount();
+		this.ok = new StateValues(isCount, false, histogramPrecision);
+		this.nok = new StateValues(isCount, false, histogramPrecision);
+	}
+
+	/******************************************************************************
+	 * Folds the record into this accumulator.
+	 *
+	 * @param record the record to add
+	 * @return true if added, false if the accumulator has already been closed and
+	 * the record has to be added to a new accumulator.
+	 ******************************************************************************/
+	public synchronized boolean add(HSRRecord record) {
+
+		if(isClosed) { return false; }
+
+		HSRRecordStatus status = record.status();
+		statusCounts[status.ordinal()]++;
+
+		switch(status.state()) {
+			case ok:	ok.add(record.valueDouble(), record.valueScale());	break;
+			case nok:	nok.add(record.valueDouble(), record.valueScale());	break;
+			default:	break;
+		}
+
+		return true;
+	}
+
+	/******************************************************************************
+	 * Merges all the values of the accumulator of an interval into this 
+	 * accumulator. The interval accumulator should be closed.
+	 *
+	 * @param interval the accumulator to merge
+	 ******************************************************************************/
+	public synchronized void merge(HSRRecordAccumulator interval) {
+		
+		synchronized(interval) {
+			for(int i = 0; i < statusCounts.length; i++) {
+				statusCounts[i] += interval.statusCounts[i];
+			}
+			
+			ok.merge(interval.ok);
+			nok.merge(interval.nok);
+		}
+		
+		intervalCount++;
+	}
+	
+	/******************************************************************************
+	 * Merges the statistics of an interval into this accumulator. Used for 
+	 * statistics where the values are not available anymore, e.g. custom
+	 * statistics. As the values are unknown, the histogram is approximated 
+	 * with the percentiles of the interval.
+	 *
+	 * @param intervalStats the statistics to merge
+	 ******************************************************************************/
+	public synchronized void merge(HSRRecordStats intervalStats) {
+		
+		statusCounts[HSRRecordStatus.Success.ordinal()] += (long)valueOrZero(intervalStats, null, HSRMetric.success);
+		statusCounts[HSRRecordStatus.Failed.ordinal()] 	+= (long)valueOrZero(intervalStats, null, HSRMetric.failed);
+		statusCounts[HSRRecordStatus.Skipped.ordinal()] += (long)valueOrZero(intervalStats, null, HSRMetric.skipped);
+		statusCounts[HSRRecordStatus.Aborted.ordinal()] += (long)valueOrZero(intervalStats, null, HSRMetric.aborted);
+		statusCounts[HSRRecordStatus.None.ordinal()] 	+= (long)valueOrZero(intervalStats, null, HSRMetric.none);
+		
+		ok.merge(intervalStats, HSRRecordState.ok);
+		nok.merge(intervalStats, HSRRecordState.nok);
+		
+		intervalCount++;
+	}
+	
+	/******************************************************************************
+	 * Returns the number of intervals that have been merged into this 
+	 * accumulator.
+	 ******************************************************************************/
+	public synchronized int intervalCount() {
+		return intervalCount;
+	}
+	
+	/******************************************************************************
+	 * Returns the value of the statistics or zero if the value is not set.
+	 ******************************************************************************/
+	private static double valueOrZero(HSRRecordStats stats, HSRRecordState state, HSRMetric metric) {
+		double value = stats.getValueDouble(state, metric);
+		return Double.isNaN(value) ? 0 : value;
+	}
+	
+	/******************************************************************************
+	 * Closes this accumulator, records that are added after this will be
+	 * rejected.
+	 ******************************************************************************/
+	public synchronized void close() {
+		isClosed = true;
+	}
+
+	/******************************************************************************
+	 * Returns the stats identifier of this accumulator.
+	 ******************************************************************************/
+	public String statsIdentifier() {
+		return stats.statsIdentifier();
+	}
+
+	/******************************************************************************
+	 * Calculates the statistics of all the records added to this accumulator.
+	 * Should only be called once, after the accumulator has been closed.
+	 *
+	 * @param timeMillis the time of the statistics
+	 * @param perHourMultiplier the multiplier to calculate counts per hour
+	 * @return statistics
+	 ******************************************************************************/
+	public synchronized HSRRecordStats toStats(long timeMillis, double perHourMultiplier) {
+
+		HSRRecordStats statsRecord = stats;
+		statsRecord.time(timeMillis);
+
+		//---------------------------
+		// Status Counts
+		long failed = statusCounts[HSRRecordStatus.Failed.ordinal()];
+
+		statsRecord.setValue(HSRRecordState.ok, HSRMetric.success, 	statusCounts[HSRRecordStatus.Success.ordinal()]);
+		statsRecord.setValue(HSRRecordState.ok, HSRMetric.failed, 	failed);
+		statsRecord.setValue(HSRRecordState.ok, HSRMetric.skipped, 	statusCounts[HSRRecordStatus.Skipped.ordinal()]);
+		statsRecord.setValue(HSRRecordState.ok, HSRMetric.aborted, 	statusCounts[HSRRecordStatus.Aborted.ordinal()]);
+		statsRecord.setValue(HSRRecordState.ok, HSRMetric.none, 	statusCounts[HSRRecordStatus.None.ordinal()]);
+
+		//---------------------------
+		// Calculate failure Rate
+		calculateFailrate(statsRecord, ok.count, nok.count, failed);
+
+		//---------------------------
+		// Calculate OK and NOK Stats
+		ok.calculateStats(statsRecord, HSRRecordState.ok, perHourMultiplier);
+		nok.calculateStats(statsRecord, HSRRecordState.nok, perHourMultiplier);
+
+		//---------------------------
+		// Calculate SLA
+		statsRecord.sla(sla);
+		if(sla != null) {
+			HSRSLA.cacheAdd(pathRecord, sla);
+			HSRStatsEngine.calculateSLA(statsRecord, sla);
+		}
+
+		return statsRecord;
+	}
+
+	/***************************************************************************
+	 * Calculates and adds the failure rate to the Stats Record.
+	 *
+	 ***************************************************************************/
+	private static void calculateFailrate(
+			  HSRRecordStats statsRecord
+			, double ok_count
+			, double nok_count
+			, double failed
+			){
+		if(failed == 0) {
+			statsRecord.setValue(HSRRecordState.ok, HSRMetric.failrate, 0);
+		}else if(ok_count == 0) {
+			statsRecord.setValue(HSRRecordState.ok, HSRMetric.failrate, 100);
+		}else {
+			double total = ok_count + nok_count;
+			statsRecord.setValue(HSRRecordState.ok, HSRMetric.failrate, round(failed * 100 / total, 1));
+		}
+	}
+
+	/***************************************************************************
+	 * Rounds a value to the given number of decimal places.
+	 ***************************************************************************/
+	private static double round(double value, int scale) {
+		return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+	}
+
+	/***************************************************************************
+	 * Rounds a standard deviation to 3 significant digits.
+	 ***************************************************************************/
+	private static double roundStdev(double stdev) {
+
+		if(stdev == 0 || Double.isNaN(stdev)) { return 0; }
+
+		return new BigDecimal(stdev).round(STDEV_PRECISION).doubleValue();
+	}
+
+	/**************************************************************************************************************
+	 * Holds the aggregated values of one state.
+	 **************************************************************************************************************/
+	private static class StateValues {
+
+		private long count = 0;
+		private double sum = 0;
+		private final HSRMoments moments = new HSRMoments();
+		private double min = Double.NaN;
+		private double max = Double.NaN;
+		private int scale = 0;
+
+		private double[] values = null;
+		private HSRHistogram histogram = null;
+
+		/******************************************************************************
+		 *
+		 ******************************************************************************/
+		private StateValues(boolean isCount, boolean keepValues, int histogramPrecision) {
+
+			if(isCount) { return; }
+
+			if(keepValues) 	{ values = new double[16]; }
+			else			{ histogram = new HSRHistogram(histogramPrecision); }
+		}
+
+		/******************************************************************************
+		 * Adds a value.
+		 ******************************************************************************/
+		private void add(double value, int valueScale) {
+
+			if(count == 0) {
+				min = value;
+				max = value;
+			}else {
+				if(value < min) { min = value; }
+				if(value > max) { max = value; }
+			}
+
+			if(values != null) {
+				if(count == values.length) {
+					values = Arrays.copyOf(values, values.length * 2);
+				}
+				values[(int)count] = value;
+			}else if(histogram != null) {
+				histogram.recordValue(value);
+			}
+
+			count++;
+			sum += value;
+			moments.add(value);
+			if(valueScale > scale) { scale = valueScale; }
+		}
+
+		/******************************************************************************
+		 * Merges the values of another instance into this one.
+		 ******************************************************************************/
+		private void merge(StateValues other) {
+			
+			if(other.count == 0) { return; }
+			
+			if(count == 0) {
+				min = other.min;
+				max = other.max;
+			}else {
+				min = Math.min(min, other.min);
+				max = Math.max(max, other.max);
+			}
+			
+			if(histogram != null) {
+				if(other.histogram != null) {
+					histogram.add(other.histogram);
+				}else if(other.values != null) {
+					for(int i = 0; i < other.count; i++) {
+						histogram.recordValue(other.values[i]);
+					}
+				}
+			}
+			
+			count += other.count;
+			sum += other.sum;
+			moments.merge(other.moments);
+			if(other.scale > scale) { scale = other.scale; }
+		}
+		
+		/******************************************************************************
+		 * Merges the statistics of one state into this instance. 
+		 ******************************************************************************/
+		private void merge(HSRRecordStats intervalStats, HSRRecordState state) {
+			
+			BigDecimal countValue = intervalStats.getValue(state, HSRMetric.count);
+			if(countValue == null) { return; }
+			
+			//---------------------------
+			// Counts: add as single value,
+			// gauges will be averaged
+			if(values == null && histogram == null) {
+				add(countValue.doubleValue(), countValue.scale());
+				return;
+			}
+			
+			long intervalCount = countValue.longValue();
+			if(intervalCount <= 0) { return; }
+			
+			BigDecimal avgValue = intervalStats.getValue(state, HSRMetric.avg);
+			double avg = valueOrZero(intervalStats, state, HSRMetric.avg);
+			double stdev = valueOrZero(intervalStats, state, HSRMetric.stdev);
+			double intervalMin = valueOrZero(intervalStats, state, HSRMetric.min);
+			double intervalMax = valueOrZero(intervalStats, state, HSRMetric.max);
+			
+			if(count == 0) {
+				min = intervalMin;
+				max = intervalMax;
+			}else {
+				min = Math.min(min, intervalMin);
+				max = Math.max(max, intervalMax);
+			}
+			
+			count += intervalCount;
+			sum += avg * intervalCount;
+			moments.mergeStats(intervalCount, avg, stdev);
+			if(avgValue != null && avgValue.scale() > scale) { scale = avgValue.scale(); }
+			
+			//---------------------------
+			// Approximate distribution 
+			// with the percentiles
+			if(histogram != null) {
+				
+				HSRMetric[] points = { HSRMetric.p25, HSRMetric.p50, HSRMetric.p75, HSRMetric.p90, HSRMetric.p95, HSRMetric.p99, HSRMetric.max };
+				double[] shares = 	 { 0.25, 		  0.25, 		 0.25, 			0.15, 		   0.05, 		  0.04, 		 0.01 };
+				
+				// percentiles that have not been calculated pass their share to the next point
+				long recorded = 0;
+				double cumulatedShare = 0;
+				for(int i = 0; i < points.length; i++) {
+					
+					cumulatedShare += shares[i];
+					
+					boolean isLast = (i == points.length - 1);
+					double value = intervalStats.getValueDouble(state, points[i]);
+					if(Double.isNaN(value) && !isLast) { continue; }
+					
+					long times = (isLast) 
+									? intervalCount - recorded
+									: Math.round(intervalCount * cumulatedShare) - recorded;
+					
+					times = Math.max(0, Math.min(times, intervalCount - recorded));
+					histogram.recordValue(Double.isNaN(value) ? 0 : value, times);
+					recorded += times;
+				}
+			}
+		}
+		
+		/******************************************************************************
+		 * Returns the sample standard deviation.
+		 ******************************************************************************/
+		private double stdev() {
+			return moments.stdev(false);
+		}
+
+		/******************************************************************************
+		 * Returns the values at the given percentiles. Exact values are selected in
+		 * one pass without sorting, the order of the kept values is changed.
+		 ******************************************************************************/
+		private double[] percentiles(HSRMetric[] metrics) {
+
+			double[] percentiles = new double[metrics.length];
+			for(int i = 0; i < metrics.length; i++) {
+				percentiles[i] = metrics[i].percentile();
+			}
+			
+			if(values != null) {
+				return HSRStatsEngine.percentiles(values, (int)count, percentiles);
+			}
+
+			double[] result = new double[metrics.length];
+			for(int i = 0; i < metrics.length; i++) {
+				result[i] = round(histogram.getValueAtPercentile(percentiles[i]), scale);
+			}
+			
+			return result;
+		}
+
+		/***************************************************************************
+		 * Calculates the statistics of this state and sets them on the stats record.
+		 *
+		 * @param statsRecord the record to set the values on
+		 * @param state the state of the values
+		 * @param perHourMultiplier the multiplier to calculate counts per hour
+		 ***************************************************************************/
+		private void calculateStats(
+				  HSRRecordStats statsRecord
+				, HSRRecordState state
+				, double perHourMultiplier
+				){
+
+			if(count == 0) { return; }
+
+			HSRRecordType type = statsRecord.type();
+			double avg = round(sum / count, scale);
+
+			//---------------------------
+			// Counts
+			if(type.isCount()) {
+
+				if( ! type.isGauge() ) {
+					statsRecord.setValue(state, HSRMetric.count, sum);
+					statsRecord.setValue(state, HSRMetric.cph,	sum * perHourMultiplier);
+				} else {
+					statsRecord.setValue(state, HSRMetric.count, avg);
+				}
+
+				return;
+			}
+
+			statsRecord.setValue(state, HSRMetric.count,	count);
+			statsRecord.setValue(state, HSRMetric.cph,		count * perHourMultiplier);
+			statsRecord.setValue(state, HSRMetric.min,  	min);
+			statsRecord.setValue(state, HSRMetric.avg, 		avg);
+			statsRecord.setValue(state, HSRMetric.max, 		max);
+			statsRecord.setValue(state, HSRMetric.stdev, 	roundStdev( stdev() ) );
+
+			//---------------------------
+			// Percentiles
+			HSRMetric[] percentileMetrics = HSRConfig.aggregationPercentiles();
+			double[] percentileValues = percentiles(percentileMetrics);
+			for(int i = 0; i < percentileMetrics.length; i++) {
+				statsRecord.setValue(state, percentileMetrics[i], percentileValues[i]);
+			}
+
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.xresch.hsr.stats;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**************************************************************************************************************
+ * Lock-free buffer used by the HSRStatsEngine to collect records between two reporting intervals.
+ * The buffer is split into multiple stripes, each stripe is a non-blocking queue. The stripe is
+ * selected by the identity hash of the calling thread, this way concurrent threads will mostly write into
+ * different stripes and do not contend with each other.
+ * The stats engine drains all the stripes at interval time and aggregates the records.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRRecordBuffer {
+
+	private final ConcurrentLinkedQueue<HSRRecord>[] stripes;
+	private final int stripeMask;
+
+	/******************************************************************************
+	 * Creates a buffer with a stripe count based on the available processors.
+	 ******************************************************************************/
+	public HSRRecordBuffer(){
+		this( Runtime.getRuntime().availableProcessors() * 4 );
+	}
+
+	/******************************************************************************
+	 * Creates a buffer with the given number of stripes.
+	 *
+	 * @param stripeCount number of stripes, will be rounded up to the next
+	 * power of two.
+	 ******************************************************************************/
+	public HSRRecordBuffer(int stripeCount){
+
+		int count = Integer.highestOneBit( Math.max(1, stripeCount - 1) ) << 1;
+
+		stripes = newStripes(count);
+		stripeMask = count - 1;
+
+		for(int i = 0; i < count; i++) {
+			stripes[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	/******************************************************************************
+	 * Creates the array for the stripes, generic arrays cannot be created directly.
+	 ******************************************************************************/
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static ConcurrentLinkedQueue<HSRRecord>[] newStripes(int count){
+		return new ConcurrentLinkedQueue[count];
+	}
+
+	/******************************************************************************
+	 * Adds a record to the stripe of the current thread.
+	 * This method never blocks.
+	 ******************************************************************************/
+	public void add(HSRRecord record) {
+
+		// identity hash is stable for the thread, spread the high bits
+		int hash = System.identityHashCode(Thread.currentThread());
+		int index = (hash ^ (hash >>> 16)) & stripeMask;
+		stripes[index].offer(record);
+
+	}
+
+	/******************************************************************************
+	 * Returns true if there are no records in any of the stripes.
+	 ******************************************************************************/
+	public boolean isEmpty() {
+
+		for(ConcurrentLinkedQueue<HSRRecord> stripe : stripes) {
+			if( ! stripe.isEmpty() ) { return false; }
+		}
+
+		return true;
+	}
+
+	/******************************************************************************
+	 * Removes all records from the buffer.
+	 ******************************************************************************/
+	public void clear() {
+
+		for(ConcurrentLinkedQueue<HSRRecord> stripe : stripes) {
+			stripe.clear();
+		}
+	}
+
+	/******************************************************************************
+	 * Removes all records currently in the buffer and passes them to the
+	 * consumer.
+	 * Records that are added while draining will either be passed to the 
+	 * consumer or remain in the buffer for the next drain.
+	 *
+	 * @param consumer that processes the records
+	 ******************************************************************************/
+	public void drain(Consumer<HSRRecord> consumer) {
+
+		for(ConcurrentLinkedQueue<HSRRecord> stripe : stripes) {
+
+			HSRRecord record;
+			while( (record = stripe.poll()) != null ) {
+				consumer.accept(record);
+			}
+		}
+	}
+
+}
@@ -1,12 +1,21 @@
 package com.xresch.hsr.stats;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
 import com.xresch.hsr.base.HSR;
 import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.database.DBInterface;
@@ -36,8 +45,12 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 	private String pathRecord;
 	private String code = "";
 	private int granularity;
-	private HashMap<String, BigDecimal> values = new HashMap<>();
 	
+	// values indexed by valueIndex(state, metric), bit of presence is set if value is present
+	private double[] values = new double[VALUE_COUNT];
+	private long presence = 0;
+	
+	private int metricID;	// id of the metric in the HSRMetricRegistry
 	private String statsIdentifier;
 	private String sortIdentifier;
 
@@ -109,12 +122,14 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		, avg(true, "AVG(\"{type}_avg\")")
 		, max(true, "MAX(\"{type}_max\")")
 		, stdev(true, "STDDEV(\"{type}_stdev\")")
-		, p25(true, "PERCENTILE_CONT(0.25) WITHIN GROUP (ORDER BY \"{type}_p25\")") // (CALL AGGREGATE_PERC('p50', 0.50, ?, ?, ?, ?))
-		, p50(true, "PERCENTILE_CONT(0.50) WITHIN GROUP (ORDER BY \"{type}_p50\")")
-		, p75(true, "PERCENTILE_CONT(0.75) WITHIN GROUP (ORDER BY \"{type}_p75\")")
-		, p90(true, "PERCENTILE_CONT(0.90) WITHIN GROUP (ORDER BY \"{type}_p90\")")
-		, p95(true, "PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY \"{type}_p95\")") 
-		, p99(true, "PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY \"{type}_p99\")") 
+		, p25(true, 25, "PERCENTILE_CONT(0.25) WITHIN GROUP (ORDER BY \"{type}_p25\")") // (CALL AGGREGATE_PERC('p50', 0.50, ?, ?, ?, ?))
+		, p50(true, 50, "PERCENTILE_CONT(0.50) WITHIN GROUP (ORDER BY \"{type}_p50\")")
+		, p75(true, 75, "PERCENTILE_CONT(0.75) WITHIN GROUP (ORDER BY \"{type}_p75\")")
+		, p90(true, 90, "PERCENTILE_CONT(0.90) WITHIN GROUP (ORDER BY \"{type}_p90\")")
+		, p95(true, 95, "PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY \"{type}_p95\")") 
+		, p99(true, 99, "PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY \"{type}_p99\")") 
+		, p999(true, 99.9, "PERCENTILE_CONT(0.999) WITHIN GROUP (ORDER BY \"{type}_p999\")") 
+		, p9999(true, 99.99, "PERCENTILE_CONT(0.9999) WITHIN GROUP (ORDER BY \"{type}_p9999\")") 
 		, sla(true, "ROUND(AVG(\"{type}_sla\"))")
 		, success(false, "SUM(\"success\")") 
 		, failed(false, "SUM(\"failed\")") 
@@ -125,6 +140,7 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		;
 		
 		private boolean isOkNok = true;
+		private double percentile = Double.NaN;
 		private String sqlAggregation = "";
 		private static ArrayList<String> metricNames = new ArrayList<>();
 		private static ArrayList<String> valueNames = new ArrayList<>();
@@ -136,6 +152,11 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 			
 		}
 		
+		private HSRMetric(boolean isOkNok, double percentile, String sqlAggregationString){
+			this(isOkNok, sqlAggregationString);
+			this.percentile = percentile;
+		}
+		
 		static {
 			
 			//------------------------------
@@ -204,6 +225,26 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 			return isOkNok;
 		}
 		
+		/** true if this metric is a percentile, e.g. p50, p999 **/
+		public boolean isPercentile() { 
+			return !Double.isNaN(percentile);
+		}
+		
+		/** the percentile between 0 and 100, e.g. 99.9 for p999, NaN if this is not a percentile **/
+		public double percentile() { 
+			return percentile;
+		}
+		
+		/** the SQL aggregation of the value of this metric, the state is ignored for non OK-NOK metrics **/
+		public String sqlAggregation(HSRRecordState state) { 
+			return (isOkNok) ? sqlAggregation.replace("{type}", state.toString()) : sqlAggregation;
+		}
+		
+		/** the name of the value of this metric, e.g. ok_p50 or failrate **/
+		public String valueName(HSRRecordState state) { 
+			return (isOkNok) ? state + "_" + name() : name();
+		}
+		
 		public static String getSQLAggregationPart() { 
 			return sqlAggregationPart;
 		}
@@ -223,6 +264,28 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 	public static final  ArrayList<String> valueNames = HSRMetric.getValueNames();
 	public static final String valueNamesJoined = "\""+String.join("\",\"", valueNames.toArray(new String[0]))+"\"";
 	
+	//-----------------------------------------
+	// Columnar value layout
+	private static final HSRMetric[] METRICS = HSRMetric.values();
+	
+	// number of value slots, OK/NOK metrics have a slot per state, other metrics use the slot of state ok
+	// must not exceed 64 as the presence of values is tracked in a long bitmask
+	private static final int VALUE_COUNT = HSRRecordState.values().length * METRICS.length;
+	
+	// value indexes in the same order as valueNames, used to iterate the values without lookups
+	private static final int[] valueNameIndexes = new int[valueNames.size()];
+	static {
+		int i = 0;
+		for(HSRRecordState state : HSRRecordState.values()) {
+			for(HSRMetric metric : METRICS) {
+				if(metric.isOkNok()) { valueNameIndexes[i++] = valueIndex(state, metric); }
+			}
+		}
+		for(HSRMetric metric : METRICS) {
+			if( ! metric.isOkNok() ) { valueNameIndexes[i++] = valueIndex(null, metric); }
+		}
+	}
+	
 	
 	private static String sqlTableColumnDefinitions;
 	private static String sqlTableColumnNames;
@@ -268,6 +331,9 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 													  + " VALUES (?"+ 
 													  			", ?".repeat( fieldNames.size() + valueNames.size() ) 
 													  +")";
+	
+	// insert statements by table name, the same SQL string is used for every insert
+	private static ConcurrentHashMap<String, String> sqlInsertIntoCache = new ConcurrentHashMap<>();
 
 	
 	/***********************************************************************
@@ -289,10 +355,12 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		this.pathRecord = stats.pathRecord;
 		this.code = stats.code;
 		this.granularity = stats.granularity;
+		this.metricID = stats.metricID;
 		this.statsIdentifier = stats.statsIdentifier;
 		this.sla = stats.sla;
 		
-		this.values = new HashMap<>(stats.values);
+		this.values = stats.values.clone();
+		this.presence = stats.presence;
 	}
 	
 	/***********************************************************************
@@ -329,7 +397,6 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		this.usecase 	= recordStatsObject.get(RecordField.usecase.toString())		.getAsString();
 		this.name  		= recordStatsObject.get(RecordField.name.toString())		.getAsString();
 		this.path 		= recordStatsObject.get(RecordField.path.toString())		.getAsString();
-		this.pathRecord = recordStatsObject.get(FIELD_PATHRECORD)					.getAsString();
 		this.code 		= recordStatsObject.get(RecordField.code.toString())		.getAsString();
 		this.granularity= recordStatsObject.get(RecordField.granularity.toString())	.getAsInt();
 		
@@ -340,7 +407,14 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		
 		//----------------------------
 		// Create Identifier
-		this.statsIdentifier = HSRRecord.createStatsIdentifier(type, test, path, name, code);
+		this.metricID = HSRMetricRegistry.getMetricID(type, test, HSRMetricRegistry.getPathID(path), name, code);
+		this.statsIdentifier = HSRMetricRegistry.getStatsIdentifier(metricID);
+		
+		// path record is not stored in the database
+		JsonElement pathRecordElement = recordStatsObject.get(FIELD_PATHRECORD);
+		this.pathRecord = (pathRecordElement != null && !pathRecordElement.isJsonNull()) 
+							? pathRecordElement.getAsString() 
+							: HSRMetricRegistry.getPathRecord(metricID);
 		
 		//----------------------------
 		// Parse SLA Rule
@@ -367,7 +441,7 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 				if(metric.isOkNok()) {
 					JsonElement current = recordStatsObject.get(state + "_" + metric);
 					if(current != null && !current.isJsonNull()) {
-						this.setValue(state,metric, current.getAsBigDecimal());
+						this.setValue(state,metric, current.getAsDouble());
 					}
 				}
 			}
@@ -379,7 +453,7 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 			if(!metric.isOkNok()) {
 				JsonElement current = recordStatsObject.get(metric.toString());
 				if(current != null && !current.isJsonNull()) {
-					this.setValue(null, metric, current.getAsBigDecimal());
+					this.setValue(null, metric, current.getAsDouble());
 				}
 			}
 		}
@@ -387,6 +461,29 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		
 	}
 	
+	/***********************************************************************
+	 * Creates a new instance without values, e.g. when reading statistics
+	 * back from a file. Values can be set with setValue().
+	 * 
+	 ***********************************************************************/
+	public HSRRecordStats(long time, HSRRecordType type, String test, String usecase, String path, String name, String code, int granularity){	
+		
+		this.time 		= time;
+		this.type 		= type;
+		this.test 		= test;
+		this.usecase 	= usecase;
+		this.path 		= path;
+		this.name  		= name;
+		this.code 		= code;
+		this.granularity= granularity;
+		
+		//----------------------------
+		// Create Identifier
+		this.metricID = HSRMetricRegistry.getMetricID(type, test, HSRMetricRegistry.getPathID(path), name, code);
+		this.statsIdentifier = HSRMetricRegistry.getStatsIdentifier(metricID);
+		this.pathRecord = HSRMetricRegistry.getPathRecord(metricID);
+	}
+	
 	/***********************************************************************
 	 * Creates a basics stats instance with the data of the record.
 	 * 
@@ -403,11 +500,14 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		this.test = record.test().intern();
 		this.usecase = record.usecase().intern();
 		this.name = record.name().intern();
-		this.path = record.getPath().intern();
-		this.pathRecord = record.getPathRecord().intern();
 		this.code = record.code().intern();
 		this.granularity = HSRConfig.getInterval();
-		this.statsIdentifier = record.getStatsIdentifier().intern();
+		
+		// strings are interned by the registry
+		this.metricID = record.getMetricID();
+		this.path = HSRMetricRegistry.getMetricPath(metricID);
+		this.pathRecord = HSRMetricRegistry.getPathRecord(metricID);
+		this.statsIdentifier = HSRMetricRegistry.getStatsIdentifier(metricID);
 
 	}
 	
@@ -416,7 +516,32 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 	 * 
 	 ***********************************************************************/
 	public void clearValues() {
-		values = new HashMap<>();
+		values = new double[VALUE_COUNT];
+		presence = 0;
+	}
+	
+	/***********************************************************************
+	 * Returns the index of the value for the given state and metric.
+	 * 
+	 * @param state of the value, ignored if the metric is not an OK/NOK 
+	 * metric.
+	 * @param metric the metric of the value
+	 ***********************************************************************/
+	public static int valueIndex(HSRRecordState state, HSRMetric metric) {
+		
+		if( ! metric.isOkNok() || state == null) { 
+			return metric.ordinal(); 
+		}
+		
+		return (state.ordinal() * METRICS.length) + metric.ordinal();
+	}
+	
+	/***********************************************************************
+	 * Returns the value indexes in the same order as the names in the 
+	 * list valueNames.
+	 ***********************************************************************/
+	public static int[] valueNameIndexes() {
+		return valueNameIndexes.clone();
 	}
 	
 	/***********************************************************************
@@ -424,7 +549,7 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 	 * 
 	 ***********************************************************************/
 	public void setValue(HSRRecordState state, HSRMetric metric, int value) {
-		setValue(state, metric, new BigDecimal(value));
+		setValue(state, metric, (double)value);
 	}
 	
 	/***********************************************************************
@@ -435,6 +560,17 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		
 		if(value == null) { return; }
 		
+		setValue(state, metric, value.doubleValue());
+	}
+	
+	/***********************************************************************
+	 * Sets or replaces the specified value.
+	 * 
+	 ***********************************************************************/
+	public void setValue(HSRRecordState state, HSRMetric metric, double value) {
+		
+		if(Double.isNaN(value)) { return; }
+		
 		// If the type is a Count, do not add any other metrics except count
 		if(this.type().isCount() 
 		&& metric != HSRMetric.count
@@ -443,22 +579,25 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 			return;
 		}
 		
-		String metricString = metric.toString();
-		if(metric.isOkNok()) {
-			values.put(state +"_"+metric, value);
-		}else {
-			values.put(metricString, value);
-//			if( ! values.containsKey(metricString) ) {
-//				
-//			}else {
-//				BigDecimal currentValue = values.get(metricString);
-//				values.put(metricString, value.add(currentValue));
-//			}
-		}
+		int index = valueIndex(state, metric);
+		values[index] = value;
+		presence |= (1L << index);
 
 	}
 	
-	
+	/***********************************************************************
+	 * Sets or replaces the value with the given index.
+	 * 
+	 * @param index the index as returned by valueIndex()
+	 * @param value the value, NaN is ignored
+	 ***********************************************************************/
+	public void setValue(int index, double value) {
+		
+		if(Double.isNaN(value)) { return; }
+		
+		values[index] = value;
+		presence |= (1L << index);
+	}
 	
 	/***********************************************************************
 	 * Creates a clone of the instance.
@@ -482,31 +621,111 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 	 ***********************************************************************/
 	public String toCSV(String separator) {
 		
-		String csv = time 
-					+ separator + type.toString()
-					+ separator + test.replace(separator, "_")
-					+ separator + usecase.replace(separator, "_")  
-					+ separator + path.replace(separator, "_").replace("\n", " ")  
-					+ separator + name.replace(separator, "_").replace("\n", " ")  
-					+ separator + code.replace(separator, "_")  
-					+ separator + granularity
-					;
-				
-		for(String name : valueNames) {
-			BigDecimal val = values.get(name);
-			val = (val == null) ? BigDecimal.ZERO : val;
-			csv += separator + val.toPlainString(); 
-		}
+		StringBuilder builder = new StringBuilder(256);
+		appendCSV(builder, separator);
 		
-		return csv;
+		return builder.toString();
 
 	}
 	
+	/***********************************************************************
+	 * Appends the record as a CSV data record to the builder, without
+	 * creating intermediate strings. Same format as toCSV().
+	 ***********************************************************************/
+	public void appendCSV(StringBuilder builder, String separator) {
+		
+		builder.append(time)
+			   .append(separator).append(type.toString());
+		
+		builder.append(separator); appendCSVField(builder, test, separator, false);
+		builder.append(separator); appendCSVField(builder, usecase, separator, false);
+		builder.append(separator); appendCSVField(builder, path, separator, true);
+		builder.append(separator); appendCSVField(builder, name, separator, true);
+		builder.append(separator); appendCSVField(builder, code, separator, false);
+		
+		builder.append(separator).append(granularity);
+		
+		for(int index : valueNameIndexes) {
+			builder.append(separator);
+			if( hasValue(index) ) 	{ appendValue(builder, values[index]); }
+			else					{ builder.append('0'); }
+		}
+	}
+	
+	/***********************************************************************
+	 * Appends the value and replaces the separator with underscores and 
+	 * optionally newlines with blanks.
+	 ***********************************************************************/
+	private static void appendCSVField(StringBuilder builder, String value, String separator, boolean replaceNewlines) {
+		
+		int start = builder.length();
+		builder.append(value);
+		
+		if( ! separator.isEmpty() ) {
+			int index = builder.indexOf(separator, start);
+			while(index >= 0) {
+				builder.replace(index, index + separator.length(), "_");
+				index = builder.indexOf(separator, index + 1);
+			}
+		}
+		
+		if(replaceNewlines) {
+			for(int i = start; i < builder.length(); i++) {
+				if(builder.charAt(i) == '\n') { builder.setCharAt(i, ' '); }
+			}
+		}
+	}
+	
 	/***********************************************************************
 	 * 
 	 ***********************************************************************/
 	public String toJsonString() {
-		return this.toJson().toString();
+		
+		StringWriter out = new StringWriter(512);
+		try {
+			JsonWriter writer = new JsonWriter(out);
+			writer.setStrictness(Strictness.LENIENT);
+			writeJson(writer);
+		}catch(IOException e) {
+			// cannot happen with a StringWriter
+			return this.toJson().toString();
+		}
+		
+		return out.toString();
+	}
+	
+	/***********************************************************************
+	 * Writes the record as a JSON object to the writer, without creating a
+	 * JsonObject. Contains the same fields as toJson().
+	 * The writer has to be lenient if values can be NaN or Infinity.
+	 ***********************************************************************/
+	public void writeJson(JsonWriter writer) throws IOException {
+		
+		writer.beginObject();
+		
+		writer.name(RecordField.time.toString()).value(time);
+		writer.name(RecordField.type.toString()).value(type.toString());
+		writer.name(RecordField.test.toString()).value(test);
+		writer.name(RecordField.usecase.toString()).value(usecase);
+		writer.name(RecordField.path.toString()).value(path);
+		writer.name(FIELD_PATHRECORD).value(pathRecord);
+		writer.name(RecordField.name.toString()).value(name);
+		writer.name(RecordField.code.toString()).value(code);
+		writer.name(RecordField.granularity.toString()).value(granularity);
+		
+		//----------------------------
+		// SLA
+		writer.name(FIELD_SLA);
+		if(sla != null) { writer.value(sla.toString()); }
+		else			{ writer.nullValue(); }
+		
+		//----------------------------
+		// Values
+		for(int i = 0; i < valueNameIndexes.length; i++) {
+			writer.name(valueNames.get(i)).value(getValueNumber(valueNameIndexes[i]));
+		}
+		
+		writer.endObject();
 	}
 	
 	
@@ -536,23 +755,9 @@ public class HSRRecordStats implements Comparable<HSRRecordStats> {
 		}
 		
 		//----------------------------
-		// OK-NOK Values
-		for(HSRRecordState state : HSRRecordState.values()) {
-			for(HSRMetric metric : HSRMetric.values()) {
-				if(metric.isOkNok()) {
-					object.addProperty(state + "_" + metric, this.getValue(state,metric));
-				}
-			}
-		}
-		
-		//----------------------------
-		// Non OK-NOK Values
-		for(HSRRecordState state : HSRRecordState.values()) {
-			for(HSRMetric metric : HSRMetric.values()) {
-				if(!metric.isOkNok()) {
-					object.addProperty(metric.toString(), this.getValue(state,metric));
-				}
-			}
+		// Values
+		for(int i = 0; i < valueNameIndexes.length; i++) {
+			object.addProperty(valueNames.get(i), getValueNumber(valueNameIndexes[i]));
 		}
 		
 		return object;
@@ -669,46 +874,81 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	}
 	
 	/***********************************************************************
-	 * Returns an insert statement 
+	 * Returns an insert statement for the given table, the values can be
+	 * retrieved with getInsertValues().
 	 ***********************************************************************/
-	public boolean insertIntoDatabase(DBInterface db, int testID, String tableName) {
-
-		if(db == null || tableName == null) { return false; }
-		
-		String insertSQL = sqlInsertIntoTemplate.replace("{tablename}", tableName);
+	public static String createSQL_InsertInto(String tableName) {
+		return sqlInsertIntoCache.computeIfAbsent(tableName, name -> sqlInsertIntoTemplate.replace("{tablename}", name));
+	}
 	
-		ArrayList<Object> valueList = new ArrayList<>();
+	/***********************************************************************
+	 * Returns the values for the statement of createSQL_InsertInto(), 
+	 * in the same order as the columns.
+	 ***********************************************************************/
+	public Object[] getInsertValues(int testID) {
 		
-		valueList.add(testID);
-		valueList.add(time);
-		valueList.add(type.toString());
-		valueList.add(test);
-		valueList.add(usecase);
-		valueList.add(path);
-		valueList.add(name);
-		valueList.add(code);
-		valueList.add(granularity);
+		Object[] valueArray = new Object[1 + fieldNames.size() + valueNameIndexes.length];
+		
+		valueArray[0] = testID;
+		valueArray[1] = time;
+		valueArray[2] = type.toString();
+		valueArray[3] = test;
+		valueArray[4] = usecase;
+		valueArray[5] = path;
+		valueArray[6] = name;
+		valueArray[7] = code;
+		valueArray[8] = granularity;
 		
 		//------------------------------------
-		// OK NOK Metrics
-		for(HSRRecordState state : HSRRecordState.values()) {
-			for(HSRMetric metric : HSRMetric.values()) {
-				if(metric.isOkNok()) {
-					valueList.add(this.getValue(state,metric));
-				}
-			}
+		// Values, same order as the columns
+		int i = 9;
+		for(int index : valueNameIndexes) {
+			valueArray[i++] = hasValue(index) ? HSRRecord.toBigDecimal(values[index]) : null;
 		}
+		
+		return valueArray;
+	}
+	
+	/***********************************************************************
+	 * Sets the values for the statement of createSQL_InsertInto() directly
+	 * on the prepared statement, in the same order as getInsertValues().
+	 ***********************************************************************/
+	public void bindInsertValues(PreparedStatement prepared, int testID) throws SQLException {
+		
+		prepared.setInt(1, testID);
+		prepared.setLong(2, time);
+		prepared.setString(3, type.toString());
+		prepared.setString(4, test);
+		prepared.setString(5, usecase);
+		prepared.setString(6, path);
+		prepared.setString(7, name);
+		prepared.setString(8, code);
+		prepared.setInt(9, granularity);
+		
 		//------------------------------------
-		// NOT okNok Metrics
-		for(HSRMetric metric : HSRMetric.values()) {
-			if(!metric.isOkNok()) {
-				valueList.add(this.getValue(null,metric));
-			}
+		// Values, same order as the columns
+		int i = 10;
+		for(int index : valueNameIndexes) {
+			if(hasValue(index)) { prepared.setBigDecimal(i++, HSRRecord.toBigDecimal(values[index])); }
+			else				{ prepared.setNull(i++, Types.DECIMAL); }
 		}
+	}
+	
+	/***********************************************************************
+	 * Inserts this statistics into the database.
+	 ***********************************************************************/
+	public boolean insertIntoDatabase(DBInterface db, int testID, String tableName) {
 
-				
-		return db.preparedExecute(insertSQL, valueList.toArray());
+		if(db == null || tableName == null) { return false; }
 		
+		int rows = db.preparedExecuteBatch(
+						  createSQL_InsertInto(tableName)
+						, List.of(this)
+						, 1
+						, (prepared, stats) -> stats.bindInsertValues(prepared, testID)
+					);
+		
+		return rows > 0;
 
 	}
 	
@@ -717,7 +957,7 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	 ***********************************************************************/
 	@Override
 	public int hashCode() {
-		return statsIdentifier.hashCode();
+		return metricID;
 	}
 	
 	/***********************************************************************
@@ -725,7 +965,8 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	 ***********************************************************************/
 	@Override
     public boolean equals(Object obj) {
-        return obj.hashCode() == this.hashCode();
+        return (obj instanceof HSRRecordStats other) 
+        	&& other.metricID == this.metricID;
     }
 	
 	/***********************************************************************
@@ -831,6 +1072,14 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	}
 	
 	
+	/******************************************************************
+	 * Returns the id of the metric in the HSRMetricRegistry, records
+	 * with the same id have the same stats identifier.
+	 ******************************************************************/
+	public int metricID() {
+		return metricID;
+	}
+	
 	/******************************************************************
 	 * Returns the stats identifier
 	 ******************************************************************/
@@ -865,13 +1114,73 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	 * 
 	 * @param state of the value to retrieve, ignored if the metric is 
 	 * not an OK/NOK metric.
-	 * @return metric the metric to retrieve
+	 * @return metric the metric to retrieve, null if not set
 	 ***********************************************************************/
 	public BigDecimal getValue(HSRRecordState state, HSRMetric metric) {
-		if(metric.isOkNok) {
-			return values.get(state + "_" + metric);
+		
+		int index = valueIndex(state, metric);
+		
+		return hasValue(index) ? HSRRecord.toBigDecimal(values[index]) : null;
+	}
+	
+	/***********************************************************************
+	 * Returns the selected value as a primitive.
+	 * 
+	 * @param state of the value to retrieve, ignored if the metric is 
+	 * not an OK/NOK metric.
+	 * @return metric the metric to retrieve, NaN if not set
+	 ***********************************************************************/
+	public double getValueDouble(HSRRecordState state, HSRMetric metric) {
+		return getValueDouble( valueIndex(state, metric) );
+	}
+	
+	/***********************************************************************
+	 * Returns the value with the given index as a primitive.
+	 * 
+	 * @param index the index as returned by valueIndex()
+	 * @return value, NaN if not set
+	 ***********************************************************************/
+	public double getValueDouble(int index) {
+		return hasValue(index) ? values[index] : Double.NaN;
+	}
+	
+	/***********************************************************************
+	 * Returns the value with the given index as a Long if it has no 
+	 * decimal places, else as a Double.
+	 * 
+	 * @param index the index as returned by valueIndex()
+	 * @return value, null if not set
+	 ***********************************************************************/
+	public Number getValueNumber(int index) {
+		
+		if( ! hasValue(index) ) { return null; }
+		
+		double value = values[index];
+		if(value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return (long)value;
+		}
+		
+		return value;
+	}
+	
+	/***********************************************************************
+	 * Returns true if the value with the given index is set.
+	 * 
+	 * @param index the index as returned by valueIndex()
+	 ***********************************************************************/
+	public boolean hasValue(int index) {
+		return (presence & (1L << index)) != 0;
+	}
+	
+	/***********************************************************************
+	 * Appends the value to the builder without exponent notation.
+	 ***********************************************************************/
+	public static void appendValue(StringBuilder builder, double value) {
+		
+		if(value == Math.rint(value) && Math.abs(value) < 1e15) {
+			builder.append( (long)value );
 		}else {
-			return values.get(metric.toString());
+			builder.append( BigDecimal.valueOf(value).toPlainString() );
 		}
 	}
 	
@@ -879,8 +1188,15 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 	 * Returns a clone of the values. 
 	 ***********************************************************************/
 	public HashMap<String, BigDecimal> getValues() {
+		
 		HashMap<String, BigDecimal> clone = new HashMap<>();
-		clone.putAll(values);
+		for(int i = 0; i < valueNameIndexes.length; i++) {
+			int index = valueNameIndexes[i];
+			if( hasValue(index) ) {
+				clone.put(valueNames.get(i), HSRRecord.toBigDecimal(values[index]));
+			}
+		}
+		
 		return clone;
 	}
 	
@@ -915,9 +1231,9 @@ GROUP BY "type","test","usecase","path","metric","code","granularity"
 
 		if(status == null) { return false; }
 		
-		BigDecimal value = this.getValue(status, HSRMetric.count);
+		double value = this.getValueDouble(status, HSRMetric.count);
 		
-		return  (value != null && value.compareTo(BigDecimal.ZERO) != 0) ;
+		return  ( ! Double.isNaN(value) && value != 0 ) ;
 
 	}
 		
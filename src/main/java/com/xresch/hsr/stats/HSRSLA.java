@@ -2,7 +2,7 @@ package com.xresch.hsr.stats;
 
 import java.math.BigDecimal;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,7 +45,7 @@ public class HSRSLA {
 	
 	// key is either HSRRecord.getPathRecord() or HSRRecordStats.pathRecord(), will be added the first time the sla is encountered
 	// used to add it to reports
-	private static TreeMap<String, HSRSLA> slaCache = new TreeMap<>();
+	private static ConcurrentSkipListMap<String, HSRSLA> slaCache = new ConcurrentSkipListMap<>();
 	
 	/******************************************************************************
 	 * Constructor
@@ -160,8 +160,8 @@ public class HSRSLA {
 	 * @param sla 
 	 ***************************************************************************/
 	public static void cacheAdd(String path, HSRSLA sla) {
-		if(!slaCache.containsKey(path)) {
-			slaCache.put(path, sla);
+		if(path != null && sla != null) {
+			slaCache.putIfAbsent(path, sla);
 		}
 	}
 	
@@ -0,0 +1,375 @@
+package com.xresch.hsr.stats;
+
+import java.util.Map.Entry;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Reduces the number of points of the series that are attached to the summary records, in the structure
+ * created by HSRSeriesStore.toJson():
+ * <pre><code>
+ * {"ok":{"count":[13,7,9],"min":[1,1,1], ...}, "nok":{...}, "time":[1756984424567, ...]}
+ * </code></pre>
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRSeriesDownsampler {
+
+	private static final String FIELD_TIME = "time";
+	private static final String FIELD_OK = "ok";
+
+	/******************************************************************************
+	 * The method used to reduce the points of a series.
+	 ******************************************************************************/
+	public enum HSRDownsampling {
+		/** keep all points */
+		  NONE
+		/** merge consecutive points into buckets, see minAvgMax() */
+		, MIN_AVG_MAX
+		/** keep the most significant points, see lttb() */
+		, LTTB
+	}
+
+	/******************************************************************************
+	 * Downsamples the series with the given method.
+	 *
+	 * @param series the series of a record
+	 * @param method the downsampling method
+	 * @param maxPoints the maximum number of points
+	 * @param isGauge true if the counts are gauges, e.g. for the types User and System
+	 *
+	 * @return a new series, or the given series if nothing has to be reduced
+	 ******************************************************************************/
+	public static JsonObject downsample(JsonObject series, HSRDownsampling method, int maxPoints, boolean isGauge) {
+
+		if(series == null || method == null) { return series; }
+
+		return switch(method) {
+			case MIN_AVG_MAX 	-> minAvgMax(series, maxPoints, isGauge);
+			case LTTB 			-> lttb(series, maxPoints, isGauge);
+			default 			-> series;
+		};
+	}
+
+	/******************************************************************************
+	 * Downsamples every record in the array that has a "series" and replaces it.
+	 * The records in the array are modified.
+	 *
+	 * @param records the summary records as created by the stats engine
+	 * @param method the downsampling method
+	 * @param maxPoints the maximum number of points per series
+	 ******************************************************************************/
+	public static void downsampleRecords(JsonArray records, HSRDownsampling method, int maxPoints) {
+
+		if(method == null || method == HSRDownsampling.NONE) { return; }
+
+		for(JsonElement element : records) {
+
+			if( ! element.isJsonObject() ) { continue; }
+
+			JsonObject record = element.getAsJsonObject();
+			JsonElement series = record.get("series");
+
+			if(series == null || !series.isJsonObject()) { continue; }
+
+			record.add("series", downsample(series.getAsJsonObject(), method, maxPoints, isGauge(record)) );
+		}
+	}
+
+	/******************************************************************************
+	 * Returns true if the type of the record JSON is a gauge.
+	 ******************************************************************************/
+	public static boolean isGauge(JsonObject record) {
+
+		JsonElement type = record.get("type");
+		if(type == null || type.isJsonNull()) { return false; }
+
+		try {
+			return HSRRecordType.valueOf(type.getAsString()).isGauge();
+		}catch(IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/******************************************************************************
+	 * Reduces the series with the Largest-Triangle-Three-Buckets algorithm.
+	 * The points are selected based on the OK average, or the OK count if the
+	 * series has no averages (e.g. for counts and gauges). The values of all
+	 * metrics are taken from the selected points, so the metrics stay aligned
+	 * on the same time. First and last point are always kept.
+	 *
+	 * @param series the series of a record
+	 * @param maxPoints the maximum number of points, minimum 3
+	 * @param isGauge not used, for symmetry with minAvgMax()
+	 *
+	 * @return a new series, or the given series if it has not more than maxPoints
+	 ******************************************************************************/
+	public static JsonObject lttb(JsonObject series, int maxPoints, boolean isGauge) {
+
+		JsonArray time = series.getAsJsonArray(FIELD_TIME);
+
+		if(time == null || maxPoints < 3 || time.size() <= maxPoints) {
+			return series;
+		}
+
+		int size = time.size();
+
+		//---------------------------
+		// Values to select by
+		double[] x = new double[size];
+		double[] y = new double[size];
+
+		JsonArray driver = driverValues(series);
+
+		for(int i = 0; i < size; i++) {
+			x[i] = time.get(i).getAsDouble();
+			y[i] = (driver != null) ? valueAt(driver, i) : 0;
+		}
+
+		//---------------------------
+		// Select Points
+		int[] selected = new int[maxPoints];
+		selected[0] = 0;
+		selected[maxPoints - 1] = size - 1;
+
+		double bucketSize = (double)(size - 2) / (maxPoints - 2);
+		int previous = 0;
+
+		for(int b = 0; b < maxPoints - 2; b++) {
+
+			int bucketStart = (int)Math.floor(b * bucketSize) + 1;
+			int bucketEnd = (int)Math.floor((b + 1) * bucketSize) + 1;
+
+			// average of the next bucket, or the last point
+			int nextStart = bucketEnd;
+			int nextEnd = Math.min(size, (int)Math.floor((b + 2) * bucketSize) + 1);
+			if(b == maxPoints - 3) { nextStart = size - 1; nextEnd = size; }
+
+			double avgX = 0;
+			double avgY = 0;
+			for(int i = nextStart; i < nextEnd; i++) { avgX += x[i]; avgY += y[i]; }
+			int nextCount = Math.max(1, nextEnd - nextStart);
+			avgX /= nextCount;
+			avgY /= nextCount;
+
+			// point with the largest triangle
+			double maxArea = -1;
+			int maxIndex = bucketStart;
+			for(int i = bucketStart; i < bucketEnd; i++) {
+				double area = Math.abs(
+						  (x[previous] - avgX) * (y[i] - y[previous])
+						- (x[previous] - x[i]) * (avgY - y[previous])
+					);
+
+				if(area > maxArea) {
+					maxArea = area;
+					maxIndex = i;
+				}
+			}
+
+			selected[b + 1] = maxIndex;
+			previous = maxIndex;
+		}
+
+		//---------------------------
+		// Create Result
+		JsonObject result = new JsonObject();
+
+		for(Entry<String, JsonElement> entry : series.entrySet()) {
+
+			if(entry.getKey().equals(FIELD_TIME)) {
+				result.add(FIELD_TIME, select(time, selected));
+				continue;
+			}
+
+			if( ! entry.getValue().isJsonObject() ) { continue; }
+
+			JsonObject stateObject = new JsonObject();
+			for(Entry<String, JsonElement> metricEntry : entry.getValue().getAsJsonObject().entrySet()) {
+				stateObject.add(metricEntry.getKey(), select(metricEntry.getValue().getAsJsonArray(), selected));
+			}
+
+			result.add(entry.getKey(), stateObject);
+		}
+
+		return result;
+	}
+
+	/******************************************************************************
+	 * Returns the values the LTTB points are selected by.
+	 ******************************************************************************/
+	private static JsonArray driverValues(JsonObject series) {
+
+		JsonElement ok = series.get(FIELD_OK);
+		if(ok == null || !ok.isJsonObject()) { return null; }
+
+		JsonObject okObject = ok.getAsJsonObject();
+
+		JsonArray avg = okObject.getAsJsonArray(HSRMetric.avg.toString());
+		if(avg != null && hasNonZero(avg)) { return avg; }
+
+		return okObject.getAsJsonArray(HSRMetric.count.toString());
+	}
+
+	/******************************************************************************
+	 * Returns true if the array contains a value other than zero.
+	 ******************************************************************************/
+	private static boolean hasNonZero(JsonArray array) {
+		for(int i = 0; i < array.size(); i++) {
+			if(valueAt(array, i) != 0) { return true; }
+		}
+		return false;
+	}
+
+	/******************************************************************************
+	 * Returns the value at the index, zero if missing or null.
+	 ******************************************************************************/
+	private static double valueAt(JsonArray array, int index) {
+		if(index >= array.size()) { return 0; }
+
+		JsonElement element = array.get(index);
+		return (element == null || element.isJsonNull()) ? 0 : element.getAsDouble();
+	}
+
+	/******************************************************************************
+	 * Returns the elements at the selected indexes.
+	 ******************************************************************************/
+	private static JsonArray select(JsonArray array, int[] selected) {
+
+		JsonArray result = new JsonArray(selected.length);
+		for(int index : selected) {
+			result.add( (index < array.size()) ? array.get(index) : JsonNull.INSTANCE );
+		}
+
+		return result;
+	}
+
+	/******************************************************************************
+	 * Merges consecutive points into buckets so that the series has at most the
+	 * given number of points. The time of a bucket is the time of its first point,
+	 * the values are aggregated the same way as by the age out of the database:
+	 * counts are summed (averaged for gauges), min and max are kept and all other
+	 * values are averaged.
+	 *
+	 * @param series the series of a record
+	 * @param maxPoints the maximum number of points
+	 * @param isGauge true if the counts are gauges, e.g. for the types User and System
+	 *
+	 * @return a new series, or the given series if it has not more than maxPoints
+	 ******************************************************************************/
+	public static JsonObject minAvgMax(JsonObject series, int maxPoints, boolean isGauge) {
+
+		JsonArray time = series.getAsJsonArray(FIELD_TIME);
+
+		if(time == null || maxPoints < 1 || time.size() <= maxPoints) {
+			return series;
+		}
+
+		int size = time.size();
+		int bucketSize = (size + maxPoints - 1) / maxPoints;
+
+		JsonObject result = new JsonObject();
+
+		for(Entry<String, JsonElement> entry : series.entrySet()) {
+
+			//---------------------------
+			// Time
+			if(entry.getKey().equals(FIELD_TIME)) {
+				JsonArray timeArray = new JsonArray();
+				for(int i = 0; i < size; i += bucketSize) {
+					timeArray.add(time.get(i));
+				}
+				result.add(FIELD_TIME, timeArray);
+				continue;
+			}
+
+			if( ! entry.getValue().isJsonObject() ) { continue; }
+
+			//---------------------------
+			// Values by State
+			JsonObject stateObject = new JsonObject();
+			for(Entry<String, JsonElement> metricEntry : entry.getValue().getAsJsonObject().entrySet()) {
+
+				JsonArray values = metricEntry.getValue().getAsJsonArray();
+				HSRMetric metric = metricOrNull(metricEntry.getKey());
+
+				JsonArray aggregated = new JsonArray();
+				for(int i = 0; i < size; i += bucketSize) {
+					addNumber(aggregated, aggregate(metric, isGauge, values, i, Math.min(size, i + bucketSize)) );
+				}
+
+				stateObject.add(metricEntry.getKey(), aggregated);
+			}
+
+			result.add(entry.getKey(), stateObject);
+		}
+
+		return result;
+	}
+
+	/******************************************************************************
+	 * Aggregates the values from (inclusive) to (exclusive).
+	 ******************************************************************************/
+	private static double aggregate(HSRMetric metric, boolean isGauge, JsonArray values, int from, int to) {
+
+		double sum = 0;
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		int count = 0;
+
+		for(int i = from; i < to && i < values.size(); i++) {
+
+			JsonElement element = values.get(i);
+			if(element == null || element.isJsonNull()) { continue; }
+
+			double value = element.getAsDouble();
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			count++;
+		}
+
+		if(count == 0) { return 0; }
+
+		double avg = sum / count;
+
+		if(metric == null) { return avg; }
+
+		return switch(metric) {
+			case count 		-> isGauge ? avg : sum;
+			case min 		-> min;
+			case max 		-> max;
+			case sla 		-> Math.rint(avg);
+			case success, failed, skipped, aborted, none -> sum;
+			default 		-> avg;
+		};
+	}
+
+	/******************************************************************************
+	 * Adds the value as a long if it has no decimals to reduce the size.
+	 ******************************************************************************/
+	private static void addNumber(JsonArray array, double value) {
+		if(value == Math.rint(value) && Math.abs(value) < 1e15) {
+			array.add( (long)value );
+		}else {
+			array.add( value );
+		}
+	}
+
+	/******************************************************************************
+	 * Returns the metric for the name, null if unknown.
+	 ******************************************************************************/
+	private static HSRMetric metricOrNull(String name) {
+		try {
+			return HSRMetric.valueOf(name);
+		}catch(IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
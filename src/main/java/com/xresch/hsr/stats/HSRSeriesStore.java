@@ -0,0 +1,159 @@
+package com.xresch.hsr.stats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Columnar store for the time series of the statistics of every report interval, used for the summary
+ * report. The values of each metric are stored in arrays of primitive doubles, one array per value index
+ * of HSRRecordStats. Arrays are only created once a value other than zero has been added, metrics that are
+ * never set (e.g. nok values or percentiles of counts) do not use any memory.
+ *
+ * This class is not thread safe, it is meant to be used by the thread of the stats engine.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license EPL-License
+ **************************************************************************************************************/
+public class HSRSeriesStore {
+
+	private static final HSRRecordState[] STATES = HSRRecordState.values();
+	private static final HSRMetric[] METRICS = HSRMetric.values();
+	private static final int COLUMN_COUNT = STATES.length * METRICS.length;
+	
+	// indexes of the values to store, non OK/NOK metrics only once
+	private static final int[] VALUE_INDEXES = HSRRecordStats.valueNameIndexes();
+
+	// key is the metric id of the HSRMetricRegistry
+	private final HashMap<Integer, Series> seriesMap = new HashMap<>();
+
+	/******************************************************************************
+	 * Adds the values of the statistics to the series of its metric.
+	 ******************************************************************************/
+	public void add(HSRRecordStats stats) {
+		seriesMap.computeIfAbsent(stats.metricID(), k -> new Series()).add(stats);
+	}
+
+	/******************************************************************************
+	 * Returns true if nothing has been added to the store.
+	 ******************************************************************************/
+	public boolean isEmpty() {
+		return seriesMap.isEmpty();
+	}
+
+	/******************************************************************************
+	 * Removes all series.
+	 ******************************************************************************/
+	public void clear() {
+		seriesMap.clear();
+	}
+
+	/******************************************************************************
+	 * Returns the series of the metric as JSON, in the structure used by the
+	 * summary reports:
+	 * <pre><code>
+	 * {"ok":{"count":[13,7,9],"min":[1,1,1], ...}, "nok":{...}, "time":[1756984424567, ...]}
+	 * </code></pre>
+	 * Missing values are returned as zero.
+	 *
+	 * @param metricID the id of the metric
+	 * @return JSON object, null if there is no series for the metric
+	 ******************************************************************************/
+	public JsonObject toJson(int metricID) {
+
+		Series series = seriesMap.get(metricID);
+		if(series == null) { return null; }
+
+		return series.toJson();
+	}
+
+	/**************************************************************************************************************
+	 * Time series of a single metric.
+	 **************************************************************************************************************/
+	private static class Series {
+
+		private long[] time = new long[16];
+		private double[][] columns = new double[COLUMN_COUNT][];
+		private int size = 0;
+
+		/******************************************************************************
+		 * Adds one row of values.
+		 ******************************************************************************/
+		private void add(HSRRecordStats stats) {
+
+			if(size == time.length) {
+				time = Arrays.copyOf(time, size * 2);
+			}
+
+			time[size] = stats.time();
+
+			for(int index : VALUE_INDEXES) {
+
+				double value = stats.getValueDouble(index);
+				if(Double.isNaN(value) || value == 0) { continue; }
+
+				double[] column = columns[index];
+
+				if(column == null) {
+					column = new double[time.length];
+					columns[index] = column;
+				}else if(column.length < time.length) {
+					column = Arrays.copyOf(column, time.length);
+					columns[index] = column;
+				}
+
+				column[size] = value;
+			}
+
+			size++;
+		}
+
+		/******************************************************************************
+		 * Converts the series into JSON.
+		 ******************************************************************************/
+		private JsonObject toJson() {
+
+			JsonObject result = new JsonObject();
+
+			for(HSRRecordState state : STATES) {
+
+				JsonObject stateObject = new JsonObject();
+
+				for(HSRMetric metric : METRICS) {
+
+					double[] column = columns[HSRRecordStats.valueIndex(state, metric)];
+
+					JsonArray array = new JsonArray(size);
+					for(int i = 0; i < size; i++) {
+
+						double value = (column != null && i < column.length) ? column[i] : 0;
+
+						if(value == Math.rint(value) && Math.abs(value) < 1e15) {
+							array.add( (long)value );
+						}else {
+							array.add( value );
+						}
+					}
+
+					stateObject.add(metric.toString(), array);
+				}
+
+				result.add(state.toString(), stateObject);
+			}
+
+			JsonArray timeArray = new JsonArray(size);
+			for(int i = 0; i < size; i++) {
+				timeArray.add(time[i]);
+			}
+
+			result.add("time", timeArray);
+
+			return result;
+		}
+	}
+
+}
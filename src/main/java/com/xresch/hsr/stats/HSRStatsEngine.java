@@ -6,12 +6,15 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.TreeMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -27,9 +30,12 @@ import com.xresch.hsr.base.HSRConfig;
 import com.xresch.hsr.base.HSRTestSettings;
 import com.xresch.hsr.reporting.HSRReporter;
 import com.xresch.hsr.reporting.HSRReporterDatabase;
+import com.xresch.hsr.reporting.HSRReporterDispatcher;
+import com.xresch.hsr.reporting.HSRReporterDispatcher.DispatchStatistics;
 import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
 import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
 import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+import com.xresch.hsr.stats.HSRSeriesDownsampler.HSRDownsampling;
 
 import ch.qos.logback.classic.Level;
 import oshi.SystemInfo;
@@ -65,19 +71,52 @@ public class HSRStatsEngine {
 	private static ArrayList<HSRRecordStats> customRecordStats = new ArrayList<>();
 	
 	//=========================================
-	// Tree Maps
+	// Record Buffer
 	//=========================================
-	// key is based on hashCode() which is the StatsIdentifier, value are all records that are part of the group
+	// striped lock-free buffer, records are grouped by StatsIdentifier when the buffer is drained
 	// these are aggregated and purged based on the report interval
-	private static TreeMap<String, ArrayList<HSRRecord> > groupedRecordsInterval = new TreeMap<>();
+	private static HSRRecordBuffer recordBuffer = new HSRRecordBuffer();
+	
+	// used to keep records for the raw data log when records are pre-aggregated
+	private static HSRRecordBuffer rawLogBuffer = new HSRRecordBuffer();
+	
+	// one accumulator per metric id of the HSRMetricRegistry, used to aggregate records on the thread that adds them
+	private static volatile HSRAccumulatorTable accumulators = new HSRAccumulatorTable();
 	
+	//=========================================
+	// Tree Maps
+	//=========================================
 	// key is based on hashCode() which is the StatsIdentifier, value are all Stats that are part of the group
 	// these are used for making summary reports over the full test duration
 	private static TreeMap<String, ArrayList<HSRRecordStats>> groupedStats = new TreeMap<>();
 	
+	// key is the StatsIdentifier, value is the merged statistics of all intervals
+	// used instead of groupedStats when HSRConfig.summarySketches() is true
+	private static TreeMap<String, HSRRecordAccumulator> summaryAccumulators = new TreeMap<>();
+	private static HSRSeriesStore summarySeries = new HSRSeriesStore();
+	
 	//=========================================
 	// Thread Management
 	//=========================================
+	// one dispatcher per reporter, each with its own queue and thread
+	private static ArrayList<HSRReporterDispatcher> dispatchers = new ArrayList<>();
+	
+	// maximum time to wait for the reporters to finish when the engine is stopped
+	private static final long REPORTER_DRAIN_TIMEOUT_MILLIS = 5 * 60 * 1000;
+	
+	// pool used to calculate statistics in parallel, see HSRConfig.aggregationParallelism()
+	private static ForkJoinPool aggregationPool = null;
+	
+	// minimum number of accumulators calculated by a single task
+	private static final int AGGREGATION_TASK_THRESHOLD = 64;
+	
+	// ranges smaller than this are sorted instead of partitioned when selecting percentiles
+	private static final int SELECT_SORT_THRESHOLD = 32;
+	
+	// self-monitoring values of the last aggregation
+	private static double lastAggregationMillis = 0;
+	private static int lastAggregationMetricCount = 0;
+	
 	private static boolean isStopped = false;
 	private static boolean isShutdownHookRegistered = false;
 	private static ScheduledExecutorService schedulerStatsEngine;
@@ -125,8 +164,12 @@ public class HSRStatsEngine {
 		//--------------------------------------
 		// Reset
 		isStopped = false;
-		groupedRecordsInterval = new TreeMap<>();
+		recordBuffer.clear();
+		rawLogBuffer.clear();
+		accumulators = new HSRAccumulatorTable();
 		groupedStats = new TreeMap<>();
+		summaryAccumulators = new TreeMap<>();
+		summarySeries = new HSRSeriesStore();
 		HSRSLA.cacheClear();
 		
 		//--------------------------------------
@@ -321,8 +364,10 @@ public class HSRStatsEngine {
 				threadSystemInfo.interrupt();
 			
 				aggregateAndReport();
+				drainReporters();
 				generateSummaryReport();
 				terminateReporters();
+				shutdownAggregationPool();
 			
 				//reset values
 				schedulerStatsEngine = null;
@@ -335,21 +380,181 @@ public class HSRStatsEngine {
 	}
 	
 	/***************************************************************************
-	 * Adds a record to the statistics engine
+	 * Adds a record to the statistics engine.
+	 * This method does not block, records are grouped when the engine 
+	 * aggregates the statistics.
 	 ***************************************************************************/
 	public static void addRecord(HSRRecord record) {
 
+		//--------------------------------------
+		// Pre-Aggregate
+		if(HSRConfig.aggregationPreAggregate()) {
+			
+			accumulate(accumulators, record);
+			
+			// only keep record if needed for raw data log
+			if(HSRConfig.isWriteRawDataLog()) {
+				rawLogBuffer.add(record);
+			}
+			
+			return;
+		}
+		
+		//--------------------------------------
+		// Aggregate on Interval
+		recordBuffer.add(record);
 
-		String id = record.getStatsIdentifier();
+	}
+	
+	/***************************************************************************
+	 * Folds the record into the accumulator of its stats identifier.
+	 * If the table or the accumulator has been closed by the stats engine in 
+	 * the meantime, the record is added to the accumulators of the next interval.
+	 ***************************************************************************/
+	private static void accumulate(HSRAccumulatorTable target, HSRRecord record) {
 		
-		synchronized (groupedRecordsInterval) {
-			if( !groupedRecordsInterval.containsKey(id) ) {
-				groupedRecordsInterval.put(id, new ArrayList<>() );
-			}
+		int id = record.getMetricID();
+		HSRAccumulatorTable current = target;
+		
+		while(true) {
+			
+			HSRRecordAccumulator accumulator = current.getOrCreate(id, () -> createAccumulator(record));
 			
-			groupedRecordsInterval.get(id).add(record);
+			if( accumulator != null && accumulator.add(record) ) { return; }
+			
+			current = accumulators;
 		}
+	}
+	
+	/***************************************************************************
+	 * Creates a new accumulator based on the current configuration.
+	 ***************************************************************************/
+	private static HSRRecordAccumulator createAccumulator(HSRRecord record) {
+		
+		boolean keepValues = ! HSRConfig.aggregationHistogram() 
+						  && ! HSRConfig.aggregationPreAggregate();
+		
+		return new HSRRecordAccumulator(record, keepValues, HSRConfig.aggregationHistogramPrecision());
+	}
+	
+	/***************************************************************************
+	 * Calculates the statistics of all the accumulators. Uses the 
+	 * aggregation pool if HSRConfig.aggregationParallelism() is bigger 
+	 * than 1.
+	 * 
+	 * @return array of statistics, in the same order as the accumulators
+	 ***************************************************************************/
+	private static HSRRecordStats[] calculateStats(
+			  ArrayList<HSRRecordAccumulator> accumulatorList
+			, long timeMillis
+			, double perHourMultiplier
+			){
+		
+		HSRRecordStats[] results = new HSRRecordStats[accumulatorList.size()];
+		int parallelism = HSRConfig.aggregationParallelism();
+		
+		if(parallelism <= 1 || results.length <= AGGREGATION_TASK_THRESHOLD) {
+			for(int i = 0; i < results.length; i++) {
+				results[i] = accumulatorList.get(i).toStats(timeMillis, perHourMultiplier);
+			}
+		}else {
+			getAggregationPool(parallelism).invoke(
+					new AggregationTask(accumulatorList, results, 0, results.length, timeMillis, perHourMultiplier)
+				);
+		}
+		
+		return results;
+	}
+	
+	/***************************************************************************
+	 * Returns the pool used for parallel aggregation, creates a new pool if
+	 * the parallelism has changed.
+	 ***************************************************************************/
+	private static ForkJoinPool getAggregationPool(int parallelism) {
+		
+		if(aggregationPool == null || aggregationPool.getParallelism() != parallelism) {
+			shutdownAggregationPool();
+			aggregationPool = new ForkJoinPool(parallelism);
+		}
+		
+		return aggregationPool;
+	}
+	
+	/***************************************************************************
+	 * Shuts down the pool used for parallel aggregation.
+	 ***************************************************************************/
+	private static void shutdownAggregationPool() {
+		
+		if(aggregationPool != null) {
+			aggregationPool.shutdown();
+			aggregationPool = null;
+		}
+	}
+	
+	/**************************************************************************************************************
+	 * Task that calculates the statistics of a range of accumulators, splits itself until the range is
+	 * smaller than AGGREGATION_TASK_THRESHOLD. Every result is written to the index of its accumulator,
+	 * which keeps the order deterministic.
+	 **************************************************************************************************************/
+	private static class AggregationTask extends RecursiveAction {
 
+		private static final long serialVersionUID = 1L;
+		
+		private final ArrayList<HSRRecordAccumulator> accumulatorList;
+		private final HSRRecordStats[] results;
+		private final int start;
+		private final int end;
+		private final long timeMillis;
+		private final double perHourMultiplier;
+		
+		private AggregationTask(
+				  ArrayList<HSRRecordAccumulator> accumulatorList
+				, HSRRecordStats[] results
+				, int start
+				, int end
+				, long timeMillis
+				, double perHourMultiplier
+				) {
+			this.accumulatorList = accumulatorList;
+			this.results = results;
+			this.start = start;
+			this.end = end;
+			this.timeMillis = timeMillis;
+			this.perHourMultiplier = perHourMultiplier;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if(end - start <= AGGREGATION_TASK_THRESHOLD) {
+				for(int i = start; i < end; i++) {
+					results[i] = accumulatorList.get(i).toStats(timeMillis, perHourMultiplier);
+				}
+				return;
+			}
+			
+			int middle = (start + end) >>> 1;
+			invokeAll(
+				  new AggregationTask(accumulatorList, results, start, middle, timeMillis, perHourMultiplier)
+				, new AggregationTask(accumulatorList, results, middle, end, timeMillis, perHourMultiplier)
+			);
+		}
+	}
+	
+	/***************************************************************************
+	 * Returns the accumulator used to summarize the statistics over the 
+	 * whole test, creates it if it does not exist.
+	 ***************************************************************************/
+	private static HSRRecordAccumulator getSummaryAccumulator(HSRRecordStats stats) {
+		
+		HSRRecordAccumulator summary = summaryAccumulators.get(stats.statsIdentifier());
+		
+		if(summary == null) {
+			summary = new HSRRecordAccumulator(stats, HSRConfig.aggregationHistogramPrecision());
+			summaryAccumulators.put(stats.statsIdentifier(), summary);
+		}
+		
+		return summary;
 	}
 	
 	/***************************************************************************
@@ -550,6 +755,70 @@ public class HSRStatsEngine {
 		}
 
 	}
+	/***************************************************************************
+	 * Creates the statistics about HSR itself.
+	 ***************************************************************************/
+	private static void createSelfMonitoringRecords() {
+		
+		if( ! HSRConfig.statsSelfMonitoring() ) { return; }
+		
+		String test = HSR.getTest();
+		
+		ArrayList<String> pathlist = new ArrayList<>();
+		pathlist.add(hostname);
+		pathlist.add("HSR");
+		
+		//------------------------------
+		// Aggregation of the previous interval
+		addSelfMonitoringRecord(test, pathlist, "Aggregation Duration [ms]", lastAggregationMillis);
+		addSelfMonitoringRecord(test, pathlist, "Aggregation Metric Count", lastAggregationMetricCount);
+		
+		//------------------------------
+		// Reporter Dispatchers
+		for(HSRReporterDispatcher dispatcher : dispatchers) {
+			
+			String reporterName = dispatcher.reporter().getClass().getSimpleName();
+			DispatchStatistics statistics = dispatcher.pollStatistics();
+			
+			addSelfMonitoringRecord(test, pathlist, "Reporter Queue Size: " + reporterName, statistics.queueSize());
+			addSelfMonitoringRecord(test, pathlist, "Reporter Duration Avg [ms]: " + reporterName, statistics.avgLatencyMillis());
+			addSelfMonitoringRecord(test, pathlist, "Reporter Duration Max [ms]: " + reporterName, statistics.maxLatencyMillis());
+			addSelfMonitoringRecord(test, pathlist, "Reporter Dropped Intervals: " + reporterName, statistics.droppedBatches());
+		}
+	}
+	
+	/***************************************************************************
+	 * Adds a self-monitoring record for a component of HSR, e.g. a reporter.
+	 * The record will be reported with the next report interval. Does nothing
+	 * if self-monitoring is disabled.
+	 * 
+	 * @param name the name of the statistic, including unit and component
+	 * @param value the value, will be rounded to one decimal place
+	 ***************************************************************************/
+	public static void addSelfMonitoringRecord(String name, double value) {
+		
+		if( ! HSRConfig.statsSelfMonitoring() || isStopped ) { return; }
+		
+		ArrayList<String> pathlist = new ArrayList<>();
+		pathlist.add(hostname);
+		pathlist.add("HSR");
+		
+		addSelfMonitoringRecord(HSR.getTest(), pathlist, name, value);
+	}
+	
+	/***************************************************************************
+	 * Adds a self-monitoring record, rounded to one decimal place.
+	 ***************************************************************************/
+	private static void addSelfMonitoringRecord(String test, ArrayList<String> pathlist, String name, double value) {
+		
+		addRecord(
+			new HSRRecord(HSRRecordType.System, name)
+				.test(test)
+				.pathlist(pathlist)
+				.value(new BigDecimal(value).setScale(1, RoundingMode.HALF_UP))
+			);
+	}
+	
 	/***************************************************************************
 	 * Creates user records and adds them to the list of records.
 	 ***************************************************************************/
@@ -568,7 +837,7 @@ public class HSRStatsEngine {
 					.test(test)
 					.usecase(usecase)
 					.pathlist(null)
-					.value(new BigDecimal(amount))
+					.value(amount)
 					;
 			
 			addRecord(record);
@@ -585,7 +854,7 @@ public class HSRStatsEngine {
 					.test(test)
 					.usecase(usecase)
 					.pathlist(null)
-					.value(new BigDecimal(amount))
+					.value(amount)
 					;
 			
 			addRecord(record);
@@ -607,7 +876,7 @@ public class HSRStatsEngine {
 					new HSRRecord(HSRRecordType.User, "Stopped")
 					.test(test)
 					.usecase(usecase)
-					.value(new BigDecimal(amount))
+					.value(amount)
 					;
 			
 			addRecord(record);
@@ -629,7 +898,8 @@ public class HSRStatsEngine {
 		
 		//--------------------------------------
 		// Check Has Data
-		if(groupedRecordsInterval.isEmpty()
+		if(recordBuffer.isEmpty()
+		&& accumulators.isEmpty()
 		&& customRecordStats.isEmpty()) { return; }
 		
 		//-------------------------------
@@ -644,191 +914,93 @@ public class HSRStatsEngine {
 
 		createUserRecords();
 		createSystemUsageRecords();
+		createSelfMonitoringRecords();
 
 		//----------------------------------------
-		// Steal Reference to not block writing
-		// new records
+		// Steal accumulators and drain buffers, 
+		// does not block writing new records
+		long aggregationStartNanos = System.nanoTime();
 		ArrayList<HSRRecordStats> statsRecordList = new ArrayList<>();
 		
-		TreeMap<String, ArrayList<HSRRecord> > groupedRecordsCurrent;
+		HSRAccumulatorTable accumulatorsCurrent;
+		StringBuilder rawLog = new StringBuilder();
+		boolean writeRawLog = HSRConfig.isWriteRawDataLog();
 		
 		synchronized (SYNC_RECORD_MODIFICATION) {  
-			synchronized (groupedRecordsInterval) {
-				groupedRecordsCurrent = groupedRecordsInterval;
-				groupedRecordsInterval = new TreeMap<>();
-			}
+			
+			accumulatorsCurrent = accumulators;
+			accumulators = new HSRAccumulatorTable();
+			
+			//----------------------------------------
+			// Aggregate buffered records
+			recordBuffer.drain(record -> {
+				
+				if(writeRawLog) { rawLog.append(record.toLogString()).append("\n"); }
+				
+				accumulate(accumulatorsCurrent, record);
+			});
+			
+			//----------------------------------------
+			// Raw log of pre-aggregated records
+			rawLogBuffer.drain(record -> {
+				if(writeRawLog) { rawLog.append(record.toLogString()).append("\n"); }
+			});
 		}
 		
 		//----------------------------------------
-		// Iterate Groups
+		// Close Accumulators, records added after
+		// this will go to the next interval.
+		// Close the table first, else a producer still
+		// holding it could add an accumulator that is
+		// not seen by the close pass.
+		accumulatorsCurrent.close();
+		
+		ArrayList<HSRRecordAccumulator> accumulatorList = new ArrayList<>(accumulatorsCurrent.size());
+		accumulatorsCurrent.forEach(accumulator -> {
+			accumulator.close();
+			accumulatorList.add(accumulator);
+		});
+		
+		//----------------------------------------
+		// Calculate Statistics
 		long timeMillis = System.currentTimeMillis(); // make sure every record has the exact time, needed for proper stacked charts
 		int granularity = HSRConfig.getInterval();
-		BigDecimal perHourMultiplier = new BigDecimal(3600f / granularity);
+		double perHourMultiplier = 3600d / granularity;
 		
-		StringBuilder rawLog = new StringBuilder();
+		HSRRecordStats[] calculated = calculateStats(accumulatorList, timeMillis, perHourMultiplier);
 		
-		for(Entry<String, ArrayList<HSRRecord>> entry : groupedRecordsCurrent.entrySet()) {
-			
-			ArrayList<HSRRecord> records = entry.getValue();
-			
-			//---------------------------
-			// Make list of Sorted Values
-			ArrayList<BigDecimal> ok_values = new ArrayList<>();
-			ArrayList<BigDecimal> nok_values = new ArrayList<>();
-			BigDecimal ok_sum = BigDecimal.ZERO;
-			BigDecimal nok_sum = BigDecimal.ZERO;
-			
-			BigDecimal success = BigDecimal.ZERO;
-			BigDecimal failed = BigDecimal.ZERO;
-			BigDecimal skipped = BigDecimal.ZERO;
-			BigDecimal aborted = BigDecimal.ZERO;
-			BigDecimal none = BigDecimal.ZERO;
-			
-			for(HSRRecord record : records) {
-				BigDecimal value = record.value();
-				
-				//------------------------------
-				// Create Raw Log
-				if(HSRConfig.isWriteRawDataLog()) { rawLog.append(record.toLogString()).append("\n"); };
-				
-				//------------------------------
-				// Get Values
-				if(value != null) {
-					
-					switch(record.status().state()) {
-					
-						case ok:	ok_values.add(value);
-									ok_sum = ok_sum.add(value);
-									break;
-									
-						case nok:	nok_values.add(value);
-									nok_sum = nok_sum.add(value);
-									break;
-						default:	break;
-	
-					}
-					
-					switch(record.status()) {
-						case Success: 	success = success.add(BigDecimal.ONE);  break;
-						case Failed: 	failed = failed.add(BigDecimal.ONE);  break;
-						case Skipped: 	skipped = skipped.add(BigDecimal.ONE);  break;
-						case Aborted: 	aborted = aborted.add(BigDecimal.ONE);  break;
-						case None: 		none = none.add(BigDecimal.ONE);  break;
-					default: /* ignore others */ break;
-					}
-				}
-			}
-			
-			//---------------------------
-			// Create StatsRecord
-			HSRRecord firstRecord = records.get(0);
-			
-			HSRRecordStats statsRecord = new HSRRecordStats(firstRecord);
-			statsRecord.time(timeMillis);
-			statsRecordList.add(statsRecord);
-			
-			statsRecord.setValue(HSRRecordState.ok, HSRMetric.success, 	success);
-			statsRecord.setValue(HSRRecordState.ok, HSRMetric.failed, 	failed);
-			statsRecord.setValue(HSRRecordState.ok, HSRMetric.skipped, 	skipped);
-			statsRecord.setValue(HSRRecordState.ok, HSRMetric.aborted, 	aborted);
-			statsRecord.setValue(HSRRecordState.ok, HSRMetric.none, 	none);
-			
-			//---------------------------
-			// Calculate failure Rate
-			BigDecimal ok_count 	= new BigDecimal(ok_values.size());
-			BigDecimal nok_count 	= new BigDecimal(nok_values.size());
-
-			calculateFailrate(statsRecord, ok_count, nok_count, failed);
-
-			//---------------------------
-			// Calculate OK Stats
-			if( ! ok_values.isEmpty()) {
-				// sort, needed for calculating the stats
-				ok_values.sort(null);
-				
-				BigDecimal ok_avg 		= ok_sum.divide(ok_count, RoundingMode.HALF_UP);
-				
-				if(firstRecord.type().isCount()) {
-					
-					if( ! firstRecord.type().isGauge() ) { 
-						statsRecord.setValue(HSRRecordState.ok, HSRMetric.count, ok_sum);
-						statsRecord.setValue(HSRRecordState.ok, HSRMetric.cph,	ok_sum.multiply(perHourMultiplier));
-					} else { 
-						statsRecord.setValue(HSRRecordState.ok, HSRMetric.count, ok_avg);
-					}
-					
-				}else {
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.count,	ok_count);
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.cph,		ok_count.multiply(perHourMultiplier));
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.min,  	ok_values.get(0));
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.avg, 		ok_avg);
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.max, 		ok_values.get( ok_values.size()-1 ));
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.stdev, 	bigStdev(ok_values, ok_avg, false));
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p25, 		bigPercentile(25, ok_values) );
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p50, 		bigPercentile(50, ok_values) );
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p75, 		bigPercentile(75, ok_values) );
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p90, 		bigPercentile(90, ok_values) );
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p95, 		bigPercentile(95, ok_values) );
-					statsRecord.setValue(HSRRecordState.ok, HSRMetric.p99, 		bigPercentile(99, ok_values) );
-				}
-			}
-
-			//---------------------------
-			// Calculate NOK Stats
-			if( ! nok_values.isEmpty()) {
-				
-				// sort, needed for calculating the stats
-				nok_values.sort(null);
-				
-				BigDecimal nok_avg 		= nok_sum.divide(nok_count, RoundingMode.HALF_UP);
-				
-				if(firstRecord.type().isCount()) {
-					if( ! firstRecord.type().isGauge() ) { 
-						statsRecord.setValue(HSRRecordState.nok, HSRMetric.count, nok_sum);
-						statsRecord.setValue(HSRRecordState.nok, HSRMetric.cph,	  nok_sum.multiply(perHourMultiplier));
-					} else { 
-						statsRecord.setValue(HSRRecordState.nok, HSRMetric.count, nok_avg);
-					}
-				}else {
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.count, 	nok_count);
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.cph,		nok_count.multiply(perHourMultiplier));
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.min,  	nok_values.get(0));
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.avg, 		nok_avg);
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.max, 		nok_values.get( nok_values.size()-1 ));
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.stdev, 	bigStdev(nok_values, nok_avg, false));
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p25, 		bigPercentile(25, nok_values) );
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p50, 		bigPercentile(50, nok_values) );
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p75, 		bigPercentile(75, nok_values) );
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p90, 		bigPercentile(90, nok_values) );
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p95, 		bigPercentile(95, nok_values) );
-					statsRecord.setValue(HSRRecordState.nok, HSRMetric.p99, 		bigPercentile(99, nok_values) );
-				}
-
-			}
+		//----------------------------------------
+		// Iterate Statistics, same order as 
+		// accumulators
+		boolean useSketches = ! HSRConfig.disableSummaryReports() && HSRConfig.summarySketches();
+		
+		for(int i = 0; i < calculated.length; i++) {
+			HSRRecordStats stats = calculated[i];
+			statsRecordList.add(stats);
 			
-			//---------------------------
-			// Calculate SLA
-			HSRSLA sla = firstRecord.sla();
-			statsRecord.sla(sla);
-			if(sla != null) {
-				
-				String path = firstRecord.getPathRecord();
-				HSRSLA.cacheAdd(path, sla);
-				
-				calculateSLA(statsRecord, sla);
-
+			if(useSketches) {
+				getSummaryAccumulator(stats).merge(accumulatorList.get(i));
 			}
-			
 		}
 		
 		//-------------------------------
 		// Add custom statistics
+		if(useSketches) {
+			for(HSRRecordStats stats : customRecordStats) {
+				getSummaryAccumulator(stats).merge(stats);
+			}
+		}
+		
 		statsRecordList.addAll(customRecordStats);
 		customRecordStats.clear();
 		
 		//-------------------------------
 		// Add To Grouped Stats
-		if( ! HSRConfig.disableSummaryReports() ) {
+		if(useSketches) {
+			for(HSRRecordStats value : statsRecordList) {
+				summarySeries.add(value);
+			}
+		}else if( ! HSRConfig.disableSummaryReports() ) {
 			for(HSRRecordStats value : statsRecordList) {
 				String statsId = value.statsIdentifier();
 				
@@ -852,6 +1024,11 @@ public class HSRStatsEngine {
 			}
 		});
 		
+		//-------------------------------
+		// Keep Duration for Self-Monitoring
+		lastAggregationMillis = (System.nanoTime() - aggregationStartNanos) / 1_000_000d;
+		lastAggregationMetricCount = statsRecordList.size();
+		
 		//-------------------------------
 		// Report Stats
 		sendRecordsToReporter(statsRecordList);
@@ -1005,14 +1182,12 @@ public class HSRStatsEngine {
 										case cph	-> 		value = HSR.Math.bigAvg(metricValues, 0, true); 
 										case max	->		value = HSR.Math.bigMax(metricValues);				
 										case min	->		value = HSR.Math.bigMin(metricValues);				
-										case p25	->		value = HSR.Math.bigPercentile(25, metricValues);	
-										case p50	->		value = HSR.Math.bigPercentile(50, metricValues);	
-										case p75	->		value = HSR.Math.bigPercentile(75, metricValues);	
-										case p90	->		value = HSR.Math.bigPercentile(90, metricValues);	
-										case p95	->		value = HSR.Math.bigPercentile(95, metricValues);	
-										case p99	->		value = HSR.Math.bigPercentile(99, metricValues);	
-										case stdev	->		value = HSR.Math.bigStdev(metricValues, false, 2);
-										default -> { /*do nothing */ }
+										case stdev	->		value = pooledStdev(currentGroupedStats, state);
+										default -> { 
+											if(recordMetric.isPercentile()) {
+												value = selectPercentile(recordMetric.percentile(), metricValues);
+											}
+										}
 									};
 									
 									summaryStats.setValue(state, recordMetric, value);
@@ -1076,9 +1251,7 @@ public class HSRStatsEngine {
 				
 				//-------------------------------
 				// Add Endtime to Properties
-				long endtime = System.currentTimeMillis();
-				HSRConfig.addProperty("[HSR] timeEndMillis", "" + endtime);
-				HSRConfig.addProperty("[HSR] timeEndTimestamp", "" + HSR.Time.formatMillisAsTimestamp(endtime) );
+				addEndTimeProperties();
 				
 				//-------------------------------
 				// Sort
@@ -1086,6 +1259,58 @@ public class HSRStatsEngine {
 				
 				return new SummarizedStats(finalRecords, finalRecordsJson);
 	}
+	
+	/***************************************************************************
+	 * Creates the summary from the accumulators that have been merged over
+	 * all intervals and the series kept in the columnar store.
+	 * 
+	 * @param summaryAccumulators the accumulators by StatsIdentifier
+	 * @param series the series of all the intervals
+	 ***************************************************************************/
+	public static SummarizedStats summarizeSketches(TreeMap<String, HSRRecordAccumulator> summaryAccumulators, HSRSeriesStore series) {
+		
+		ArrayList<HSRRecordStats> finalRecords = new ArrayList<>();
+		JsonArray finalRecordsJson = new JsonArray();
+		
+		long reportTime = System.currentTimeMillis();
+		int granularity = HSRConfig.getInterval();
+		
+		for(HSRRecordAccumulator accumulator : summaryAccumulators.values()) {
+			
+			int intervalCount = Math.max(1, accumulator.intervalCount());
+			double perHourMultiplier = 3600d / (granularity * intervalCount);
+			
+			HSRRecordStats summaryStats = accumulator.toStats(reportTime, perHourMultiplier);
+			finalRecords.add(summaryStats);
+			
+			JsonObject recordObject = summaryStats.toJson();
+			JsonObject recordSeries = series.toJson(summaryStats.metricID());
+			if(recordSeries != null) {
+				recordObject.add("series", recordSeries);
+			}
+			finalRecordsJson.add(recordObject);
+		}
+		
+		//-------------------------------
+		// Add Endtime to Properties
+		addEndTimeProperties();
+		
+		//-------------------------------
+		// Sort
+		finalRecords.sort(null);
+		
+		return new SummarizedStats(finalRecords, finalRecordsJson);
+	}
+	
+	/***************************************************************************
+	 * Adds the end time of the test to the properties.
+	 ***************************************************************************/
+	private static void addEndTimeProperties() {
+		long endtime = System.currentTimeMillis();
+		HSRConfig.addProperty("[HSR] timeEndMillis", "" + endtime);
+		HSRConfig.addProperty("[HSR] timeEndTimestamp", "" + HSR.Time.formatMillisAsTimestamp(endtime) );
+	}
+	
 	/***************************************************************************
 	 * Aggregates the grouped statistics and makes one final report
 	 * 
@@ -1095,10 +1320,15 @@ public class HSRStatsEngine {
 		//----------------------------------------
 		// Check if summary reports should be written
 		if( HSRConfig.disableSummaryReports() ) { return; }
-		if(groupedStats.isEmpty()) { return; }
-
 		
-		SummarizedStats summarized = summarizeGroupedStats(groupedStats, false);
+		SummarizedStats summarized;
+		if( HSRConfig.summarySketches() ) {
+			if(summaryAccumulators.isEmpty()) { return; }
+			summarized = summarizeSketches(summaryAccumulators, summarySeries);
+		}else {
+			if(groupedStats.isEmpty()) { return; }
+			summarized = summarizeGroupedStats(groupedStats, false);
+		}
 		
 		//-------------------------------
 		// Report Stats
@@ -1110,49 +1340,29 @@ public class HSRStatsEngine {
 	}
 	
 	/***************************************************************************
-	 * Send the records to the Reporters, resets the existingRecords.
+	 * Send the records to the Reporters. Each reporter gets its own copy of 
+	 * the list, which is queued by the dispatcher of the reporter.
 	 * 
 	 ***************************************************************************/
 	private static void sendRecordsToReporter( ArrayList<HSRRecordStats> finalRecords){
 		
-		//-------------------------
-		// Send Clone of list to each Reporter
-		//CountDownLatch latch = new CountDownLatch(HSRConfig.getReporterList().size());
-		
-		for (HSRReporter reporter : HSRConfig.getReporterList()){
-			ArrayList<HSRRecordStats> clone = new ArrayList<>();
-			clone.addAll(finalRecords);
-
-			// wrap with try catch to not stop reporting to all reporters
-			try {
-				
-				new Thread(new Runnable() {
-					@Override
-					public void run() {
-
-						if(!isStopped) { // prevent some exceptions
-							logger.debug("Report data to: "+reporter.getClass().getName());
-							reporter.reportRecords(clone);
-						}
-
-					}
-				}).start();
-				
-			}catch(Exception e) {
-				logger.error("Exception while reporting data.", e);
-			}
+		for (HSRReporterDispatcher dispatcher : dispatchers){
+			dispatcher.dispatch( new ArrayList<>(finalRecords) );
 		}
-		//-------------------------
-		// Wait for Completion
-//		try {
-//			latch.await();
-//		} catch (InterruptedException e) {
-//			logger.error("Waiting for coutndown interrupted.", e);
-//			Thread.currentThread().interrupt(); // restore interrupt flag		
-//		}
 
 	}
 	
+	/***************************************************************************
+	 * Waits until the reporters have reported all queued statistics.
+	 * 
+	 ***************************************************************************/
+	private static void drainReporters(){
+		
+		for (HSRReporterDispatcher dispatcher : dispatchers){
+			dispatcher.drain(REPORTER_DRAIN_TIMEOUT_MILLIS);
+		}
+	}
+	
 	/***************************************************************************
 	 * Send the records to the Reporters, resets the existingRecords.
 	 * 
@@ -1174,18 +1384,35 @@ public class HSRStatsEngine {
 		// List of SLAs
 		JsonObject slaForRecords = HSRSLA.cacheGetAsJson();
 		
+		//-------------------------
+		// Downsample Series
+		// raw series are only kept for reporters requiring them
+		JsonArray downsampledRecords = finalRecordsAarrayWithSeries;
+		HSRDownsampling downsampling = HSRConfig.summarySeriesDownsampling();
+		
+		if(downsampling != HSRDownsampling.NONE) {
+			boolean isRawRequired = false;
+			for (HSRReporter reporter : HSRConfig.getReporterList()){
+				isRawRequired |= reporter.requiresRawSeries();
+			}
+			
+			downsampledRecords = (isRawRequired) ? finalRecordsAarrayWithSeries.deepCopy() : finalRecordsAarrayWithSeries;
+			HSRSeriesDownsampler.downsampleRecords(downsampledRecords, downsampling, HSRConfig.summarySeriesMaxPoints());
+		}
+		
 		//-------------------------
 		// Send Clone of list to each Reporter
 		TreeMap<String,String> properties = HSRConfig.getProperties();
 		for (HSRReporter reporter : HSRConfig.getReporterList()){
 			ArrayList<HSRRecordStats> clone = new ArrayList<>(finalRecords);
+			JsonArray recordsWithSeries = (reporter.requiresRawSeries()) ? finalRecordsAarrayWithSeries : downsampledRecords;
 
 			// wrap with try catch to not stop reporting to all reporters
 			try {
 				logger.debug("Report Final data to: "+reporter.getClass().getName());
 				reporter.reportSummary(
 						  clone
-						, finalRecordsAarrayWithSeries.deepCopy()
+						, recordsWithSeries.deepCopy()
 						, new TreeMap<>(properties)
 						, slaForRecords.deepCopy()
 						, HSRConfig.getTestSettings()
@@ -1203,6 +1430,8 @@ public class HSRStatsEngine {
 	 ***************************************************************************/
 	public static void initializeReporters() {
 		
+		stopDispatchers();
+		
 		for(HSRReporter reporter : HSRConfig.getReporterList()) {
 			try {
 				logger.info("Initialize Reporter: "+reporter.getClass().getSimpleName());
@@ -1210,9 +1439,30 @@ public class HSRStatsEngine {
 			} catch (Throwable e) {
 				logger.warn("Error while initializing Reporter: "+e.getMessage(), e);
 			}
+			
+			dispatchers.add(
+				new HSRReporterDispatcher(
+					  reporter
+					, HSRConfig.reporterQueueSize()
+					, HSRConfig.reporterOverflowPolicy()
+				)
+			);
 		}
 	}
 	
+	/***************************************************************************
+	 * Reports the queued statistics and stops the dispatchers.
+	 * 
+	 ***************************************************************************/
+	private static void stopDispatchers() {
+		
+		for(HSRReporterDispatcher dispatcher : dispatchers) {
+			dispatcher.stop(REPORTER_DRAIN_TIMEOUT_MILLIS);
+		}
+		
+		dispatchers = new ArrayList<>();
+	}
+	
 	/***************************************************************************
 	 * Terminates the reporters
 	 * 
@@ -1223,6 +1473,10 @@ public class HSRStatsEngine {
 		// Execute Hook
 		hooks.beforeTerminate();
 		
+		//--------------------------------
+		// Stop Dispatchers
+		stopDispatchers();
+		
 		//--------------------------------
 		// Terminate Reporters
 		for(HSRReporter reporter : HSRConfig.getReporterList()) {
@@ -1254,6 +1508,158 @@ public class HSRStatsEngine {
 	}
 		
 	
+	/***********************************************************************************************
+	 * Returns the one-based nearest rank of the percentile, the same definition is used for exact
+	 * values and histograms.
+	 * 
+	 * @param percentile a value between 0 and 100, e.g. 99.9
+	 * @param count the number of values
+	 * @return rank between 1 and count
+	 * 
+	 ***********************************************************************************************/
+	public static long percentileRank(double percentile, long count) {
+		
+		// multiply first, keeps integer percentiles exact
+		long rank = (long)Math.ceil( (count * percentile) / 100d );
+		
+		if(rank < 1) { return 1; }
+		if(rank > count) { return count; }
+		
+		return rank;
+	}
+	
+	/***********************************************************************************************
+	 * Calculates multiple percentiles of unsorted values in one pass, without sorting all the 
+	 * values. Uses a multi-quantile quickselect: the values are partitioned around a pivot and only 
+	 * the partitions that contain a requested rank are processed further. If the partitioning does 
+	 * not converge (bad pivots), the remaining partition is sorted, which limits the worst case 
+	 * to O(n log n) (introselect). Expected effort is O(n) for a small number of percentiles.
+	 * 
+	 * The order of the values in the array is changed by this method.
+	 * 
+	 * @param values the values, will be reordered
+	 * @param count the number of values in the array that should be considered
+	 * @param percentiles the percentiles to calculate, values between 0 and 100, any order
+	 * @return the values at the percentiles, in the same order as the percentiles, NaN if count is 0
+	 * 
+	 ***********************************************************************************************/
+	public static double[] percentiles(double[] values, int count, double... percentiles) {
+		
+		double[] result = new double[percentiles.length];
+		
+		if(count == 0) {
+			Arrays.fill(result, Double.NaN);
+			return result;
+		}
+		
+		//---------------------------
+		// Zero-based index of ranks
+		int[] indexes = new int[percentiles.length];
+		for(int i = 0; i < percentiles.length; i++) {
+			indexes[i] = (int)percentileRank(percentiles[i], count) - 1;
+		}
+		
+		int[] indexesSorted = indexes.clone();
+		Arrays.sort(indexesSorted);
+		
+		//---------------------------
+		// Select
+		int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(count));
+		multiSelect(values, 0, count - 1, indexesSorted, 0, indexesSorted.length - 1, depthLimit);
+		
+		for(int i = 0; i < indexes.length; i++) {
+			result[i] = values[indexes[i]];
+		}
+		
+		return result;
+	}
+	
+	/***********************************************************************************************
+	 * Reorders the values between left and right so that every value at one of the given indexes 
+	 * is the value that would be at this index if the range would be sorted.
+	 * 
+	 * @param values the values
+	 * @param left first index of the range (inclusive)
+	 * @param right last index of the range (inclusive)
+	 * @param indexes sorted indexes to select
+	 * @param indexFrom first index in indexes that is within the range
+	 * @param indexTo last index in indexes that is within the range
+	 * @param depth remaining partitioning steps before falling back to sorting
+	 * 
+	 ***********************************************************************************************/
+	private static void multiSelect(double[] values, int left, int right, int[] indexes, int indexFrom, int indexTo, int depth) {
+		
+		while(indexFrom <= indexTo && left < right) {
+			
+			//---------------------------
+			// Small or degenerated range
+			if(right - left < SELECT_SORT_THRESHOLD || depth-- <= 0) {
+				Arrays.sort(values, left, right + 1);
+				return;
+			}
+			
+			//---------------------------
+			// Three-way partition, handles
+			// many equal values (e.g. 0 or 1 ms)
+			// [left, lower) < pivot
+			// [lower, upper] == pivot
+			// (upper, right] > pivot
+			double pivot = medianOfThree(values[left], values[(left + right) >>> 1], values[right]);
+			
+			int lower = left;
+			int upper = right;
+			int i = left;
+			while(i <= upper) {
+				double value = values[i];
+				if(value < pivot) 		{ swap(values, lower++, i++); }
+				else if(value > pivot) 	{ swap(values, i, upper--); }
+				else 					{ i++; }
+			}
+			
+			//---------------------------
+			// Split indexes by partition
+			int lowerEnd = indexFrom;
+			while(lowerEnd <= indexTo && indexes[lowerEnd] < lower) { lowerEnd++; }
+			
+			int upperStart = lowerEnd;
+			while(upperStart <= indexTo && indexes[upperStart] <= upper) { upperStart++; }
+			
+			//---------------------------
+			// Recurse lower, continue upper
+			if(indexFrom < lowerEnd) {
+				multiSelect(values, left, lower - 1, indexes, indexFrom, lowerEnd - 1, depth);
+			}
+			
+			left = upper + 1;
+			indexFrom = upperStart;
+		}
+	}
+	
+	/***********************************************************************************************
+	 * Returns the median of three values.
+	 ***********************************************************************************************/
+	private static double medianOfThree(double a, double b, double c) {
+		
+		if(a < b) {
+			if(b < c) 		{ return b; }
+			else if(a < c) 	{ return c; }
+			else 			{ return a; }
+		}else {
+			if(a < c) 		{ return a; }
+			else if(b < c) 	{ return c; }
+			else 			{ return b; }
+		}
+	}
+	
+	/***********************************************************************************************
+	 * Swaps two values of an array.
+	 ***********************************************************************************************/
+	private static void swap(double[] values, int i, int j) {
+		double temp = values[i];
+		values[i] = values[j];
+		values[j] = temp;
+	}
+	
 	/***********************************************************************************************
 	 * 
 	 * @param percentile a value between 0 and 100
@@ -1262,26 +1668,73 @@ public class HSRStatsEngine {
 	 ***********************************************************************************************/
 	public static BigDecimal bigPercentile(int percentile, List<BigDecimal> valuesSorted) {
 		
-		while( valuesSorted.remove(null) ); // remove all null values
+		valuesSorted.removeIf(Objects::isNull); // remove all null values
 		
 		int count = valuesSorted.size();
 		
 		if(count == 0) {
 			return null;
 		}
-				
-		int percentilePosition = (int)Math.ceil( count * (percentile / 100f) );
 		
-		//---------------------------
-		// Retrieve number
+		// one-based position, minus 1 to get index
+		return valuesSorted.get( (int)percentileRank(percentile, count) - 1 );
 		
-		if(percentilePosition > 0) {
-			// one-based position, minus 1 to get index
-			return valuesSorted.get(percentilePosition-1);
-		}else {
-			return valuesSorted.get(0);
+	}
+	
+	/***********************************************************************************************
+	 * Returns the pooled sample standard deviation over all the values of the statistics, 
+	 * calculated from count, average and standard deviation of every statistics. This is the 
+	 * standard deviation of the whole test and not the standard deviation of the standard 
+	 * deviations of the intervals.
+	 * 
+	 * @param statsList the statistics of the intervals
+	 * @param state the state to calculate the standard deviation for
+	 * @return standard deviation rounded to 3 significant digits
+	 * 
+	 ***********************************************************************************************/
+	public static BigDecimal pooledStdev(List<HSRRecordStats> statsList, HSRRecordState state) {
+		
+		HSRMoments moments = new HSRMoments();
+		
+		for(HSRRecordStats stats : statsList) {
+			
+			double count = stats.getValueDouble(state, HSRMetric.count);
+			double avg = stats.getValueDouble(state, HSRMetric.avg);
+			double stdev = stats.getValueDouble(state, HSRMetric.stdev);
+			
+			if(Double.isNaN(count) || count <= 0 || Double.isNaN(avg)) { continue; }
+			
+			moments.mergeStats((long)count, avg, Double.isNaN(stdev) ? 0 : stdev);
+		}
+		
+		double stdev = moments.stdev(false);
+		if(stdev == 0) { return BigDecimal.ZERO; }
+		
+		return new BigDecimal(stdev).round(new MathContext(3, RoundingMode.HALF_UP));
+	}
+	
+	/***********************************************************************************************
+	 * Returns the percentile of unsorted values using selection instead of sorting.
+	 * Null values are ignored.
+	 * 
+	 * @param percentile a value between 0 and 100, e.g. 99.9
+	 * @param values the values, will not be changed
+	 * @return the value at the percentile or null if there are no values
+	 * 
+	 ***********************************************************************************************/
+	public static BigDecimal selectPercentile(double percentile, List<BigDecimal> values) {
+		
+		double[] primitives = new double[values.size()];
+		int count = 0;
+		for(BigDecimal value : values) {
+			if(value != null) { primitives[count++] = value.doubleValue(); }
+		}
+		
+		if(count == 0) {
+			return null;
 		}
 		
+		return HSRRecord.toBigDecimal( percentiles(primitives, count, percentile)[0] );
 	}
 	
 	/***********************************************************************************************
@@ -0,0 +1,18 @@
+package com.xresch.hsr;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+
+/**************************************************************************************************************
+ * Runs all tests, this is the suite executed by the surefire plugin of the build.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+@Suite
+@SelectPackages("com.xresch.hsr")
+@IncludeClassNamePatterns(".*Test$")
+public class TestSuiteAll {
+
+}
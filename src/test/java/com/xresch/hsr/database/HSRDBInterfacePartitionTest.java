@@ -0,0 +1,149 @@
+package com.xresch.hsr.database;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.xresch.hsr.base.HSRConfig;
+import com.xresch.hsr.database.HSRDBInterface.HSRPartitionPeriod;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Tests the table per period partitioning of HSRDBInterface with two instances writing to the same in-memory
+ * H2 database, like two reporters or processes would do.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRDBInterfacePartitionTest {
+
+	private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+	private static final int RECORD_COUNT = 10;
+	private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+	private static DBInterface db;
+
+	/************************************************************************
+	 *
+	 ************************************************************************/
+	@BeforeAll
+	public static void setup() {
+
+		db = DBInterface.createDBInterface(
+				  "hsr-test-partition"
+				, "org.h2.Driver"
+				, "jdbc:h2:mem:hsrtestpartition;DB_CLOSE_DELAY=-1"
+				, "sa"
+				, ""
+			);
+
+		Assertions.assertNotNull(db, "Database interface could not be created.");
+
+		HSRConfig.databasePartitioning(HSRPartitionPeriod.DAY);
+	}
+
+	/************************************************************************
+	 *
+	 ************************************************************************/
+	@AfterAll
+	public static void teardown() {
+
+		HSRConfig.databasePartitioning(HSRPartitionPeriod.NONE);
+
+		if(db != null) {
+			db.closeAll();
+		}
+	}
+
+	/************************************************************************
+	 * A partition created by another instance must stay in the view when
+	 * this instance creates a new partition.
+	 ************************************************************************/
+	@Test
+	public void testViewContainsPartitionsOfOtherInstances() {
+
+		String prefix = "hsr_part";
+
+		HSRDBInterface first = new HSRDBInterface(db, prefix);
+		first.initializeDB();
+
+		HSRDBInterface second = new HSRDBInterface(db, prefix);
+		second.initializeDB();
+
+		int testID = first.insertTestGetPrimaryKey();
+		Assertions.assertTrue(testID > 0, "Test has been inserted.");
+
+		long today = HSRPartitionPeriod.DAY.periodStart(System.currentTimeMillis());
+
+		//---------------------------
+		// Second creates a partition
+		// the first does not know about
+		Assertions.assertTrue( second.reportRecords(testID, createRecords(today - 10 * DAY_MILLIS)) );
+		Assertions.assertEquals(RECORD_COUNT, countRows(first, testID));
+
+		//---------------------------
+		// First creates another partition
+		// and rebuilds the view
+		Assertions.assertTrue( first.reportRecords(testID, createRecords(today - 5 * DAY_MILLIS)) );
+		Assertions.assertEquals(RECORD_COUNT * 2, countRows(first, testID), "Rows of both partitions are in the view.");
+
+		//---------------------------
+		// Both partitions exist
+		Assertions.assertEquals(RECORD_COUNT, countRows(prefix + "_stats_p" + suffix(today - 10 * DAY_MILLIS), testID));
+		Assertions.assertEquals(RECORD_COUNT, countRows(prefix + "_stats_p" + suffix(today - 5 * DAY_MILLIS), testID));
+	}
+
+	/************************************************************************
+	 * Creates RECORD_COUNT records within the day starting at the given time.
+	 ************************************************************************/
+	private static ArrayList<HSRRecordStats> createRecords(long dayStart) {
+
+		ArrayList<HSRRecordStats> records = new ArrayList<>();
+
+		for(int i = 0; i < RECORD_COUNT; i++) {
+			HSRRecordStats stats = new HSRRecordStats(dayStart + i * 60_000L, HSRRecordType.Step, "Test", "Usecase", "Path", "Step_"+i, "", 60);
+			stats.setValue(HSRRecordState.ok, HSRMetric.count, i + 1);
+			records.add(stats);
+		}
+
+		return records;
+	}
+
+	/************************************************************************
+	 * Returns the partition suffix of the day, e.g. 20250131.
+	 ************************************************************************/
+	private static String suffix(long dayStart) {
+		return SUFFIX_FORMAT.format(Instant.ofEpochMilli(dayStart));
+	}
+
+	/************************************************************************
+	 * Returns the number of rows of the test in the statistics view.
+	 ************************************************************************/
+	private static int countRows(HSRDBInterface hsrDB, int testID) {
+		return countRows(hsrDB.tablenameStats, testID);
+	}
+
+	/************************************************************************
+	 * Returns the number of rows of the test in the table.
+	 ************************************************************************/
+	private static int countRows(String tableName, int testID) {
+
+		ResultSet result = db.preparedExecuteQuery("SELECT COUNT(*) FROM " + tableName + " WHERE testid = ?", testID);
+		Integer count = new HSRResultSetConverter(db, result).getFirstAsCount();
+
+		Assertions.assertNotNull(count, "Count of "+tableName);
+
+		return count;
+	}
+
+}
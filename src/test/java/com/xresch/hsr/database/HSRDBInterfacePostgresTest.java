@@ -0,0 +1,225 @@
+package com.xresch.hsr.database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.xresch.hsr.base.HSRConfig;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Tests the inserts of HSRDBInterfacePostgres with an in-memory H2 database in Postgres mode. H2 does not
+ * provide a PGConnection, therefore COPY is not available and the batched inserts have to be used.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRDBInterfacePostgresTest {
+
+	private static final int RECORD_COUNT = 25;
+	private static final int BATCH_SIZE = 7;
+
+	private static DBInterface db;
+	private static int originalBatchSize;
+
+	/************************************************************************
+	 *
+	 ************************************************************************/
+	@BeforeAll
+	public static void setup() {
+
+		db = DBInterface.createDBInterface(
+				  "hsr-test-postgres"
+				, "org.h2.Driver"
+				, "jdbc:h2:mem:hsrtestpostgres;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+				, "sa"
+				, ""
+			);
+
+		Assertions.assertNotNull(db, "Database interface could not be created.");
+
+		// make sure multiple batches are sent
+		originalBatchSize = HSRConfig.databaseBatchSize();
+		HSRConfig.databaseBatchSize(BATCH_SIZE);
+	}
+
+	/************************************************************************
+	 *
+	 ************************************************************************/
+	@AfterAll
+	public static void teardown() {
+
+		HSRConfig.databaseBatchSize(originalBatchSize);
+
+		if(db != null) {
+			db.closeAll();
+		}
+	}
+
+	/************************************************************************
+	 * COPY is requested, but the connection is not a PGConnection.
+	 ************************************************************************/
+	@Test
+	public void testCopyFallsBackToBatchedInserts() {
+
+		HSRDBInterfacePostgres hsrDB = new HSRDBInterfacePostgres(db, "hsr_fallback", true);
+		hsrDB.initializeDB();
+
+		int testID = hsrDB.insertTestGetPrimaryKey();
+		Assertions.assertTrue(testID > 0, "Test has been inserted.");
+
+		//---------------------------
+		// First write detects missing COPY
+		Assertions.assertTrue( hsrDB.reportRecords(testID, createRecords(0)) );
+		assertRows(hsrDB, testID, RECORD_COUNT, 0);
+
+		//---------------------------
+		// Following writes use inserts directly
+		Assertions.assertTrue( hsrDB.reportRecords(testID, createRecords(RECORD_COUNT)) );
+		assertRows(hsrDB, testID, RECORD_COUNT * 2, 0);
+	}
+
+	/************************************************************************
+	 * COPY disabled, batched inserts are used right away.
+	 ************************************************************************/
+	@Test
+	public void testBatchedInserts() {
+
+		HSRDBInterfacePostgres hsrDB = new HSRDBInterfacePostgres(db, "hsr_batched", false);
+		hsrDB.initializeDB();
+
+		int testID = hsrDB.insertTestGetPrimaryKey();
+		Assertions.assertTrue(testID > 0, "Test has been inserted.");
+
+		Assertions.assertTrue( hsrDB.reportRecords(testID, createRecords(0)) );
+		assertRows(hsrDB, testID, RECORD_COUNT, 0);
+
+		//---------------------------
+		// Summary uses the same path
+		Assertions.assertTrue( hsrDB.reportRecordsSummary(testID, createRecords(0)) );
+
+		ResultSet result = db.preparedExecuteQuery("SELECT COUNT(*) FROM "+hsrDB.tablenameStatsSummary+" WHERE testid = ?", testID);
+		Assertions.assertEquals(RECORD_COUNT, new HSRResultSetConverter(db, result).getFirstAsCount());
+	}
+
+	/************************************************************************
+	 * Nothing to write is not an error.
+	 ************************************************************************/
+	@Test
+	public void testEmptyRecords() {
+
+		HSRDBInterfacePostgres hsrDB = new HSRDBInterfacePostgres(db, "hsr_empty", true);
+		hsrDB.initializeDB();
+
+		int testID = hsrDB.insertTestGetPrimaryKey();
+
+		Assertions.assertTrue( hsrDB.reportRecords(testID, new ArrayList<>()) );
+		assertRows(hsrDB, testID, 0, 0);
+	}
+
+	/************************************************************************
+	 * Creates RECORD_COUNT records, the values are based on the index
+	 * starting at offset.
+	 ************************************************************************/
+	private static ArrayList<HSRRecordStats> createRecords(int offset) {
+
+		ArrayList<HSRRecordStats> records = new ArrayList<>();
+		long time = 1_700_000_000_000L;
+
+		for(int i = offset; i < offset + RECORD_COUNT; i++) {
+
+			HSRRecordStats stats = new HSRRecordStats(time + i * 15_000L, HSRRecordType.Step, "Test", "Usecase", "Path", name(i), "", 15);
+
+			stats.setValue(HSRRecordState.ok, HSRMetric.count, i + 1);
+			stats.setValue(HSRRecordState.ok, HSRMetric.avg, i + 0.5);
+			stats.setValue(HSRRecordState.ok, HSRMetric.max, i * 10);
+
+			// nok only for every second record, others stay null
+			if(i % 2 == 0) {
+				stats.setValue(HSRRecordState.nok, HSRMetric.count, 1);
+			}
+
+			records.add(stats);
+		}
+
+		return records;
+	}
+
+	/************************************************************************
+	 * Returns the name of the record with the given index, sortable.
+	 ************************************************************************/
+	private static String name(int index) {
+		return "Step_%03d".formatted(index);
+	}
+
+	/************************************************************************
+	 * Checks the number of rows and the values of the rows written by
+	 * createRecords().
+	 ************************************************************************/
+	private static void assertRows(HSRDBInterface hsrDB, int testID, int expectedCount, int offset) {
+
+		ResultSet result = db.preparedExecuteQuery(
+				  "SELECT"
+				+ "  name AS \"name\""
+				+ ", time AS \"time\""
+				+ ", type AS \"type\""
+				+ ", granularity AS \"granularity\""
+				+ ", ok_count AS \"ok_count\""
+				+ ", ok_avg AS \"ok_avg\""
+				+ ", ok_max AS \"ok_max\""
+				+ ", nok_count AS \"nok_count\""
+				+ " FROM " + hsrDB.tablenameStats
+				+ " WHERE testid = ?"
+				+ " ORDER BY name"
+				, testID
+			);
+
+		ArrayList<LinkedHashMap<String, Object>> rows = new HSRResultSetConverter(db, result).toListOfKeyValueMaps();
+
+		Assertions.assertEquals(expectedCount, rows.size(), "Row count");
+
+		for(int r = 0; r < rows.size(); r++) {
+
+			LinkedHashMap<String, Object> row = rows.get(r);
+			int i = offset + r;
+
+			Assertions.assertEquals(name(i), row.get("name"));
+			Assertions.assertEquals(1_700_000_000_000L + i * 15_000L, (long)toDouble(row.get("time")));
+			Assertions.assertEquals("Step", row.get("type"));
+			Assertions.assertEquals(15, (int)toDouble(row.get("granularity")));
+			Assertions.assertEquals(i + 1, toDouble(row.get("ok_count")));
+			Assertions.assertEquals(i + 0.5, toDouble(row.get("ok_avg")));
+			Assertions.assertEquals(i * 10, toDouble(row.get("ok_max")));
+
+			if(i % 2 == 0) {
+				Assertions.assertEquals(1, toDouble(row.get("nok_count")));
+			}else {
+				Assertions.assertNull(row.get("nok_count"));
+			}
+		}
+	}
+
+	/************************************************************************
+	 * Converts a numeric column value to a double.
+	 ************************************************************************/
+	private static double toDouble(Object value) {
+
+		Assertions.assertNotNull(value);
+
+		if(value instanceof BigDecimal decimal) {
+			return decimal.doubleValue();
+		}
+
+		return ((Number)value).doubleValue();
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.xresch.hsr.reporting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.xresch.hsr.stats.HSRRecord.HSRRecordState;
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+import com.xresch.hsr.stats.HSRRecordStats;
+import com.xresch.hsr.stats.HSRRecordStats.HSRMetric;
+
+/**************************************************************************************************************
+ * Tests that statistics written by HSRBinaryWriter are read back unchanged by HSRBinaryReader, with and without
+ * the footer of the file.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRBinaryTest {
+
+	private static final int BLOCK_ROWS = 10;
+	private static final int RECORD_COUNT = 25; // two full blocks and one written on close
+	private static final long START_TIME = 1_700_000_000_000L;
+
+	private static final int[] VALUE_INDEXES = HSRRecordStats.valueNameIndexes();
+
+	@TempDir
+	Path folder;
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testRoundTrip() throws IOException {
+
+		ArrayList<HSRRecordStats> records = createRecords();
+		File file = writeFile("roundtrip.hsrb", records);
+
+		ArrayList<HSRRecordStats> result = new HSRBinaryReader(file.getPath()).readAll();
+
+		assertRecords(records, result);
+	}
+
+	/************************************************************************
+	 * Only the records within the timeframe are returned, blocks outside
+	 * of it are skipped.
+	 ************************************************************************/
+	@Test
+	public void testReadTimeframe() throws IOException {
+
+		ArrayList<HSRRecordStats> records = createRecords();
+		File file = writeFile("timeframe.hsrb", records);
+
+		long startTime = START_TIME + 12 * 15_000L;
+		long endTime = START_TIME + 18 * 15_000L;
+
+		ArrayList<HSRRecordStats> expected = new ArrayList<>();
+		for(HSRRecordStats record : records) {
+			if(record.time() >= startTime && record.time() < endTime) { expected.add(record); }
+		}
+
+		ArrayList<HSRRecordStats> result = new ArrayList<>();
+		long count = new HSRBinaryReader(file.getPath()).read(startTime, endTime, result::add);
+
+		Assertions.assertEquals(expected.size(), count);
+		assertRecords(expected, result);
+	}
+
+	/************************************************************************
+	 * A file of a run that did not close the writer has no footer, all 
+	 * blocks are read sequentially.
+	 ************************************************************************/
+	@Test
+	public void testWithoutFooter() throws IOException {
+
+		ArrayList<HSRRecordStats> records = createRecords();
+		File file = writeFile("nofooter.hsrb", records);
+
+		truncate(file, footerOffset(file));
+
+		ArrayList<HSRRecordStats> result = new HSRBinaryReader(file.getPath()).readAll();
+
+		assertRecords(records, result);
+	}
+
+	/************************************************************************
+	 * An incomplete block at the end of the file is skipped.
+	 ************************************************************************/
+	@Test
+	public void testIncompleteLastBlock() throws IOException {
+
+		ArrayList<HSRRecordStats> records = createRecords();
+		File file = writeFile("incomplete.hsrb", records);
+
+		truncate(file, footerOffset(file) - 5);
+
+		ArrayList<HSRRecordStats> result = new HSRBinaryReader(file.getPath()).readAll();
+
+		assertRecords(records.subList(0, 2 * BLOCK_ROWS), result);
+	}
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testNotABinaryFile() throws IOException {
+
+		Path file = folder.resolve("invalid.hsrb");
+		Files.writeString(file, "this is not a binary file");
+
+		Assertions.assertThrows(IOException.class, () -> new HSRBinaryReader(file.toString()).readAll());
+	}
+
+	/************************************************************************
+	 * Creates records with times going back and forth, different strings
+	 * and values that are only partially set.
+	 ************************************************************************/
+	private static ArrayList<HSRRecordStats> createRecords() {
+
+		ArrayList<HSRRecordStats> records = new ArrayList<>();
+
+		for(int i = 0; i < RECORD_COUNT; i++) {
+
+			// every fifth record is earlier than the previous
+			long time = START_TIME + i * 15_000L - ( (i % 5 == 4) ? 40_000L : 0 );
+
+			HSRRecordStats stats = new HSRRecordStats(
+					  time
+					, (i % 3 == 0) ? HSRRecordType.Step : HSRRecordType.Group
+					, "Test"
+					, "Usecase_" + (i % 2)
+					, "Path > Ümlaut"
+					, "Step_" + i
+					, (i % 4 == 0) ? "500" : ""
+					, 15
+				);
+
+			stats.setValue(HSRRecordState.ok, HSRMetric.count, i + 1);
+			stats.setValue(HSRRecordState.ok, HSRMetric.avg, i + 0.25);
+			stats.setValue(HSRRecordState.ok, HSRMetric.max, -i * 1.5);
+
+			if(i % 2 == 0) {
+				stats.setValue(HSRRecordState.nok, HSRMetric.count, 1);
+			}
+
+			records.add(stats);
+		}
+
+		return records;
+	}
+
+	/************************************************************************
+	 * Writes the records in chunks of BLOCK_ROWS and closes the file.
+	 ************************************************************************/
+	private File writeFile(String filename, List<HSRRecordStats> records) throws IOException {
+
+		HSRBinaryWriter writer = new HSRBinaryWriter(folder.resolve(filename).toString(), BLOCK_ROWS);
+
+		for(int i = 0; i < records.size(); i += BLOCK_ROWS) {
+			writer.write( records.subList(i, Math.min(records.size(), i + BLOCK_ROWS)) );
+		}
+
+		writer.close();
+
+		return writer.getFile();
+	}
+
+	/************************************************************************
+	 * Returns the offset of the footer of the file.
+	 ************************************************************************/
+	private static long footerOffset(File file) throws IOException {
+
+		try(RandomAccessFile input = new RandomAccessFile(file, "r")){
+			input.seek(input.length() - 12);
+			return input.readLong();
+		}
+	}
+
+	/************************************************************************
+	 * Truncates the file to the given length.
+	 ************************************************************************/
+	private static void truncate(File file, long length) throws IOException {
+
+		try(RandomAccessFile output = new RandomAccessFile(file, "rw")){
+			output.setLength(length);
+		}
+	}
+
+	/************************************************************************
+	 * Checks that the records have been read back unchanged.
+	 ************************************************************************/
+	private static void assertRecords(List<HSRRecordStats> expected, List<HSRRecordStats> actual) {
+
+		Assertions.assertEquals(expected.size(), actual.size(), "Record count");
+
+		for(int r = 0; r < expected.size(); r++) {
+
+			HSRRecordStats expect = expected.get(r);
+			HSRRecordStats result = actual.get(r);
+			String message = "Record " + expect.name();
+
+			Assertions.assertEquals(expect.time(), result.time(), message);
+			Assertions.assertEquals(expect.type(), result.type(), message);
+			Assertions.assertEquals(expect.test(), result.test(), message);
+			Assertions.assertEquals(expect.usecase(), result.usecase(), message);
+			Assertions.assertEquals(expect.path(), result.path(), message);
+			Assertions.assertEquals(expect.name(), result.name(), message);
+			Assertions.assertEquals(expect.code(), result.code(), message);
+			Assertions.assertEquals(expect.granularity(), result.granularity(), message);
+
+			for(int index : VALUE_INDEXES) {
+				Assertions.assertEquals(expect.hasValue(index), result.hasValue(index), message);
+				Assertions.assertEquals(expect.getValueDouble(index), result.getValueDouble(index), message);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.xresch.hsr.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**************************************************************************************************************
+ * Tests the percentiles of HSRHistogram against percentiles taken from sorted values. The relative error must
+ * be below 10^-precision, as documented by HSRConfig.aggregationHistogramPrecision().
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRHistogramTest {
+
+	private static final double[] PERCENTILES = { 0, 1, 25, 50, 75, 90, 95, 99, 99.9, 100 };
+	private static final int VALUE_COUNT = 20_000;
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testPercentilesUniform() {
+
+		Random random = new Random(42);
+
+		double[] values = new double[VALUE_COUNT];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() * 1000;
+		}
+
+		assertPercentiles(values);
+	}
+
+	/************************************************************************
+	 * Long tail over several orders of magnitude, like response times.
+	 ************************************************************************/
+	@Test
+	public void testPercentilesLongTail() {
+
+		Random random = new Random(42);
+
+		double[] values = new double[VALUE_COUNT];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 3) * 50;
+		}
+
+		assertPercentiles(values);
+	}
+
+	/************************************************************************
+	 * Negative values, zeros and many equal values.
+	 ************************************************************************/
+	@Test
+	public void testPercentilesNegativeAndZero() {
+
+		Random random = new Random(42);
+
+		double[] values = new double[VALUE_COUNT];
+		for(int i = 0; i < values.length; i++) {
+			switch(i % 3) {
+				case 0:  values[i] = 0; break;
+				case 1:  values[i] = random.nextInt(10); break;
+				default: values[i] = -random.nextDouble() * 500; break;
+			}
+		}
+
+		assertPercentiles(values);
+	}
+
+	/************************************************************************
+	 * Merged histograms must return the same as a single histogram.
+	 ************************************************************************/
+	@Test
+	public void testAdd() {
+
+		Random random = new Random(42);
+
+		HSRHistogram all = new HSRHistogram(2);
+		HSRHistogram first = new HSRHistogram(2);
+		HSRHistogram second = new HSRHistogram(2);
+
+		for(int i = 0; i < VALUE_COUNT; i++) {
+			double value = random.nextDouble() * ( (i % 2 == 0) ? 10 : 10_000 );
+			all.recordValue(value);
+			( (i < VALUE_COUNT / 3) ? first : second ).recordValue(value);
+		}
+
+		first.add(second);
+
+		Assertions.assertEquals(all.getCount(), first.getCount());
+		Assertions.assertEquals(all.getMin(), first.getMin());
+		Assertions.assertEquals(all.getMax(), first.getMax());
+		Assertions.assertEquals(all.getMean(), first.getMean(), 1e-9);
+
+		for(double percentile : PERCENTILES) {
+			Assertions.assertEquals(all.getValueAtPercentile(percentile), first.getValueAtPercentile(percentile), "Percentile "+percentile);
+		}
+
+		HSRHistogram otherPrecision = new HSRHistogram(3);
+		otherPrecision.recordValue(1);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> first.add(otherPrecision));
+	}
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testEmptyAndReset() {
+
+		HSRHistogram histogram = new HSRHistogram();
+		Assertions.assertTrue(Double.isNaN(histogram.getValueAtPercentile(50)));
+		Assertions.assertTrue(Double.isNaN(histogram.getMean()));
+
+		histogram.recordValue(5, 3);
+		histogram.recordValue(Double.NaN);
+		Assertions.assertEquals(3, histogram.getCount());
+		Assertions.assertEquals(5, histogram.getValueAtPercentile(50));
+
+		histogram.reset();
+		Assertions.assertEquals(0, histogram.getCount());
+		Assertions.assertTrue(Double.isNaN(histogram.getValueAtPercentile(50)));
+	}
+
+	/************************************************************************
+	 * Records the values with every precision and checks the percentiles
+	 * against the sorted values.
+	 ************************************************************************/
+	private static void assertPercentiles(double[] values) {
+
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+
+		for(int precision = 1; precision <= 4; precision++) {
+
+			HSRHistogram histogram = new HSRHistogram(precision);
+			for(double value : values) {
+				histogram.recordValue(value);
+			}
+
+			//---------------------------
+			// Exact Values
+			Assertions.assertEquals(values.length, histogram.getCount());
+			Assertions.assertEquals(sorted[0], histogram.getMin());
+			Assertions.assertEquals(sorted[sorted.length - 1], histogram.getMax());
+			Assertions.assertEquals(Arrays.stream(values).average().getAsDouble(), histogram.getMean(), 1e-6);
+
+			//---------------------------
+			// Percentiles
+			double maxRelativeError = Math.pow(10, -precision);
+
+			for(double percentile : PERCENTILES) {
+
+				double expected = sorted[ (int)HSRStatsEngine.percentileRank(percentile, sorted.length) - 1 ];
+				double actual = histogram.getValueAtPercentile(percentile);
+
+				double error = (expected == 0) 
+								? Math.abs(actual) 
+								: Math.abs(actual - expected) / Math.abs(expected);
+
+				Assertions.assertTrue(error < maxRelativeError
+						, "Precision "+precision+", percentile "+percentile+": expected "+expected+" but was "+actual);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.xresch.hsr.stats;
+
+import java.lang.reflect.Field;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.xresch.hsr.stats.HSRRecord.HSRRecordType;
+
+/**************************************************************************************************************
+ * Tests the resolving of the path of HSRRecord.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRRecordTest {
+
+	/************************************************************************
+	 * Setting the same usecase again, as HSR.createItem() does, must keep
+	 * the path resolved from the parent.
+	 ************************************************************************/
+	@Test
+	public void testPathIDFromParent() throws Exception {
+
+		HSRRecord parent = new HSRRecord(HSRRecordType.Group, "Parent");
+		parent.usecase("Usecase");
+
+		HSRRecord child = new HSRRecord(HSRRecordType.Step, parent, "Child");
+		child.usecase("Usecase");
+
+		int expectedPathID = HSRMetricRegistry.getPathID(parent.getPathID(), "Parent");
+
+		Assertions.assertEquals(expectedPathID, parentPathID(child), "Path is resolved from the parent.");
+		Assertions.assertEquals(expectedPathID, child.getPathID());
+		Assertions.assertEquals(expectedPathID, path("Usecase", "Parent"));
+	}
+
+	/************************************************************************
+	 * Changing the usecase must resolve the path again.
+	 ************************************************************************/
+	@Test
+	public void testPathIDUsecaseChanged() throws Exception {
+
+		HSRRecord parent = new HSRRecord(HSRRecordType.Group, "Parent");
+		parent.usecase("Usecase");
+
+		HSRRecord child = new HSRRecord(HSRRecordType.Step, parent, "Child");
+		int pathIDBefore = child.getPathID();
+
+		child.usecase("Other");
+
+		Assertions.assertEquals(-1, parentPathID(child), "Path is not taken from the parent.");
+		Assertions.assertEquals(path("Other", "Parent"), child.getPathID());
+		Assertions.assertNotEquals(pathIDBefore, child.getPathID());
+	}
+
+	/************************************************************************
+	 * Returns the id of the path made of the given segments.
+	 ************************************************************************/
+	private static int path(String... segments) {
+
+		int pathID = HSRMetricRegistry.ROOT_PATH;
+
+		for(String segment : segments) {
+			pathID = HSRMetricRegistry.getPathID(pathID, segment);
+		}
+
+		return pathID;
+	}
+
+	/************************************************************************
+	 * Returns the path id the record has taken from its parent.
+	 ************************************************************************/
+	private static int parentPathID(HSRRecord record) throws Exception {
+
+		Field field = HSRRecord.class.getDeclaredField("parentPathID");
+		field.setAccessible(true);
+
+		return field.getInt(record);
+	}
+
+}
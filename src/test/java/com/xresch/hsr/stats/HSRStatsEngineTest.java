@@ -0,0 +1,182 @@
+package com.xresch.hsr.stats;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**************************************************************************************************************
+ * Tests the percentile selection of HSRStatsEngine against percentiles taken from sorted values.
+ *
+ * @author Reto Scheiwiller, (c) Copyright 2025
+ * @license MIT-License
+ **************************************************************************************************************/
+public class HSRStatsEngineTest {
+
+	private static final double[] PERCENTILES = { 0, 1, 25, 50, 75, 90, 95, 99, 99.9, 100 };
+	
+	// below, at and above the threshold for sorting small ranges
+	private static final int[] SIZES = { 1, 2, 3, 31, 32, 33, 100, 1000, 10_000 };
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testPercentilesRandom() {
+
+		Random random = new Random(42);
+
+		for(int size : SIZES) {
+			double[] values = new double[size];
+			for(int i = 0; i < size; i++) {
+				values[i] = random.nextDouble() * 1000;
+			}
+			assertPercentiles(values);
+		}
+	}
+
+	/************************************************************************
+	 * Many equal values, like response times in full milliseconds.
+	 ************************************************************************/
+	@Test
+	public void testPercentilesDuplicates() {
+
+		Random random = new Random(42);
+
+		for(int size : SIZES) {
+			double[] values = new double[size];
+			for(int i = 0; i < size; i++) {
+				values[i] = random.nextInt(3);
+			}
+			assertPercentiles(values);
+
+			Arrays.fill(values, 7);
+			assertPercentiles(values);
+		}
+	}
+
+	/************************************************************************
+	 * Sorted and reverse sorted input.
+	 ************************************************************************/
+	@Test
+	public void testPercentilesSorted() {
+
+		for(int size : SIZES) {
+			double[] ascending = new double[size];
+			double[] descending = new double[size];
+			for(int i = 0; i < size; i++) {
+				ascending[i] = i;
+				descending[i] = size - i;
+			}
+			assertPercentiles(ascending);
+			assertPercentiles(descending);
+		}
+	}
+
+	/************************************************************************
+	 * Only the given count of values is considered.
+	 ************************************************************************/
+	@Test
+	public void testPercentilesCount() {
+
+		double[] values = { 5, 1, 4, 2, 3, 100, -100 };
+
+		double[] result = HSRStatsEngine.percentiles(values, 5, 0, 50, 100);
+
+		Assertions.assertArrayEquals(new double[] {1, 3, 5}, result);
+		
+		result = HSRStatsEngine.percentiles(values, 0, 50);
+		Assertions.assertTrue(Double.isNaN(result[0]));
+	}
+
+	/************************************************************************
+	 * 
+	 ************************************************************************/
+	@Test
+	public void testSelectPercentile() {
+
+		Random random = new Random(42);
+
+		for(int size : SIZES) {
+
+			ArrayList<BigDecimal> values = new ArrayList<>();
+			for(int i = 0; i < size; i++) {
+				
+				switch(i % 4) {
+					case 0:  values.add(null); break;
+					case 1:  values.add(BigDecimal.valueOf(random.nextInt(5))); break;
+					default: values.add(BigDecimal.valueOf(random.nextInt(100_000), 3)); break;
+				}
+			}
+
+			ArrayList<BigDecimal> copy = new ArrayList<>(values);
+			
+			ArrayList<BigDecimal> sorted = new ArrayList<>(values);
+			sorted.removeIf(Objects::isNull);
+			Collections.sort(sorted);
+
+			for(double percentile : PERCENTILES) {
+
+				BigDecimal result = HSRStatsEngine.selectPercentile(percentile, values);
+
+				if(sorted.isEmpty()) {
+					Assertions.assertNull(result, "Size "+size);
+					continue;
+				}
+
+				BigDecimal expected = sorted.get( (int)HSRStatsEngine.percentileRank(percentile, sorted.size()) - 1 );
+				Assertions.assertEquals(0, expected.compareTo(result), "Size "+size+", percentile "+percentile+": "+expected+" != "+result);
+			}
+
+			Assertions.assertEquals(copy, values, "Values are not changed.");
+		}
+		
+		//---------------------------
+		// Only nulls
+		ArrayList<BigDecimal> nulls = new ArrayList<>();
+		nulls.add(null);
+		nulls.add(null);
+		Assertions.assertNull(HSRStatsEngine.selectPercentile(50, nulls));
+		Assertions.assertNull(HSRStatsEngine.selectPercentile(50, new ArrayList<>()));
+	}
+
+	/************************************************************************
+	 * Checks all percentiles at once and one by one against the sorted
+	 * values.
+	 ************************************************************************/
+	private static void assertPercentiles(double[] values) {
+
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+
+		double[] expected = new double[PERCENTILES.length];
+		for(int i = 0; i < PERCENTILES.length; i++) {
+			expected[i] = sorted[ (int)HSRStatsEngine.percentileRank(PERCENTILES[i], sorted.length) - 1 ];
+		}
+
+		//---------------------------
+		// All at once, any order
+		double[] reversed = new double[PERCENTILES.length];
+		for(int i = 0; i < PERCENTILES.length; i++) {
+			reversed[i] = PERCENTILES[PERCENTILES.length - 1 - i];
+		}
+
+		double[] result = HSRStatsEngine.percentiles(values.clone(), values.length, reversed);
+		for(int i = 0; i < PERCENTILES.length; i++) {
+			Assertions.assertEquals(expected[PERCENTILES.length - 1 - i], result[i], "Size "+values.length+", percentile "+reversed[i]);
+		}
+
+		//---------------------------
+		// One by one
+		for(int i = 0; i < PERCENTILES.length; i++) {
+			double single = HSRStatsEngine.percentiles(values.clone(), values.length, PERCENTILES[i])[0];
+			Assertions.assertEquals(expected[i], single, "Size "+values.length+", percentile "+PERCENTILES[i]);
+		}
+	}
+
+}